@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.PriorityQueue;
 import java.util.*;
 import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 
 
 public class Autocomplete {
@@ -71,6 +72,99 @@ public class Autocomplete {
       return index;
    }
 
+        /**
+         * Compares word against prefix using only the first prefix.length()
+         * characters of word, reading both in place. Words starting with prefix
+         * compare equal; a word that is itself a proper prefix of prefix
+         * compares less. This orders words the same way Term.PrefixOrder
+         * orders them against a key Term holding prefix.
+         */
+   public static int comparePrefix(String word, CharSequence prefix) {
+      int length = Math.min(word.length(), prefix.length());
+      for (int i = 0; i < length; i++) {
+         int diff = word.charAt(i) - prefix.charAt(i);
+         if (diff != 0)
+            return diff;
+      }
+      return word.length() < prefix.length() ? -1 : 0;
+   }
+
+        /**
+         * Allocation-free form of firstIndexOf for prefix searches: finds the
+         * first Term in a (sorted lexicographically) whose word starts with
+         * prefix, without building a key Term or a PrefixOrder comparator.
+         * 
+         * @param a
+         *            - The sorted array of Terms being searched
+         * @param prefix
+         *            - The prefix being searched for.
+         * @return The first index i such that a[i] starts with prefix. If no
+         *         such index exists, return -1 instead.
+         */
+   public static int firstIndexOf(Term[] a, CharSequence prefix) {
+      int beg = 0, end = a.length-1;
+      int index = -1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         int comparisonResult = comparePrefix(a[mid].getWord(), prefix);
+         if (comparisonResult == 0) index = mid;
+         if (comparisonResult >= 0) end = mid-1;
+         else beg = mid+1;
+      }
+      return index;
+   }
+
+        /**
+         * The same as firstIndexOf(Term[], CharSequence), but instead finding
+         * the index of the last Term.
+         */
+   public static int lastIndexOf(Term[] a, CharSequence prefix) {
+      int beg = 0, end = a.length-1;
+      int index = -1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         int comparisonResult = comparePrefix(a[mid].getWord(), prefix);
+         if (comparisonResult == 0) index = mid;
+         if (comparisonResult > 0) end = mid-1;
+         else beg = mid+1;
+      }
+      return index;
+   }
+
+        /**
+         * The same as firstIndexOf(Term[], CharSequence), over a sorted array of
+         * words.
+         */
+   public static int firstIndexOf(String[] a, CharSequence prefix) {
+      int beg = 0, end = a.length-1;
+      int index = -1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         int comparisonResult = comparePrefix(a[mid], prefix);
+         if (comparisonResult == 0) index = mid;
+         if (comparisonResult >= 0) end = mid-1;
+         else beg = mid+1;
+      }
+      return index;
+   }
+
+        /**
+         * The same as lastIndexOf(Term[], CharSequence), over a sorted array of
+         * words.
+         */
+   public static int lastIndexOf(String[] a, CharSequence prefix) {
+      int beg = 0, end = a.length-1;
+      int index = -1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         int comparisonResult = comparePrefix(a[mid], prefix);
+         if (comparisonResult == 0) index = mid;
+         if (comparisonResult > 0) end = mid-1;
+         else beg = mid+1;
+      }
+      return index;
+   }
+
     /**
      * An Autocompletor supports returning either the top k best matches, or the
      * single top match, given a String prefix.
@@ -98,7 +192,179 @@ public class Autocomplete {
          * return 0.0
          */
       public double weightOf(String term);
+
+        /**
+         * Returns the top k matching terms with their weights, in descending
+         * order of weight: the same words as topMatches(prefix, k). This
+         * default looks up each weight with weightOf; engines that have the
+         * weights at hand from their search return them directly.
+         */
+      default public Iterable<Term> topMatchesWithWeights(String prefix, int k) {
+         List<Term> ret = new ArrayList<Term>();
+         for (String word : topMatches(prefix, k))
+            ret.add(new Term(word, weightOf(word)));
+         return ret;
+      }
+
+        /**
+         * Returns topMatches(prefix, k) for every prefix in prefixes, in the
+         * same order. Implementations may answer the prefixes in sorted order
+         * to share work between those with a common stem.
+         *
+         * @throws NullPointerException
+         *             if prefixes or any prefix is null
+         * @throws IllegalArgumentException
+         *             if k is negative
+         */
+      default public List<Iterable<String>> topMatchesBatch(List<String> prefixes, int k) {
+         List<Iterable<String>> results = new ArrayList<Iterable<String>>(prefixes.size());
+         for (String prefix : prefixes)
+            results.add(topMatches(prefix, k));
+         return results;
+      }
+
+        /**
+         * The same as topMatchesBatch(prefixes, k), but if parallel is true,
+         * splitting prefixes into runs of BATCH_CHUNK and answering the runs
+         * on the common fork-join pool. Requires topMatchesBatch to be safe to
+         * call from several threads at once.
+         */
+      default public List<Iterable<String>> topMatchesBatch(List<String> prefixes, int k, boolean parallel) {
+         if (!parallel || prefixes.size() <= BATCH_CHUNK)
+            return topMatchesBatch(prefixes, k);
+         List<List<String>> chunks = new ArrayList<List<String>>();
+         for (int i = 0; i < prefixes.size(); i += BATCH_CHUNK)
+            chunks.add(prefixes.subList(i, Math.min(i + BATCH_CHUNK, prefixes.size())));
+         List<Iterable<String>> results = new ArrayList<Iterable<String>>(prefixes.size());
+         for (List<Iterable<String>> chunk : chunks.parallelStream()
+               .map(c -> topMatchesBatch(c, k)).collect(Collectors.toList()))
+            results.addAll(chunk);
+         return results;
+      }
    } 
+
+    /**
+     * The number of prefixes each task answers in a parallel topMatchesBatch.
+     */
+   public static final int BATCH_CHUNK = 256;
+
+        /**
+         * Returns the indices of prefixes in lexicographic order of the
+         * prefixes, for the batch implementations, which answer them in that
+         * order so that each shares the search of the one before.
+         *
+         * @throws NullPointerException
+         *             if prefixes or any prefix is null
+         * @throws IllegalArgumentException
+         *             if k is negative
+         */
+   static Integer[] batchOrder(List<String> prefixes, int k) {
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      final String[] array = prefixes.toArray(new String[prefixes.size()]);
+      Integer[] order = new Integer[array.length];
+      for (int i = 0; i < order.length; i++) {
+         if (array[i] == null)
+            throw new NullPointerException("Prefix is null");
+         order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+         public int compare(Integer a, Integer b) {
+            return array[a].compareTo(array[b]);
+         }
+      });
+      return order;
+   }
+
+        /**
+         * Returns the words of terms, in order.
+         */
+   static List<String> wordsOf(List<Term> terms) {
+      List<String> words = new ArrayList<String>(terms.size());
+      for (Term term : terms)
+         words.add(term.getWord());
+      return words;
+   }
+
+   @SuppressWarnings("unchecked")
+   static Iterable<String>[] newBatchResults(int size) {
+      return (Iterable<String>[]) new Iterable<?>[size];
+   }
+
+    /**
+     * An Autocompletor that can also follow a user typing through a
+     * CompletionSession, reusing its position between keystrokes.
+     */
+   public interface SessionAutocompletor extends Autocompletor {
+   
+        /**
+         * Returns a new session whose prefix is empty.
+         */
+      public CompletionSession newSession();
+   }
+
+    /**
+     * An Autocompletor that can also write its results into a caller's
+     * MatchBuffer, so that a thread querying repeatedly with the same buffer
+     * allocates nothing once the buffer and its scratch space have grown to
+     * size.
+     */
+   public interface BufferedAutocompletor extends Autocompletor {
+   
+        /**
+         * Replaces the contents of into with the k words with the largest
+         * weight which start with prefix, their weights and term ids, in
+         * descending weight order, and returns how many there are.
+         *
+         * @throws NullPointerException
+         *             if prefix or into is null
+         * @throws IllegalArgumentException
+         *             if k is negative
+         */
+      public int topMatches(CharSequence prefix, int k, MatchBuffer into);
+   }
+
+    /**
+     * An Autocompletor whose terms can change after construction, safely
+     * while other threads query it.
+     */
+   public interface UpdatableAutocompletor extends Autocompletor {
+
+        /**
+         * Adds term with the given weight, or replaces its weight if it is
+         * already present.
+         */
+      public void insert(String term, double weight);
+
+        /**
+         * Replaces the weight of term. Returns false, changing nothing, if term
+         * is not present.
+         */
+      public boolean updateWeight(String term, double weight);
+
+        /**
+         * Removes term. Returns false if term is not present.
+         */
+      public boolean remove(String term);
+
+        /**
+         * Registers listener to be told of every change made from now on.
+         */
+      public void addUpdateListener(UpdateListener listener);
+   }
+
+    /**
+     * Told of each change to an UpdatableAutocompletor, after the change is
+     * visible to queries and before the next change is made.
+     */
+   public interface UpdateListener {
+
+        /**
+         * Called once per changed term. oldWeight is -1 if term was just
+         * inserted and newWeight is -1 if it was just removed.
+         */
+      public void termUpdated(String term, double oldWeight, double newWeight);
+   }
     /**
      * Implements Autocompletor by scanning through the entire array of terms for
      * every topKMatches or topMatch query.
@@ -106,6 +372,7 @@ public class Autocomplete {
    public static class BruteAutocomplete implements Autocompletor {
    
       Term[] myTerms;
+      TermIndex myIndex;
    
       public BruteAutocomplete(String[] terms, double[] weights) {
          if (terms == null || weights == null)
@@ -122,9 +389,14 @@ public class Autocomplete {
          }
          if (words.size() != terms.length)
             throw new IllegalArgumentException("Duplicate input terms");
+         myIndex = new TermIndex(terms, weights);
       }
    
       public Iterable<String> topMatches(String prefix, int k) {
+         return wordsOf(topMatchesWithWeights(prefix, k));
+      }
+   
+      public List<Term> topMatchesWithWeights(String prefix, int k) {
          if (k < 0)
             throw new IllegalArgumentException("Illegal value of k:"+k);
             // maintain pq of size k
@@ -140,9 +412,9 @@ public class Autocomplete {
             }
          }
          int numResults = Math.min(k, pq.size());
-         LinkedList<String> ret = new LinkedList<String>();
+         LinkedList<Term> ret = new LinkedList<Term>();
          for (int i = 0; i < numResults; i++) {
-            ret.addFirst(pq.remove().getWord());
+            ret.addFirst(pq.remove());
          }
          return ret;
       }
@@ -159,13 +431,12 @@ public class Autocomplete {
          return maxTerm;
       }
    
+        /**
+         * Return the weight of a given term, ignoring case, from myIndex. If
+         * term is not in the dictionary, return 0.0
+         */
       public double weightOf(String term) {
-         for (Term t : myTerms) {
-            if (t.getWord().equalsIgnoreCase(term))
-               return t.getWeight();
-         }
-            // term is not in dictionary return 0
-         return 0;
+         return myIndex.weightOf(term);
       }
    }
    /**
@@ -179,6 +450,7 @@ public class Autocomplete {
    public static class BinarySearchAutocomplete implements Autocompletor {
    
       Term[] myTerms;
+      TermIndex myIndex;
    
         /**
          * Given arrays of words and weights, initialize myTerms to a corresponding
@@ -204,7 +476,8 @@ public class Autocomplete {
          for (int i = 0; i < terms.length; i++) {
             myTerms[i] = new Term(terms[i], weights[i]);
          }
-         Arrays.sort(myTerms);
+         Arrays.parallelSort(myTerms);
+         myIndex = new TermIndex(terms, weights);
       }
    
         /**
@@ -228,11 +501,18 @@ public class Autocomplete {
          *             NullPointerException if prefix is null
          */
       public Iterable<String> topMatches(String prefix, int k) {
+         return wordsOf(topMatchesWithWeights(prefix, k));
+      }
+   
+        /**
+         * The same as topMatches, returning the Terms themselves.
+         */
+      public List<Term> topMatchesWithWeights(String prefix, int k) {
          if (prefix == null) throw new NullPointerException();
-         int f = firstIndexOf(myTerms, new Term(prefix, 0) , new Term.PrefixOrder(prefix.length()));
-         int l = lastIndexOf(myTerms, new Term(prefix, 0) , new Term.PrefixOrder(prefix.length()));
-         if (l < 0) 
-            return new ArrayList<String>();
+         int f = firstIndexOf(myTerms, prefix);
+         if (f < 0) 
+            return new ArrayList<Term>();
+         int l = lastIndexOf(myTerms, prefix);
          PriorityQueue<Term> pq = new PriorityQueue<Term>(k, new Term.WeightOrder());
          for (int i = f; i <= l; i++) {
             Term t = myTerms[i];
@@ -244,9 +524,9 @@ public class Autocomplete {
             }
          }
          int numResults = Math.min(k, pq.size());
-         LinkedList<String> ret = new LinkedList<String>();
+         LinkedList<Term> ret = new LinkedList<Term>();
          for (int i = 0; i < numResults; i++) {
-            ret.addFirst(pq.remove().getWord());
+            ret.addFirst(pq.remove());
          }
          return ret;
       }
@@ -266,11 +546,10 @@ public class Autocomplete {
          */
       public String topMatch(String prefix) {
          if (prefix == null) throw new NullPointerException();
-         int f = firstIndexOf(myTerms, new Term(prefix, 0) , new Term.PrefixOrder(prefix.length()));
-         int l = lastIndexOf(myTerms, new Term(prefix, 0) , new Term.PrefixOrder(prefix.length()));
-         ArrayList<Term> found = new ArrayList<Term>();
-         if (l < 0) 
+         int f = firstIndexOf(myTerms, prefix);
+         if (f < 0) 
             return "";
+         int l = lastIndexOf(myTerms, prefix);
          double maxWeight = myTerms[f].getWeight();
          int maxWeightIndex = f;
          for (int i = f+1; i <= l; i++) {
@@ -283,12 +562,11 @@ public class Autocomplete {
       }
    
         /**
-         * Return the weight of a given term. If term is not in the dictionary,
-         * return 0.0
+         * Return the weight of a given term, ignoring case, from myIndex. If
+         * term is not in the dictionary, return 0.0
          */
       public double weightOf(String term) {
-            // TODO complete weightOf
-         return 0.0;
+         return myIndex.weightOf(term);
       }
    }
     /**
@@ -298,17 +576,25 @@ public class Autocomplete {
      * @author Jeff Forbes
      * 
      */
-   public static class TrieAutocomplete implements Autocompletor {
+   public static class TrieAutocomplete implements SessionAutocompletor {
    
         /**
          * Root of entire trie
          */
       protected Node myRoot;
    
+        /**
+         * The weight of every word in the trie, for weightOf
+         */
+      protected TermIndex myIndex;
+   
         /**
          * Constructor method for TrieAutocomplete. Should initialize the trie
          * rooted at myRoot, as well as add all nodes necessary to represent the
-         * words in terms.
+         * words in terms. The trie is built bottom-up from the sorted terms by
+         * TrieBulkBuilder, in one linear pass when terms are already sorted.
+         * Null or empty words and negative weights are skipped; if a word is
+         * repeated, its last weight is used.
          * 
          * @param terms
          *            - The words we will autocomplete from
@@ -317,125 +603,17 @@ public class Autocomplete {
          * @throws NullPointerException
          *             if either argument is null
          * @throws IllegalArgumentException
-         *             if terms and weights are different weight
+         *             if terms and weights are different lengths
          */
       public TrieAutocomplete(String[] terms, double[] weights) {
-         if (terms == null || weights == null)
-            throw new NullPointerException("One or more arguments null");
-            // Represent the root as a dummy/placeholder node
-         myRoot = new Node('-', null, 0);
-      
+         myRoot = TrieBulkBuilder.build(terms, weights);
+         myIndex = new TermIndex(terms.length);
          for (int i = 0; i < terms.length; i++) {
-            add(terms[i], weights[i]);
-         }
-      }
-   
-        /**
-         * Add the word with given weight to the trie. If word already exists in the
-         * trie, no new nodes should be created, but the weight of word should be
-         * updated.
-         * 
-         * In adding a word, this method should do the following: Create any
-         * necessary intermediate nodes if they do not exist. Update the
-         * subtreeMaxWeight of all nodes in the path from root to the node
-         * representing word. Set the value of myWord, myWeight, isWord, and
-         * mySubtreeMaxWeight of the node corresponding to the added word to the
-         * correct values
-         * 
-         * @throws a
-         *             NullPointerException if word is null
-         * @throws an
-         *             IllegalArgumentException if weight is negative.
-         */
-      private void add(String word, double weight) {//https://www.hackerearth.com/practice/data-structures/advanced-data-structures/trie-keyword-tree/tutorial/
-         try {//https://www.geeksforgeeks.org/trie-insert-and-search/
-                          //https://leetcode.com/problems/implement-trie-prefix-tree/
-                
-            if(word != null && weight >=0) {//checks the given condition
-               
-               Node newnode; //initilizes the new node
-               Node n = myRoot; // intilizes node n to given node myRoot
-               boolean bool;//initlizes boolean variable bool used to check in condition statemnt 
-               int length = word.length();//length paramter initalized as in int takes the value of word length 
-               int loop = 0;//this is a loop counter 
-               char ch;
-               do  { //traverses through the word to see for the character ch                         
-                  double subtreewe = n.mySubtreeMaxWeight; //initlizes the subtree weight to the variabe subtree
-                  double asweigh = 0.0;boolean booleanweight = false; double check_weight = weight;  
-                  int x = 1;//conditon true for switch statemnt which lets the loop enter the condition 
-                  switch(x) {
-                     case 1:
-                        if(check_weight > subtreewe) {
-                           booleanweight = check_assign(booleanweight,subtreewe,asweigh,check_weight);   //checks the booleanweight as true if all the valess  supplied to the condtion is true   
-                           if(booleanweight){
-                              subtreewe= check_weight;
-                              n.mySubtreeMaxWeight = assign(booleanweight,asweigh,subtreewe);// assigns the weight of the subtree as subtree weight by passing and checking through assign function
-                           }
-                          
-                        }
-                  }               
-                  ch = word.charAt(loop);//checks the character at that loop counter or at that instance value 
-                  //System.out.println(ch); 
-                  Map<Character, Node> ni = n.children; 
-                  bool = ni.containsKey(ch);
-                  Node tosee = n.getChild(ch);//    // https://stackoverflow.com/questions/31544501/creating-a-node-class-in-java  
-                  if(bool == false && tosee == null){
-                     newnode = new Node(ch, n, weight);  //creation of new node done here
-                     Map<Character,Node> child;//creates a Map child //https://www.geeksforgeeks.org/longest-prefix-matching-a-trie-based-solution-in-java/
-                     child = n.children;
-                     child.put(ch,newnode);//https://stackoverflow.com/questions/31544501/creating-a-node-class-in-java
-                  }
-                  
-                  n = n.getChild(ch);
-                  
-                  loop++;
-                  
-               }while(loop<length);
-               
-               
-               n.isWord=true;//sets isWord to true.
-               
-               n.setWeight(weight);//sets the value for setWeight by passing the weight
-               
-               n.setWord(word); //sets the value setWord by passing the word 
-               
-               
-               if(word == null) {
-                  throw new NullPointerException("Null pointer exception being thrown "); //checks if the word is null
-               }
-            
-               if(weight < 0) {
-                  throw new IllegalArgumentException("Illegal argument exception being thrown");//checks if the weight is negative
-               }
-            
-            }
+            if (TrieBulkBuilder.isKept(terms[i], weights[i]))
+               myIndex.put(terms[i], weights[i]);
          }
-         catch (Exception e) {
-            if(e == new NullPointerException()) {
-               System.out.println("word is null");
-            }
-            else if(e == new IllegalArgumentException()) {
-               System.out.println("weight is negative");
-            }
-         }
-            
-      }
-      
-      boolean check_assign(boolean wei,double subtreewe,double asweigh,double check_weight) {//externally created fucntion check_Assign
-         boolean flag = false;
-         if(wei == false)
-            flag = true;
-         
-         return flag;
-      }
-      
-      double assign(boolean weight,double x,double y) {//externally created assign function
-         if(weight == true)
-            x = y;
-         return x;
       }
    
-   
         /**
          * Required by the Autocompletor interface. Returns an array containing the
          * k words in the trie with the largest weight which match the given prefix,
@@ -453,67 +631,64 @@ public class Autocomplete {
          *         words starting with prefix, in descending weight order. If less
          *         than k such words exist, return all those words. If no such words
          *         exist, return an empty Iterable
-         * @throws a
-         *             NullPointerException if prefix is null
+         * @throws NullPointerException
+         *             if prefix is null
+         * @throws IllegalArgumentException
+         *             if k is negative
          */
-      public Iterable<String> topMatches(String prefix, int k) {//https://www.hackerearth.com/practice/data-structures/advanced-data-structures/trie-keyword-tree/tutorial/
-         //https://www.geeksforgeeks.org/trie-insert-and-search/
-                          //https://leetcode.com/problems/implement-trie-prefix-tree/th.com/practice/data-structures/advanced-data-structures/trie-keyword-tree/tutorial/
-             
-             
-         List List = new ArrayList();//  creates a new arraylist list which is returned by the fucntion after manipulation 
-         try { 
-            if (prefix != null){ //throw new NullPointerException();   
-               Node npref = myRoot;
-               boolean bool; 
-               PriorityQueue<Node> pque = new PriorityQueue<Node>();//makes priority que , which stores the valeus in reverse order 
-               PriorityQueue<Node> AddNode = new PriorityQueue<Node>();//makes priority que Addnode
-               pque = new PriorityQueue<Node>(new Node.ReverseSubtreeMaxWeightComparator());// updates the pque so that it stores the values in reverese order user ReverseSubtreeMaxWeightcomaprator
-            //https://www.geeksforgeeks.org/implement-priorityqueue-comparator-java/
-               char[] arraystring = prefix.toCharArray();//https://crunchify.com/java-simple-way-to-convert-string-to-char-array/
-               for (char ch : arraystring)
-               {  //https://www.geeksforgeeks.org/hashmap-containskey-method-in-java/
-                  Map<Character, Node> nip = npref.children; 
-                  bool = nip.containsKey(ch);//creates a bool which checks if character is there in the arraystring
-                  Node kid = npref.getChild(ch);// creates a child node of prefix node
-                  double weight = npref.mySubtreeMaxWeight;
-                  switch (k) {
-                     case 0 :
-                        if(bool == false) {
-                           return List;}
-                     default:
-                        if(bool == false && k > 0)
-                           return List;
-                        else
-                           npref = kid;}}
-               boolean condition = true;
-               pque.add(npref);// https://www.tutorialspoint.com/java/util/priorityqueue_add.html
-               double lsize = 0;
-               do {
-                  if(!pque.isEmpty()){
-                     if(List.size() <=k) {//throw new NoSuchElementException();
-                        npref = pque.remove(); // remove is being used so that is no element exist NoSuchException gets thrown
-                        AddNode.add(npref);// node being added in Reresversed order
-                        npref = AddNode.poll();// poll is being is used here so that npref can hold a null value before entering the loop is no element exist
-                        //https://www.geeksforgeeks.org/priorityqueue-remove-method-in-java/
-                        boolean nprefbool = npref.isWord;
-                        if (nprefbool){List.add(npref.myWord);
-                           double size = List.size();
-                           if (size < k)
-                              continue;
-                           else
-                              break;}
-                        Collection<Node> ncv;
-                        ncv = npref.children.values();  //https://docs.oracle.com/javase/8/docs/api/javax/xml/soap/Node.html
-                        pque.addAll(ncv);}
-                     else{condition = false;
-                        break;}}
-                  lsize = pque.size();
-               }while(condition == true && lsize > 0 || lsize !=0);}}
-         catch (Exception e) {
-            if(e == new NullPointerException()) {
-               System.out.println("word is null");}}   
-         return List;}      
+      public Iterable<String> topMatches(String prefix, int k) {
+         return wordsOf(topMatchesWithWeights(prefix, k));
+      }
+   
+        /**
+         * The same as topMatches, with each word's weight read from its Node.
+         * 
+         * @throws NullPointerException
+         *             if prefix is null
+         * @throws IllegalArgumentException
+         *             if k is negative
+         */
+      public List<Term> topMatchesWithWeights(String prefix, int k) {
+         if (prefix == null)
+            throw new NullPointerException();
+         if (k < 0)
+            throw new IllegalArgumentException("Illegal value of k:"+k);
+         Node start = myRoot;
+         for (int i = 0; i < prefix.length() && start != null; i++)
+            start = start.getChild(prefix.charAt(i));
+         return topMatches(start, k);
+      }
+   
+        /**
+         * Returns the k heaviest words in the subtrie rooted at start (none if
+         * start is null), in descending weight order.
+         * 
+         * Subtrees are expanded best-first by mySubtreeMaxWeight. A node's own
+         * word waits in a second queue, ordered by myWeight, until no
+         * unexpanded subtree could hold a heavier word; this way the children
+         * of a node that is itself a word are still searched.
+         */
+      List<Term> topMatches(Node start, int k) {
+         List<Term> ret = new ArrayList<Term>();
+         if (start == null || k <= 0)
+            return ret;
+         PriorityQueue<Node> subtrees = new PriorityQueue<Node>(new Node.ReverseSubtreeMaxWeightComparator());
+         PriorityQueue<Node> words = new PriorityQueue<Node>(Collections.reverseOrder());
+         subtrees.add(start);
+         while (ret.size() < k && (!subtrees.isEmpty() || !words.isEmpty())) {
+            if (!words.isEmpty() && (subtrees.isEmpty()
+                   || words.peek().myWeight >= subtrees.peek().mySubtreeMaxWeight)) {
+               Node word = words.remove();
+               ret.add(new Term(word.myWord, word.myWeight));
+               continue;
+            }
+            Node node = subtrees.remove();
+            if (node.isWord)
+               words.add(node);
+            subtrees.addAll(node.children.values());
+         }
+         return ret;
+      }
     
         /**
          * Given a prefix, returns the largest-weight word in the trie starting with
@@ -580,17 +755,236 @@ public class Autocomplete {
       }
    
         /**
-         * Return the weight of a given term. If term is not in the dictionary,
-         * return 0.0
+         * Return the weight of a given term, ignoring case, from myIndex. If
+         * term is not in the dictionary, return 0.0
          */
       public double weightOf(String term) {
-            // TODO complete weightOf
-         return 0.0;
+         return myIndex.weightOf(term);
       }
    
         /**
-         * Optional: Returns the highest weighted matches within k edit distance of
-         * the word. If the word is in the dictionary, then return an empty list.
+         * Returns a session that tracks the Node at the end of its prefix.
+         * Backspace follows the parent pointer, so every keystroke is O(1)
+         * apart from the search itself.
+         */
+      public CompletionSession newSession() {
+         return new TrieSession();
+      }
+   
+      private class TrieSession implements CompletionSession {
+         private final StringBuilder myPrefix = new StringBuilder();
+         private Node myNode = myRoot;
+         // characters typed past the end of the trie; myNode is the last
+         // node that was reached
+         private int myMissing;
+         private List<Term> myResults;
+         private int myResultsK;
+      
+         public void append(char ch) {
+            myPrefix.append(ch);
+            Node child = myMissing == 0 ? myNode.getChild(ch) : null;
+            if (child == null)
+               myMissing++;
+            else
+               myNode = child;
+            myResults = null;
+         }
+      
+         public void backspace() {
+            if (myPrefix.length() == 0)
+               return;
+            myPrefix.setLength(myPrefix.length() - 1);
+            if (myMissing > 0)
+               myMissing--;
+            else
+               myNode = myNode.parent;
+            myResults = null;
+         }
+      
+         public void reset() {
+            myPrefix.setLength(0);
+            myNode = myRoot;
+            myMissing = 0;
+            myResults = null;
+         }
+      
+         public String getPrefix() {
+            return myPrefix.toString();
+         }
+      
+         public Iterable<String> topMatches(int k) {
+            return wordsOf(topMatchesWithWeights(k));
+         }
+      
+         public List<Term> topMatchesWithWeights(int k) {
+            if (k < 0)
+               throw new IllegalArgumentException("Illegal value of k:"+k);
+            if (myMissing > 0)
+               return new ArrayList<Term>();
+            // a shorter list than was asked for holds every match
+            if (myResults == null || (k > myResultsK && myResults.size() == myResultsK)) {
+               myResults = TrieAutocomplete.this.topMatches(myNode, k);
+               myResultsK = k;
+            }
+            return new ArrayList<Term>(myResults.subList(0, Math.min(k, myResults.size())));
+         }
+      
+         public String topMatch() {
+            Iterator<String> top = topMatches(1).iterator();
+            return top.hasNext() ? top.next() : "";
+         }
+      }
+   
+        /**
+         * The most trie nodes fuzzyMatches(prefix, dist, k) expands before it
+         * returns what it has found, bounding its latency.
+         */
+      public static final int FUZZY_VISIT_BUDGET = 1 << 13;
+   
+        /**
+         * Typo-tolerant topMatches: returns the k heaviest words that start
+         * with some string within dist edits (insertions, deletions or
+         * substitutions) of prefix, in descending weight order, expanding at
+         * most FUZZY_VISIT_BUDGET nodes. With dist 0 this is topMatches(prefix,
+         * k).
+         * 
+         * @see #fuzzyMatches(String, int, int, int)
+         */
+      public Iterable<String> fuzzyMatches(String prefix, int dist, int k) {
+         return fuzzyMatches(prefix, dist, k, FUZZY_VISIT_BUDGET);
+      }
+   
+        /**
+         * Returns the k heaviest words that start with some string within dist
+         * edits of prefix, in descending weight order, expanding at most
+         * maxVisits trie nodes.
+         * 
+         * The trie is searched best-first by mySubtreeMaxWeight, carrying for
+         * each node the row of the Levenshtein table between prefix and the
+         * node's path: row[i] is the distance from the first i characters of
+         * prefix to the path. A child's row is computed from its parent's in
+         * O(prefix length). A node whose every row entry exceeds dist cannot
+         * lead to a match and is pruned; a node whose last entry is within
+         * dist matches, and its whole subtrie is then searched as in
+         * topMatches. Matching subtries never nest, so no word is returned
+         * twice, and since every queued key bounds the weights below it, the
+         * search stops as soon as k words are found.
+         * 
+         * For the same reason a search cut short by maxVisits still returns
+         * the heaviest matches, in order, only fewer than k of them.
+         * 
+         * @param prefix
+         *            - The prefix, possibly misspelled, to complete
+         * @param dist
+         *            - Maximum edit distance from prefix
+         * @param k
+         *            - The (maximum) number of words to be returned
+         * @param maxVisits
+         *            - The most nodes to expand
+         * @throws NullPointerException
+         *             if prefix is null
+         * @throws IllegalArgumentException
+         *             if dist, k or maxVisits is negative
+         */
+      public List<String> fuzzyMatches(String prefix, int dist, int k, int maxVisits) {
+         if (prefix == null)
+            throw new NullPointerException();
+         if (k < 0)
+            throw new IllegalArgumentException("Illegal value of k:"+k);
+         if (dist < 0)
+            throw new IllegalArgumentException("Illegal edit distance:"+dist);
+         if (maxVisits < 0)
+            throw new IllegalArgumentException("Illegal value of maxVisits:"+maxVisits);
+         return search(prefix, dist, k, maxVisits, true);
+      }
+   
+        /**
+         * The search behind fuzzyMatches and spellCheck. With completions, a
+         * node within dist of prefix matches with its whole subtrie; without,
+         * only a word node within dist of prefix, other than prefix itself,
+         * matches, by itself, and the search goes on below it.
+         */
+      private List<String> search(String prefix, int dist, int k, int maxVisits, boolean completions) {
+         List<String> ret = new ArrayList<String>();
+         int m = prefix.length();
+         // entry i of the heap is nodes[i], searched with rows[i], or its
+         // whole subtrie if rows[i] is null; word entries are complemented
+         List<Node> nodes = new ArrayList<Node>();
+         List<int[]> rows = new ArrayList<int[]>();
+         IndexMaxHeap pq = new IndexMaxHeap();
+         int[] first = new int[m + 1];
+         for (int i = 0; i <= m; i++)
+            first[i] = i;
+         int[] next = new int[m + 1];
+         nodes.add(myRoot);
+         rows.add(completions && first[m] <= dist ? null : first);
+         pq.add(0, myRoot.mySubtreeMaxWeight);
+         int visits = 0;
+         while (!pq.isEmpty() && ret.size() < k) {
+            int entry = pq.remove();
+            if (entry < 0) {
+               ret.add(nodes.get(~entry).myWord);
+               continue;
+            }
+            if (visits++ == maxVisits)
+               break;
+            Node node = nodes.get(entry);
+            int[] row = rows.get(entry);
+            if (node.isWord && (row == null || !completions && row[m] <= dist && row[m] > 0))
+               pq.add(~entry, node.myWeight);
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+               int[] childRow = null;
+               if (row != null) {
+                  if (!nextRow(row, prefix, child.getKey(), dist, next))
+                     continue;
+                  if (!completions || next[m] > dist)
+                     childRow = next.clone();
+               }
+               pq.add(nodes.size(), child.getValue().mySubtreeMaxWeight);
+               nodes.add(child.getValue());
+               rows.add(childRow);
+            }
+         }
+         return ret;
+      }
+   
+        /**
+         * Writes into next the Levenshtein row for a path one character ch
+         * longer than the one row belongs to, and returns whether any entry is
+         * within dist.
+         */
+      private static boolean nextRow(int[] row, String prefix, char ch, int dist, int[] next) {
+         next[0] = row[0] + 1;
+         int min = next[0];
+         for (int i = 1; i < row.length; i++) {
+            int cost = prefix.charAt(i - 1) == ch ? 0 : 1;
+            next[i] = Math.min(Math.min(row[i] + 1, next[i - 1] + 1), row[i - 1] + cost);
+            min = Math.min(min, next[i]);
+         }
+         return min <= dist;
+      }
+   
+        /**
+         * The largest dist spellCheck answers from its SymSpellIndex; larger
+         * distances search the trie.
+         */
+      public static final int SPELL_INDEX_DISTANCE = 2;
+   
+        /**
+         * Built by buildSpellIndex, or else on the first spellCheck call
+         */
+      private volatile SymSpellIndex mySpellIndex;
+   
+        /**
+         * Returns the highest weighted words within dist edits of word. If the
+         * word is in the dictionary, then return an empty list.
+         * 
+         * Up to SPELL_INDEX_DISTANCE edits, the words are found in a
+         * SymSpellIndex over every word in the trie; beyond it, by the same
+         * bounded best-first search as fuzzyMatches, matching whole words
+         * only. Unless buildSpellIndex has been called, the first such call
+         * builds the index, which takes seconds on a large dictionary, while
+         * every other spellCheck caller waits for it.
          * 
          * @param word
          *            The word to spell-check
@@ -599,9 +993,80 @@ public class Autocomplete {
          * @param k
          *            Number of results to return
          * @return Iterable in descending weight order of the matches
+         * @throws NullPointerException
+         *             if word is null
+         * @throws IllegalArgumentException
+         *             if dist or k is negative
          */
       public Iterable<String> spellCheck(String word, int dist, int k) {
-         return null;
+         if (word == null)
+            throw new NullPointerException();
+         if (k < 0)
+            throw new IllegalArgumentException("Illegal value of k:"+k);
+         if (dist < 0)
+            throw new IllegalArgumentException("Illegal edit distance:"+dist);
+         Node node = myRoot;
+         for (int i = 0; i < word.length() && node != null; i++)
+            node = node.getChild(word.charAt(i));
+         if (node != null && node.isWord)
+            return new ArrayList<String>();
+         if (dist <= SPELL_INDEX_DISTANCE)
+            return spellIndex().lookup(word, dist, k);
+         return spellCheckTrie(word, dist, k);
+      }
+   
+        /**
+         * spellCheck by searching the trie alone, whatever the distance, and
+         * leaving word itself out of the results.
+         */
+      List<String> spellCheckTrie(String word, int dist, int k) {
+         return search(word, dist, k, Integer.MAX_VALUE, false);
+      }
+   
+        /**
+         * Builds the SymSpellIndex spellCheck uses, if it is not built yet,
+         * so that its cost is paid here (at startup, say, or on a background
+         * thread) rather than by the first spellCheck call. Safe to call from
+         * any thread and any number of times; the index is built once.
+         * 
+         * @throws IllegalArgumentException
+         *             if the dictionary has too many words to index
+         */
+      public void buildSpellIndex() {
+         spellIndex();
+      }
+   
+      SymSpellIndex spellIndex() {
+         SymSpellIndex index = mySpellIndex;
+         if (index == null) {
+            synchronized (this) {
+               index = mySpellIndex;
+               if (index == null) {
+                  List<Node> words = new ArrayList<Node>();
+                  collectWords(myRoot, words);
+                  String[] terms = new String[words.size()];
+                  double[] weights = new double[words.size()];
+                  for (int i = 0; i < terms.length; i++) {
+                     terms[i] = words.get(i).myWord;
+                     weights[i] = words.get(i).myWeight;
+                  }
+                  index = mySpellIndex = new SymSpellIndex(terms, weights, SPELL_INDEX_DISTANCE);
+               }
+            }
+         }
+         return index;
+      }
+   
+      private static void collectWords(Node root, List<Node> words) {
+         ArrayDeque<Node> stack = new ArrayDeque<Node>();
+         stack.push(root);
+         while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node.isWord)
+               words.add(node);
+            for (Node child : node.children.values())
+               stack.push(child);
+         }
       }
       
       
@@ -43,15 +43,12 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.LinkedList;
 import java.util.Locale;
 import java.util.Queue;
-import java.util.Scanner;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -80,10 +77,25 @@ public class AutocompleteGUI extends JFrame {
 	// display top k results
    private final int k;
    private final String autocompletorClassName;
+   // index plain dictionaries by normalized keys (NormalizedAutocomplete)
+   private final boolean normalize;
 
    public AutocompleteGUI(String fileName, int k, String className) {
+      this(fileName, k, className, true);
+   }
+
+	/**
+	 * @param normalize
+	 *            - Whether a plain dictionary is matched by normalized keys
+	 *            through a NormalizedAutocomplete, whose sessions are
+	 *            incremental only over a SessionAutocompletor, or loaded as
+	 *            it is by DictionaryLoader.build, streaming into an
+	 *            UpdatableAutocompletor, and queried in lower case
+	 */
+   public AutocompleteGUI(String fileName, int k, String className, boolean normalize) {
       this.k = k;
       this.autocompletorClassName = className;
+      this.normalize = normalize;
       setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
       setTitle("Autocomplete");
       setLocationRelativeTo(null);
@@ -139,6 +151,8 @@ public class AutocompleteGUI extends JFrame {
    private class AutocompletePanel extends JPanel {
       private final JTextField searchText;
       private Autocomplete.Autocompletor auto;
+      // follows the text field keystroke by keystroke, when auto supports it
+      private CompletionSession session;
       private String[] results = new String[k];
       private JList<String> suggestions;
    
@@ -150,33 +164,29 @@ public class AutocompleteGUI extends JFrame {
       public AutocompletePanel(String filename) {
          super();
       
-      	// read in the data
-         Scanner in;
+      	// a compiled index is mapped as it is, with nothing to parse; any
+      	// other dictionary is indexed by normalized keys, displayed as given,
+      	// unless normalization is off
+         File file = new File(filename);
          try {
-            in = new Scanner(new File(filename), CHARSET);
-            in.useLocale(LOCALE);
-            int N = Integer.parseInt(in.nextLine());
-            String[] terms = new String[N];
-            double[] weights = new double[N];
-            for (int i = 0; i < N; i++) {
-               String line = in.nextLine();
-               int tab = line.indexOf('\t');
-               weights[i] = Double.parseDouble(line.substring(0, tab).trim());
-               terms[i] = line.substring(tab + 1);
+            if (MappedAutocomplete.isCompiled(file)) {
+               auto = new MappedAutocomplete(file);
+            } else if (!normalize) {
+               auto = DictionaryLoader.build(file, autocompletorClassName, false);
+            } else {
+               DictionaryLoader dictionary = DictionaryLoader.load(file);
+               auto = new NormalizedAutocomplete(dictionary.getTerms(), dictionary.getWeights(),
+                     new TermNormalizer(LOCALE, true), autocompletorClassName);
             }
-         	// create the autocomplete object
-            auto = (Autocomplete.Autocompletor) Class.forName(autocompletorClassName)
-               	.getDeclaredConstructor(String[].class, double[].class).newInstance(terms, weights);
-         
-         } catch (InstantiationException | IllegalAccessException | ClassNotFoundException | IllegalArgumentException
-         		| InvocationTargetException | NoSuchMethodException | SecurityException e1) {
+         } catch (IllegalArgumentException e1) {
             e1.printStackTrace();
             System.exit(1);
-         } catch (FileNotFoundException e2) {
-            System.out.println("Cannot read file " + filename);
+         } catch (IOException e2) {
+            System.out.println("Cannot read file " + filename + ": " + e2.getMessage());
             System.exit(1);
-         
          }
+         if (auto instanceof Autocomplete.SessionAutocompletor)
+            session = ((Autocomplete.SessionAutocompletor) auto).newSession();
       
          GroupLayout layout = new GroupLayout(this);
          this.setLayout(layout);
@@ -330,6 +340,26 @@ public class AutocompleteGUI extends JFrame {
          super.paintComponent(g);
       }
    
+   	/**
+   	 * Returns the top k matches for prefix, with their weights. With a
+   	 * session, only the characters that changed since the last call are
+   	 * replayed on it.
+   	 */
+      private Iterable<Term> matches(String prefix) {
+         if (session == null)
+            return auto.topMatchesWithWeights(prefix, k);
+         String current = session.getPrefix();
+         int common = 0;
+         while (common < current.length() && common < prefix.length()
+                && current.charAt(common) == prefix.charAt(common))
+            common++;
+         for (int i = current.length(); i > common; i--)
+            session.backspace();
+         for (int i = common; i < prefix.length(); i++)
+            session.append(prefix.charAt(i));
+         return session.topMatchesWithWeights(k);
+      }
+   
    	/**
    	 * Makes a call to the implementation of Autocomplete to get suggestions
    	 * for the currently entered text.
@@ -346,9 +376,10 @@ public class AutocompleteGUI extends JFrame {
             int textLen = text.length();
             Queue<String> resultQ = new LinkedList<String>();
             Queue<Double> ds = new LinkedList<Double>();
-            for (String term : auto.topMatches(text.toLowerCase(), k)) {
-               resultQ.add(term);
-               ds.add(auto.weightOf(term));
+            String prefix = auto instanceof NormalizedAutocomplete ? text : text.toLowerCase(LOCALE);
+            for (Term term : matches(prefix)) {
+               resultQ.add(term.getWord());
+               ds.add(term.getWeight());
             }
             if (!resultQ.isEmpty()) {
                results = new String[resultQ.size()];
@@ -359,7 +390,8 @@ public class AutocompleteGUI extends JFrame {
                	 * delimiter "|" to ensure that the search does not
                	 * include the weight.
                	 */
-                  results[i] = "<html>" + results[i].substring(0, textLen) + "<b>" + results[i].substring(textLen)
+                  int split = Math.min(textLen, results[i].length());
+                  results[i] = "<html>" + results[i].substring(0, split) + "<b>" + results[i].substring(split)
                      	+ "</b>" + "|<span style=\"color:#C0C0C0;\">" + String.format("%.0f",ds.remove()) + "</span></html>";
                }
                suggestions.setListData(results);
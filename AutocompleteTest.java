@@ -127,4 +127,204 @@ public class AutocompleteTest {
    
    
    }
+   @Test public void testtopmatcheswithweights() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(2000, 29);
+      Map<String, Double> expected = new HashMap<String, Double>();
+      for (int i = 0; i < dictionary.getTerms().length; i++)
+         expected.put(dictionary.getTerms()[i], dictionary.getWeights()[i]);
+      Random random = new Random(5);
+      for (Autocomplete.Autocompletor auto : AutocompletorBenchmark.getInstances(dictionary.getTerms(), dictionary.getWeights())) {
+         for (int length = 0; length <= 2; length++) {
+            for (String prefix : dictionary.samplePrefixes(20, length, random)) {
+               List<String> words = new ArrayList<String>();
+               for (Term term : auto.topMatchesWithWeights(prefix, 7)) {
+                  words.add(term.getWord());
+                  Assert.assertEquals(expected.get(term.getWord()), term.getWeight(), 0);
+               }
+               Assert.assertEquals(auto.topMatches(prefix, 7), words);
+            }
+         }
+      }
+      List<String> words = new ArrayList<String>();
+      List<Double> weights = new ArrayList<Double>();
+      for (Term term : n.topMatchesWithWeights("b", 2)) {
+         words.add(term.getWord());
+         weights.add(term.getWeight());
+      }
+      Assert.assertEquals(Arrays.asList("bee", "bat"), words);
+      Assert.assertEquals(Arrays.asList(5.0, 3.0), weights);
+   }
+   @Test public void testfuzzymatches() {
+      Autocomplete.TrieAutocomplete trie = (Autocomplete.TrieAutocomplete) n;
+      Assert.assertEquals(Arrays.asList("bee", "bat"), trie.fuzzyMatches("b", 0, 2));
+      Assert.assertEquals(new ArrayList<String>(), trie.fuzzyMatches("cz", 0, 5));
+      Assert.assertEquals(Arrays.asList("car", "cat"), trie.fuzzyMatches("cz", 1, 5));
+      Assert.assertEquals(Arrays.asList("ape", "app"), trie.fuzzyMatches("xap", 1, 5));
+      Assert.assertEquals(Arrays.asList("car", "ape", "bee", "app", "bat", "ban", "cat"), trie.fuzzyMatches("zz", 2, 10));
+      Assert.assertEquals(new ArrayList<String>(), trie.fuzzyMatches("a", 1, 0));
+      try {
+         trie.fuzzyMatches("a", -1, 3);
+         Assert.fail("accepted a negative distance");
+      } catch (IllegalArgumentException e) {
+      }
+      SyntheticDictionary dictionary = new SyntheticDictionary(3000, 41);
+      String[] terms = dictionary.getTerms();
+      double[] weights = dictionary.getWeights();
+      Autocomplete.TrieAutocomplete big = new Autocomplete.TrieAutocomplete(terms, weights);
+      Random random = new Random(8);
+      for (int length = 1; length <= 4; length++) {
+         for (String prefix : dictionary.samplePrefixes(10, length, random)) {
+            String typo = prefix.substring(0, length - 1) + (char) ('a' + random.nextInt(26));
+            for (int dist = 0; dist <= 2; dist++) {
+               List<Double> expected = new ArrayList<Double>();
+               for (int i = 0; i < terms.length; i++) {
+                  if (prefixDistance(typo, terms[i]) <= dist)
+                     expected.add(weights[i]);
+               }
+               Collections.sort(expected, Collections.reverseOrder());
+               List<String> full = big.fuzzyMatches(typo, dist, 8, Integer.MAX_VALUE);
+               List<String> cut = big.fuzzyMatches(typo, dist, 8, 40);
+               Assert.assertEquals(full.subList(0, cut.size()), cut);
+               List<Double> actual = new ArrayList<Double>();
+               for (String word : full) {
+                  Assert.assertTrue(prefixDistance(typo, word) <= dist);
+                  actual.add(big.weightOf(word));
+               }
+               Assert.assertEquals(expected.subList(0, Math.min(8, expected.size())), actual);
+            }
+         }
+      }
+   }
+
+   /*
+    * The first (or, if last, the last) index of a word starting with
+    * prefix, by scanning
+    */
+   private static int scanIndexOf(String[] words, String prefix, boolean last) {
+      int index = -1;
+      for (int i = 0; i < words.length; i++) {
+         if (words[i].startsWith(prefix) && (last || index < 0))
+            index = i;
+      }
+      return index;
+   }
+
+   private static void assertIndexes(String[] words, String prefix) {
+      Term[] terms = new Term[words.length];
+      for (int i = 0; i < words.length; i++)
+         terms[i] = new Term(words[i], i);
+      int first = scanIndexOf(words, prefix, false);
+      int last = scanIndexOf(words, prefix, true);
+      Assert.assertEquals(prefix, first, Autocomplete.firstIndexOf(words, prefix));
+      Assert.assertEquals(prefix, last, Autocomplete.lastIndexOf(words, prefix));
+      Assert.assertEquals(prefix, first, Autocomplete.firstIndexOf(terms, prefix));
+      Assert.assertEquals(prefix, last, Autocomplete.lastIndexOf(terms, prefix));
+      Assert.assertEquals(prefix, first, Autocomplete.firstIndexOf(words, new StringBuilder(prefix)));
+      Assert.assertEquals(prefix, last, Autocomplete.lastIndexOf(words, new StringBuilder(prefix)));
+      Comparator<Term> order = new Term.PrefixOrder(prefix.length());
+      Assert.assertEquals(prefix, first, Autocomplete.firstIndexOf(terms, new Term(prefix, 0), order));
+      Assert.assertEquals(prefix, last, Autocomplete.lastIndexOf(terms, new Term(prefix, 0), order));
+   }
+
+   @Test public void testindexofedgecases() {
+      String[] empty = new String[0];
+      for (String prefix : new String[]{"", "a", "\uffff"})
+         assertIndexes(empty, prefix);
+      String[] words = new String[]{"ab", "abc", "abd", "b", "ba", "z\uffff"};
+      // longer than every term, though every term starts it
+      assertIndexes(words, "abcde");
+      assertIndexes(words, "z\uffff\uffff");
+      // \uffff sorts after every other character
+      assertIndexes(words, "\uffff");
+      assertIndexes(words, "a\uffff");
+      assertIndexes(words, "z\uffff");
+      assertIndexes(words, "z");
+      // all terms match
+      assertIndexes(words, "");
+      String[] same = new String[]{"pre", "prefix", "prefixed", "preset"};
+      assertIndexes(same, "pre");
+      assertIndexes(same, "p");
+      assertIndexes(new String[]{"only"}, "only");
+      assertIndexes(new String[]{"only"}, "onlyx");
+      assertIndexes(new String[]{"only"}, "o");
+   }
+
+   @Test public void testcompareprefix() {
+      Assert.assertEquals(0, Autocomplete.comparePrefix("abc", "ab"));
+      Assert.assertEquals(0, Autocomplete.comparePrefix("ab", "ab"));
+      Assert.assertEquals(0, Autocomplete.comparePrefix("", ""));
+      Assert.assertEquals(0, Autocomplete.comparePrefix("a", ""));
+      Assert.assertTrue(Autocomplete.comparePrefix("ab", "abc") < 0);
+      Assert.assertTrue(Autocomplete.comparePrefix("", "a") < 0);
+      Assert.assertTrue(Autocomplete.comparePrefix("abd", "abc") > 0);
+      Assert.assertTrue(Autocomplete.comparePrefix("b", "abc") > 0);
+      Assert.assertTrue(Autocomplete.comparePrefix("a\uffff", "ab") > 0);
+      Assert.assertTrue(Autocomplete.comparePrefix("zzz", "\uffff") < 0);
+      Assert.assertTrue(Autocomplete.comparePrefix("\uffff", "zzz") > 0);
+      Assert.assertEquals(0, Autocomplete.comparePrefix("\uffff\uffff", "\uffff"));
+      // the same sign as Term.PrefixOrder against a key holding prefix
+      String[] words = new String[]{"", "a", "ab", "abc", "abd", "b", "\uffff", "a\uffff"};
+      for (String word : words) {
+         for (String prefix : words) {
+            int expected = new Term.PrefixOrder(prefix.length()).compare(new Term(word, 0), new Term(prefix, 0));
+            Assert.assertEquals(word + " " + prefix, Integer.signum(expected),
+                  Integer.signum(Autocomplete.comparePrefix(word, prefix)));
+         }
+      }
+   }
+
+   @Test public void testfuzzymaxvisits() {
+      Autocomplete.TrieAutocomplete trie = (Autocomplete.TrieAutocomplete) n;
+      Assert.assertEquals(new ArrayList<String>(), trie.fuzzyMatches("ax", 1, 5, 0));
+      try {
+         trie.fuzzyMatches("ax", 1, 5, -1);
+         Assert.fail("accepted a negative maxVisits");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   @Test public void testspellcheck() {
+      Autocomplete.TrieAutocomplete trie = (Autocomplete.TrieAutocomplete) n;
+      Assert.assertEquals(new ArrayList<String>(), trie.spellCheck("bat", 1, 5));
+      Assert.assertEquals(Arrays.asList("car", "cat"), trie.spellCheck("cax", 1, 5));
+      Assert.assertEquals(Arrays.asList("bat", "ban"), trie.spellCheck("bax", 1, 5));
+      Assert.assertEquals(Arrays.asList("bat"), trie.spellCheck("bax", 1, 1));
+      Assert.assertEquals(Arrays.asList("ape", "app"), trie.spellCheck("ap", 1, 5));
+      Assert.assertEquals(new ArrayList<String>(), trie.spellCheck("zzz", 2, 5));
+      Assert.assertEquals(Arrays.asList("car", "ape", "bee", "app", "bat", "ban", "cat"), trie.spellCheck("zzz", 3, 10));
+      try {
+         trie.spellCheck("bat", 1, -1);
+         Assert.fail("accepted a negative k");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   @Test public void testbuildspellindex() {
+      Autocomplete.TrieAutocomplete trie = (Autocomplete.TrieAutocomplete) n;
+      trie.buildSpellIndex();
+      SymSpellIndex index = trie.spellIndex();
+      trie.buildSpellIndex();
+      Assert.assertEquals(Arrays.asList("bat", "ban"), trie.spellCheck("bax", 1, 5));
+      Assert.assertSame(index, trie.spellIndex());
+   }
+
+   /*
+    * The least edit distance from prefix to any prefix of word
+    */
+   private static int prefixDistance(String prefix, String word) {
+      int[] row = new int[prefix.length() + 1];
+      for (int i = 0; i <= prefix.length(); i++)
+         row[i] = i;
+      int best = row[prefix.length()];
+      for (int j = 1; j <= word.length(); j++) {
+         int[] next = new int[row.length];
+         next[0] = j;
+         for (int i = 1; i < row.length; i++)
+            next[i] = Math.min(Math.min(row[i], next[i - 1]) + 1,
+               row[i - 1] + (prefix.charAt(i - 1) == word.charAt(j - 1) ? 0 : 1));
+         row = next;
+         best = Math.min(best, row[prefix.length()]);
+      }
+      return best;
+   }
 }
\ No newline at end of file
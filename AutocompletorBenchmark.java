@@ -1,12 +1,20 @@
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.util.Locale;
 import java.util.Random;
-import java.util.Scanner;
 import java.util.HashMap;
 
 import javax.swing.JFileChooser;
 
+/**
+ * Quick single-run comparison of the Autocompletor implementations on one
+ * dictionary file, chosen with a file chooser or given as the first argument.
+ * Timings here have no warmup and come from a handful of queries; for
+ * reproducible numbers use the JMH suite in benchmarks/.
+ *
+ */
 public class AutocompletorBenchmark {
 
    public static Random ourRandom = new Random(1234);
@@ -15,8 +23,35 @@ public class AutocompletorBenchmark {
    public static Autocomplete.Autocompletor getInstance(String[] words, double[] weights) {
       return new Autocomplete.BinarySearchAutocomplete(words, weights);
    }
+   /**
+    * Creates the Autocompletor with the given class name, which may be a
+    * top-level class or the simple name of one nested in Autocomplete (e.g.
+    * "TrieAutocomplete"), through its (String[], double[]) constructor.
+    *
+    * @throws IllegalArgumentException
+    *             if there is no such class or it cannot be constructed
+    */
+   public static Autocomplete.Autocompletor getInstance(String className, String[] words, double[] weights) {
+      Class<?> type;
+      try {
+         type = Class.forName(className);
+      } catch (ClassNotFoundException e) {
+         try {
+            type = Class.forName("Autocomplete$" + className);
+         } catch (ClassNotFoundException e2) {
+            throw new IllegalArgumentException("No Autocompletor named " + className);
+         }
+      }
+      try {
+         return (Autocomplete.Autocompletor) type
+               .getDeclaredConstructor(String[].class, double[].class).newInstance(words, weights);
+      } catch (ReflectiveOperationException | ClassCastException e) {
+         throw new IllegalArgumentException("Cannot create " + className, e);
+      }
+   }
+
    public static Autocomplete.Autocompletor[] getInstances(String[] words, double[] weights) {
-      Autocomplete.Autocompletor[] instances = new Autocomplete.Autocompletor[3];
+      Autocomplete.Autocompletor[] instances = new Autocomplete.Autocompletor[12];
       long startTime = System.nanoTime();
       instances[0] = new Autocomplete.BruteAutocomplete(words, weights);
       System.out.println("Time to initialize BruteAutoComplete - " + (System.nanoTime() - startTime) / 1E9);
@@ -26,6 +61,42 @@ public class AutocompletorBenchmark {
       startTime = System.nanoTime();
       instances[2] = new Autocomplete.TrieAutocomplete(words, weights);
       System.out.println("Time to initialize - Autocomplete.TrieAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      startTime = System.nanoTime();
+      instances[3] = new PackedTrieAutocomplete(words, weights);
+      System.out.println("Time to initialize - PackedTrieAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      startTime = System.nanoTime();
+      instances[4] = new PackedTrieAutocomplete(words, weights, 10, 64);
+      System.out.println("Time to initialize - PackedTrieAutocomplete (top-10 cache) - " + (System.nanoTime() - startTime) / 1E9);
+      startTime = System.nanoTime();
+      instances[5] = new RadixTrieAutocomplete(words, weights);
+      System.out.println("Time to initialize - RadixTrieAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      startTime = System.nanoTime();
+      instances[6] = new SparseTableAutocomplete(words, weights);
+      System.out.println("Time to initialize - SparseTableAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      startTime = System.nanoTime();
+      instances[7] = new ConcurrentTrieAutocomplete(words, weights);
+      System.out.println("Time to initialize - ConcurrentTrieAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      try {
+         startTime = System.nanoTime();
+         File index = File.createTempFile("autocomplete", ".acx");
+         index.deleteOnExit();
+         DictionaryCompiler.compile(words, weights, index);
+         System.out.println("Time to compile - " + index.length() + " byte index - " + (System.nanoTime() - startTime) / 1E9);
+         startTime = System.nanoTime();
+         instances[8] = new MappedAutocomplete(index);
+         System.out.println("Time to initialize - MappedAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      startTime = System.nanoTime();
+      instances[9] = new ShardedAutocomplete(words, weights);
+      System.out.println("Time to initialize - ShardedAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      startTime = System.nanoTime();
+      instances[10] = new TieredAutocomplete(words, weights);
+      System.out.println("Time to initialize - TieredAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
+      startTime = System.nanoTime();
+      instances[11] = new FstAutocomplete(words, weights);
+      System.out.println("Time to initialize - FstAutocomplete - " + (System.nanoTime() - startTime) / 1E9);
       return instances;
    }
    // chooser allows users to select a file by navigating through
@@ -36,13 +107,12 @@ public class AutocompletorBenchmark {
    /**
     * Brings up chooser for user to select a file
     * 
-    * @return Scanner for user selected file, null if file not found
+    * @return user selected file, null if it cannot be read
     */
-   public static Scanner getScanner() {
+   public static File getFile() {
       int retval = ourChooser.showOpenDialog(null);
       if (retval == JFileChooser.APPROVE_OPTION) {
          File f = ourChooser.getSelectedFile();
-         Scanner s;
          try {
             if (f.canRead()) {
                System.out.println("Opening - " +  f.getCanonicalPath() + ".");
@@ -50,13 +120,10 @@ public class AutocompletorBenchmark {
                System.out.println("Could not open selected file.");
                return null;
             }
-            s = new Scanner(f, CHARSET);
-            s.useLocale(LOCALE);
-            
          } catch (IOException e) {
             return null;
          }
-         return s;
+         return f;
       }
       return null;
    }
@@ -68,30 +135,72 @@ public class AutocompletorBenchmark {
       return result;
    }
 
+   /**
+    * Rough heap footprint of a Node-based trie, assuming compressed oops: the
+    * Node itself, its one-character myInfo String, its HashMap, the HashMap's
+    * table and one entry per child. Boxed Character keys below 128 are cached
+    * and not counted.
+    */
+   public static long estimateBytes(Node root) {
+      int size = root.children.size();
+      long result = 48 + 48 + 48;
+      if (size > 0) {
+         int capacity = 16;
+         while (capacity * 0.75 < size)
+            capacity *= 2;
+         result += 16 + 4L * capacity + 32L * size;
+      }
+      for (Node child : root.children.values())
+         result += estimateBytes(child);
+      return result;
+   }
+
+   /**
+    * Returns the bytes the current thread allocates per run of op, averaged
+    * over trials runs after an equal number of warmup runs, so that the JIT
+    * has had the chance to eliminate allocations it can prove do not escape.
+    * Returns -1 if the JVM cannot measure per-thread allocation.
+    */
+   public static double allocatedBytesPerOp(Runnable op, int trials) {
+      if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+         return -1;
+      com.sun.management.ThreadMXBean bean = 
+         (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long thread = Thread.currentThread().getId();
+      for (int trial = 0; trial < trials; trial++)
+         op.run();
+      long before = bean.getThreadAllocatedBytes(thread);
+      for (int trial = 0; trial < trials; trial++)
+         op.run();
+      return (double) (bean.getThreadAllocatedBytes(thread) - before) / trials;
+   }
+
    public static void main(String[] args) {
       
-      Scanner in = null;
-      do {
-         in = getScanner();
-         
-      } while (in == null);
+      File file = null;
+      if (args.length > 0) {
+         file = new File(args[0]);
+         if (!file.canRead()) {
+            System.err.println("Cannot read file " + args[0]);
+            System.exit(1);
+         }
+      }
+      while (file == null) {
+         file = getFile();
+      }
       
       int N = 0;
       String[] terms = null;
       double[] weights = null;
       try {
-         N = Integer.parseInt(in.nextLine());
-         terms = new String[N];
-         weights = new double[N];
-      
-         for (int i = 0; i < N; i++) {
-            String line = in.nextLine();
-            int tab = line.indexOf('\t');
-            weights[i] = Double.parseDouble(line.substring(0, tab).trim());
-            terms[i] = line.substring(tab + 1).toLowerCase();
-         }
-      } catch (Exception e) { //could be any parsing related exception
-         System.err.println("File is malformatted");
+         DictionaryLoader dictionary = DictionaryLoader.load(file);
+         N = dictionary.size();
+         terms = dictionary.getTerms();
+         weights = dictionary.getWeights();
+         for (int i = 0; i < N; i++)
+            terms[i] = terms[i].toLowerCase();
+      } catch (IOException e) {
+         System.err.println("File is malformatted: " + e.getMessage());
          System.exit(0);
       }
       //Autocomplete.Autocompletor auto = getInstance(terms, weights);
@@ -104,12 +213,25 @@ public class AutocompletorBenchmark {
       String randomPrefix1 = randomWord.substring(0, 1);
       String randomPrefix2 = randomWord.substring(0, 2);
       String[] queries = { "", randomWord, randomPrefix1, randomPrefix2, "notarealword" };
-      for (int instanceNum = 0; instanceNum < 3; instanceNum++) {
+      for (int instanceNum = 0; instanceNum < instances.length; instanceNum++) {
          long startTime = System.nanoTime();
          Autocomplete.Autocompletor auto = instances[instanceNum];
          System.out.println("Benchmarking " + auto.getClass().getName() + "...");
-         if (auto instanceof Autocomplete.TrieAutocomplete)
-            System.out.println("Created " + countNodes(((Autocomplete.TrieAutocomplete) auto).myRoot) + " nodes");
+         if (auto instanceof Autocomplete.TrieAutocomplete) {
+            Node root = ((Autocomplete.TrieAutocomplete) auto).myRoot;
+            System.out.println("Created " + countNodes(root) + " nodes, ~"
+                   + estimateBytes(root) / Math.max(1, N) + " bytes/term");
+         }
+         if (auto instanceof PackedTrieAutocomplete) {
+            PackedTrieAutocomplete packed = (PackedTrieAutocomplete) auto;
+            System.out.printf("Created %d packed nodes, %.1f bytes/term%n",
+                   packed.nodeCount(), packed.bytesPerTerm());
+            if (packed.cachedNodeCount() > 0)
+               System.out.printf("Cached top-k for %d nodes, %d bytes of cache%n",
+                      packed.cachedNodeCount(), packed.cacheSizeInBytes());
+         }
+         if (auto instanceof RadixTrieAutocomplete)
+            System.out.println("Created " + ((RadixTrieAutocomplete) auto).nodeCount() + " radix nodes");
          int trial;
          for (String query : queries) {
             startTime = System.nanoTime();
@@ -119,7 +241,7 @@ public class AutocompletorBenchmark {
                   break;
             }
             double time = (System.nanoTime() - startTime) / (1E9 * trial);
-            if (!results.containsKey(query)) results.put(query, new Double[3]);
+            if (!results.containsKey(query)) results.put(query, new Double[instances.length]);
             results.get(query)[instanceNum] = time;
             System.out.println(
                    "Time for topMatch(\"" + query + "\") - " + time);
@@ -133,22 +255,43 @@ public class AutocompletorBenchmark {
                      break;
                }
                double time = (System.nanoTime() - startTime) / (1E9 * trial);
-               if (!results.containsKey(query+"_"+k)) results.put(query+"_"+k, new Double[3]);
+               if (!results.containsKey(query+"_"+k)) results.put(query+"_"+k, new Double[instances.length]);
                results.get(query+"_"+k)[instanceNum] = time;
                System.out.println("Time for topKMatches(\"" + query + "\", " + k + ")" + " - " + " " + time);
             }
          }
       }
+      final Term[] sorted = ((Autocomplete.BinarySearchAutocomplete) instances[1]).myTerms;
+      final String lookup = randomPrefix2;
+      double comparatorBytes = allocatedBytesPerOp(
+         new Runnable() {
+            public void run() {
+               Autocomplete.firstIndexOf(sorted, new Term(lookup, 0), new Term.PrefixOrder(lookup.length()));
+               Autocomplete.lastIndexOf(sorted, new Term(lookup, 0), new Term.PrefixOrder(lookup.length()));
+            }
+         }, 100000);
+      double inPlaceBytes = allocatedBytesPerOp(
+         new Runnable() {
+            public void run() {
+               Autocomplete.firstIndexOf(sorted, lookup);
+               Autocomplete.lastIndexOf(sorted, lookup);
+            }
+         }, 100000);
+      System.out.printf("Allocation per prefix range lookup(\"%s\") - Term/PrefixOrder %.1f B/op, in place %.1f B/op%n",
+             lookup, comparatorBytes, inPlaceBytes);
       System.out.println("\n*****************************************************************");
       System.out.println("Printing Summary of Results ...");
       System.out.println("\n*****************************************************************");
-      System.out.printf("%-15s, %-15s, %-15s, %-15s", 
-             "prefix", "Brute", "Binary", "Trie\n");
+      System.out.printf("%-15s", "prefix");
+      for (Autocomplete.Autocompletor auto : instances)
+         System.out.printf(", %-15s", auto.getClass().getSimpleName());
+      System.out.println();
       System.out.println("-------------------------------------------------------------------");
-      for (int instanceNum = 0; instanceNum < 3; instanceNum++) { 
-         for (String query : results.keySet()) {
-            System.out.printf("%-15s,%15.5e, %15.5e, %15.5e\n", query, results.get(query)[0], results.get(query)[1], results.get(query)[2]);
-         }
+      for (String query : results.keySet()) {
+         System.out.printf("%-15s", query);
+         for (Double time : results.get(query))
+            System.out.printf(",%15.5e", time);
+         System.out.println();
       }
    }
 }
@@ -0,0 +1,338 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps any Autocompletor with a bounded cache of topMatches results, for
+ * keystroke traffic that asks the same short prefixes over and over.
+ *
+ * The cache is keyed by prefix and holds the largest k asked for so far, so a
+ * request for fewer results is served from the head of that list; a list
+ * shorter than its k holds every match and serves any k. Each entry keeps the
+ * matches both as words and as Terms, so topMatches and
+ * topMatchesWithWeights share it. The cache is split into
+ * STRIPES independently locked stripes by prefix hash, each an access-ordered
+ * LinkedHashMap holding its share of the capacity. A full stripe either
+ * evicts its least recently used entry (Policy.LRU) or, under
+ * Policy.TINY_LFU, first compares the newcomer's estimated access frequency
+ * with that entry's in a small count-min sketch and keeps whichever has been
+ * asked for more often, so a burst of one-off prefixes cannot flush the
+ * popular ones.
+ *
+ * If the wrapped Autocompletor is an UpdatableAutocompletor, the cache
+ * registers an UpdateListener and drops every prefix of each changed term.
+ * Results computed while an invalidation happened are not cached.
+ *
+ */
+public class CachingAutocompletor implements Autocomplete.Autocompletor {
+
+	/**
+	 * How a full stripe chooses what to keep.
+	 */
+   public enum Policy {
+      LRU, TINY_LFU
+   }
+
+   public static final int STRIPES = 16;
+
+   private final Autocomplete.Autocompletor myAuto;
+   private final Stripe[] myStripes;
+   private final AtomicLong myGeneration = new AtomicLong();
+   private final LongAdder myHits = new LongAdder();
+   private final LongAdder myMisses = new LongAdder();
+   private final LongAdder myEvictions = new LongAdder();
+
+	/**
+	 * @param auto
+	 *            - The Autocompletor whose results are cached
+	 * @param capacity
+	 *            - The most prefixes held at once
+	 * @param policy
+	 *            - How entries are chosen for eviction
+	 * @throws NullPointerException
+	 *             if auto or policy is null
+	 * @throws IllegalArgumentException
+	 *             if capacity is not positive
+	 */
+   public CachingAutocompletor(Autocomplete.Autocompletor auto, int capacity, Policy policy) {
+      if (auto == null || policy == null)
+         throw new NullPointerException("One or more arguments null");
+      if (capacity < 1)
+         throw new IllegalArgumentException("Illegal capacity:" + capacity);
+      myAuto = auto;
+      int stripes = Math.min(STRIPES, capacity);
+      myStripes = new Stripe[stripes];
+      for (int i = 0; i < stripes; i++)
+         myStripes[i] = new Stripe(capacity / stripes + (i < capacity % stripes ? 1 : 0), policy);
+      if (auto instanceof Autocomplete.UpdatableAutocompletor) {
+         ((Autocomplete.UpdatableAutocompletor) auto).addUpdateListener(new Autocomplete.UpdateListener() {
+            public void termUpdated(String term, double oldWeight, double newWeight) {
+               for (int i = 0; i <= term.length(); i++)
+                  invalidate(term.substring(0, i));
+            }
+         });
+      }
+   }
+
+   private Stripe stripeOf(String prefix) {
+      int h = prefix.hashCode();
+      h ^= h >>> 16;
+      return myStripes[Math.floorMod(h, myStripes.length)];
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words with the
+	 * largest weight which start with prefix, in descending weight order, as
+	 * an unmodifiable list.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      checkArguments(prefix, k);
+      if (k == 0)
+         return Collections.emptyList();
+      return head(lookup(prefix, k).myMatches, k);
+   }
+
+	/**
+	 * The same as topMatches, returning each word with its weight, through
+	 * the same cache.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<Term> topMatchesWithWeights(String prefix, int k) {
+      checkArguments(prefix, k);
+      if (k == 0)
+         return Collections.emptyList();
+      return head(lookup(prefix, k).myTerms, k);
+   }
+
+   private static void checkArguments(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+   }
+
+   private static <T> List<T> head(List<T> list, int k) {
+      return k >= list.size() ? list : list.subList(0, k);
+   }
+
+	/**
+	 * Returns a cached entry that covers k for prefix, asking the wrapped
+	 * Autocompletor and caching its answer on a miss.
+	 */
+   private Entry lookup(String prefix, int k) {
+      Stripe stripe = stripeOf(prefix);
+      Entry entry = stripe.get(prefix);
+      if (entry != null && (k <= entry.myK || entry.myMatches.size() < entry.myK)) {
+         myHits.increment();
+         return entry;
+      }
+      myMisses.increment();
+      long generation = myGeneration.get();
+      List<Term> terms = new ArrayList<Term>();
+      for (Term term : myAuto.topMatchesWithWeights(prefix, k))
+         terms.add(term);
+      entry = new Entry(k, terms);
+      stripe.put(prefix, entry, generation);
+      return entry;
+   }
+
+	/**
+	 * Returns the single top matching term, or an empty String if there are
+	 * no matches, through the same cache as topMatches(prefix, 1).
+	 */
+   public String topMatch(String prefix) {
+      for (String word : topMatches(prefix, 1))
+         return word;
+      return "";
+   }
+
+   public double weightOf(String term) {
+      return myAuto.weightOf(term);
+   }
+
+	/**
+	 * Drops the cached results for prefix.
+	 */
+   public void invalidate(String prefix) {
+      myGeneration.incrementAndGet();
+      stripeOf(prefix).remove(prefix);
+   }
+
+	/**
+	 * Drops every cached result.
+	 */
+   public void invalidateAll() {
+      myGeneration.incrementAndGet();
+      for (Stripe stripe : myStripes)
+         stripe.clear();
+   }
+
+   public long getHits() {
+      return myHits.sum();
+   }
+
+   public long getMisses() {
+      return myMisses.sum();
+   }
+
+   public long getEvictions() {
+      return myEvictions.sum();
+   }
+
+	/**
+	 * Returns the fraction of topMatches calls served from the cache, or 0 if
+	 * there have been none.
+	 */
+   public double getHitRate() {
+      long hits = getHits(), total = hits + getMisses();
+      return total == 0 ? 0 : (double) hits / total;
+   }
+
+	/**
+	 * Returns the number of prefixes currently cached.
+	 */
+   public int size() {
+      int size = 0;
+      for (Stripe stripe : myStripes)
+         size += stripe.size();
+      return size;
+   }
+
+	/**
+	 * A cached result: the top myK matches of a prefix, or all of them if
+	 * there are fewer, as words and as Terms.
+	 */
+   private static class Entry {
+      final int myK;
+      final List<String> myMatches;
+      final List<Term> myTerms;
+
+      Entry(int k, List<Term> terms) {
+         myK = k;
+         myTerms = Collections.unmodifiableList(terms);
+         myMatches = Collections.unmodifiableList(Autocomplete.wordsOf(terms));
+      }
+   }
+
+	/**
+	 * One lock's share of the cache.
+	 */
+   private class Stripe {
+      private final int myCapacity;
+      private final LinkedHashMap<String, Entry> myEntries;
+      private final FrequencySketch mySketch;
+
+      Stripe(int capacity, Policy policy) {
+         myCapacity = capacity;
+         myEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+         mySketch = policy == Policy.TINY_LFU ? new FrequencySketch(capacity) : null;
+      }
+
+      synchronized Entry get(String prefix) {
+         if (mySketch != null)
+            mySketch.increment(prefix);
+         return myEntries.get(prefix);
+      }
+
+	   /**
+	    * Caches entry for prefix unless an invalidation happened since
+	    * generation was read, replacing a smaller-k entry and making room as
+	    * the policy decides.
+	    */
+      synchronized void put(String prefix, Entry entry, long generation) {
+         if (myGeneration.get() != generation)
+            return;
+         Entry old = myEntries.get(prefix);
+         if (old != null) {
+            if (entry.myK > old.myK)
+               myEntries.put(prefix, entry);
+            return;
+         }
+         if (myEntries.size() >= myCapacity) {
+            Iterator<Map.Entry<String, Entry>> eldest = myEntries.entrySet().iterator();
+            String victim = eldest.next().getKey();
+            if (mySketch != null && mySketch.frequency(prefix) <= mySketch.frequency(victim))
+               return;
+            eldest.remove();
+            myEvictions.increment();
+         }
+         myEntries.put(prefix, entry);
+      }
+
+      synchronized void remove(String prefix) {
+         myEntries.remove(prefix);
+      }
+
+      synchronized void clear() {
+         myEntries.clear();
+      }
+
+      synchronized int size() {
+         return myEntries.size();
+      }
+   }
+
+	/**
+	 * A count-min sketch of recent access frequencies in the manner of
+	 * TinyLFU: four counters per key, capped at 15, and all halved once every
+	 * 10 * capacity increments so that old popularity fades.
+	 */
+   static class FrequencySketch {
+      private static final int MAX_COUNT = 15;
+      private final int[] myCounts;
+      private final int myMask;
+      private final int mySampleSize;
+      private int myAdditions;
+
+      FrequencySketch(int capacity) {
+         int size = Integer.highestOneBit(Math.max(16, capacity * 4 - 1)) << 1;
+         myCounts = new int[size];
+         myMask = size - 1;
+         mySampleSize = 10 * Math.max(capacity, 16);
+      }
+
+      private int index(int hash, int row) {
+         int h = hash * (0x9E3779B9 + 2 * row);
+         return (h ^ (h >>> 15)) & myMask;
+      }
+
+      void increment(Object key) {
+         int hash = key.hashCode();
+         boolean added = false;
+         for (int row = 0; row < 4; row++) {
+            int i = index(hash, row);
+            if (myCounts[i] < MAX_COUNT) {
+               myCounts[i]++;
+               added = true;
+            }
+         }
+         if (added && ++myAdditions == mySampleSize) {
+            for (int i = 0; i < myCounts.length; i++)
+               myCounts[i] >>>= 1;
+            myAdditions /= 2;
+         }
+      }
+
+      int frequency(Object key) {
+         int hash = key.hashCode();
+         int min = MAX_COUNT;
+         for (int row = 0; row < 4; row++)
+            min = Math.min(min, myCounts[index(hash, row)]);
+         return min;
+      }
+   }
+}
@@ -0,0 +1,59 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class CachingAutocompletorTest {
+
+   private static Autocomplete.Autocompletor trie() {
+      double[] weights = new double[]{6,4,2,3,5,7,1};
+      String[] terms = new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"};
+      return new Autocomplete.TrieAutocomplete(terms, weights);
+   }
+
+   @Test public void testsmallerkfromlargerk() {
+      CachingAutocompletor n = new CachingAutocompletor(trie(), 100, CachingAutocompletor.Policy.LRU);
+      Assert.assertEquals(Arrays.asList("bee", "bat"), n.topMatches("b", 2));
+      Assert.assertEquals(Arrays.asList("bee"), n.topMatches("b", 1));
+      Assert.assertEquals("bee", n.topMatch("b"));
+      Assert.assertEquals(Arrays.asList("bee", "bat", "ban"), n.topMatches("b", 3));
+      Assert.assertEquals(Arrays.asList("bee", "bat", "ban"), n.topMatches("b", 10));
+      Assert.assertEquals(Arrays.asList("bee", "bat", "ban"), n.topMatches("b", 5));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("b", 0));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("d", 5));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("d", 50));
+      Assert.assertEquals(4, n.getHits());
+      Assert.assertEquals(4, n.getMisses());
+      Assert.assertEquals(2, n.size());
+   }
+
+   @Test public void testpolicies() {
+      CachingAutocompletor lru = new CachingAutocompletor(trie(), 1, CachingAutocompletor.Policy.LRU);
+      CachingAutocompletor lfu = new CachingAutocompletor(trie(), 1, CachingAutocompletor.Policy.TINY_LFU);
+      for (CachingAutocompletor n : new CachingAutocompletor[]{lru, lfu}) {
+         for (int i = 0; i < 3; i++)
+            n.topMatches("a", 5);
+         Assert.assertEquals(Arrays.asList("car", "cat"), n.topMatches("c", 5));
+         n.topMatches("a", 5);
+         Assert.assertEquals(1, n.size());
+      }
+      Assert.assertEquals(2, lru.getHits());
+      Assert.assertEquals(2, lru.getEvictions());
+      Assert.assertEquals(3, lfu.getHits());
+      Assert.assertEquals(0, lfu.getEvictions());
+   }
+
+   @Test public void testinvalidatesonupdate() {
+      ConcurrentTrieAutocomplete trie = new ConcurrentTrieAutocomplete(
+         new String[]{"ape", "app", "bat"}, new double[]{6, 4, 3});
+      CachingAutocompletor n = new CachingAutocompletor(trie, 100, CachingAutocompletor.Policy.TINY_LFU);
+      Assert.assertEquals(Arrays.asList("ape", "app"), n.topMatches("a", 5));
+      Assert.assertEquals("bat", n.topMatch("b"));
+      trie.updateWeight("app", 9);
+      Assert.assertEquals(Arrays.asList("app", "ape"), n.topMatches("a", 5));
+      Assert.assertEquals("bat", n.topMatch("b"));
+      trie.insert("axe", 1);
+      Assert.assertEquals(Arrays.asList("app", "ape", "bat", "axe"), n.topMatches("", 5));
+      Assert.assertEquals(1, n.getHits());
+   }
+}
@@ -0,0 +1,50 @@
+/**
+ * A stateful query against one Autocompletor that follows a user typing,
+ * one keystroke at a time. The session remembers where the current prefix
+ * ends in the underlying structure, so append and backspace cost O(1)
+ * amortized instead of re-descending from the root on every keystroke, and
+ * it reuses its last results while the prefix is unchanged.
+ *
+ * Sessions are not thread-safe; use one per user (or per text field).
+ *
+ */
+public interface CompletionSession {
+
+	/**
+	 * Extends the current prefix by ch.
+	 */
+   public void append(char ch);
+
+	/**
+	 * Removes the last character of the current prefix. Does nothing if the
+	 * prefix is empty.
+	 */
+   public void backspace();
+
+	/**
+	 * Clears the current prefix.
+	 */
+   public void reset();
+
+	/**
+	 * Returns the current prefix.
+	 */
+   public String getPrefix();
+
+	/**
+	 * Returns the top k matching terms for the current prefix, in descending
+	 * order of weight, exactly as Autocompletor.topMatches(getPrefix(), k).
+	 */
+   public Iterable<String> topMatches(int k);
+
+	/**
+	 * Returns the same terms as topMatches(k), each with its weight.
+	 */
+   public Iterable<Term> topMatchesWithWeights(int k);
+
+	/**
+	 * Returns the single top matching term for the current prefix, or an
+	 * empty String if there are no matches.
+	 */
+   public String topMatch();
+}
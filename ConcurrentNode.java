@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/**
+ * Node in a ConcurrentTrieAutocomplete. Readers never lock, so every field a
+ * writer changes after the node is published is volatile, and the children
+ * array is copy-on-write: a writer builds a new sorted array and swaps it in
+ * with one volatile store, so a reader always sees either the old or the new
+ * array, both complete.
+ *
+ */
+public class ConcurrentNode {
+
+   static final ConcurrentNode[] NO_CHILDREN = new ConcurrentNode[0];
+
+	/**
+	 * The character on the edge into this node; unused for the root.
+	 */
+   final char myChar;
+
+   final ConcurrentNode parent;
+
+	/**
+	 * The word ending at this node. Set before the first non-negative
+	 * myWeight is stored and never cleared, so a reader that sees a weight
+	 * of 0 or more also sees the word.
+	 */
+   volatile String myWord;
+
+	/**
+	 * The weight of myWord, or -1 if no word ends at this node.
+	 */
+   volatile double myWeight = -1;
+
+	/**
+	 * The maximum weight of any word in this node's subtrie, including this
+	 * node itself, or -1 if there is none. Writers keep every node's value at
+	 * least its children's, at every instant.
+	 */
+   volatile double mySubtreeMaxWeight = -1;
+
+	/**
+	 * Sorted by myChar. Never modified in place once published.
+	 */
+   volatile ConcurrentNode[] children = NO_CHILDREN;
+
+   public ConcurrentNode(char ch, ConcurrentNode parentNode) {
+      myChar = ch;
+      parent = parentNode;
+   }
+
+	/**
+	 * Returns the index of the child for ch in kids, or (-(insertion point)
+	 * - 1) if there is none.
+	 */
+   static int indexOf(ConcurrentNode[] kids, char ch) {
+      int beg = 0, end = kids.length - 1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         char c = kids[mid].myChar;
+         if (c < ch) beg = mid + 1;
+         else if (c > ch) end = mid - 1;
+         else return mid;
+      }
+      return -(beg + 1);
+   }
+
+	/**
+	 * Returns null if key is not a valid child.
+	 */
+   ConcurrentNode getChild(char ch) {
+      ConcurrentNode[] kids = children;
+      int index = indexOf(kids, ch);
+      return index >= 0 ? kids[index] : null;
+   }
+
+	/**
+	 * Publishes child, which must be fully initialized and must not share
+	 * its character with an existing child. Writers only.
+	 */
+   void addChild(ConcurrentNode child) {
+      ConcurrentNode[] kids = children;
+      int index = -(indexOf(kids, child.myChar) + 1);
+      ConcurrentNode[] grown = Arrays.copyOf(kids, kids.length + 1);
+      System.arraycopy(kids, index, grown, index + 1, kids.length - index);
+      grown[index] = child;
+      children = grown;
+   }
+
+	/**
+	 * Unpublishes the child for ch, if any. Writers only.
+	 */
+   void removeChild(char ch) {
+      ConcurrentNode[] kids = children;
+      int index = indexOf(kids, ch);
+      if (index < 0)
+         return;
+      ConcurrentNode[] shrunk = new ConcurrentNode[kids.length - 1];
+      System.arraycopy(kids, 0, shrunk, 0, index);
+      System.arraycopy(kids, index + 1, shrunk, index, shrunk.length - index);
+      children = shrunk;
+   }
+
+   @Override
+   public String toString() {
+      return myChar + " (" + myWeight + ")";
+   }
+}
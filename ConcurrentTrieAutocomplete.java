@@ -0,0 +1,330 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A trie of ConcurrentNodes that takes insert, updateWeight and remove calls
+ * while any number of threads query it without locking.
+ *
+ * Writers are serialized by one lock. Readers take no lock: children arrays
+ * are copy-on-write and every mutable node field is volatile, so a reader sees
+ * each node either before or after any given write, never half-written.
+ *
+ * Writers keep mySubtreeMaxWeight an upper bound of every child's value at
+ * every instant, not just between writes. A raised weight is pushed into
+ * the maxima on the way down, before the word's own weight changes; a lowered
+ * or removed weight is stored first and the maxima are then recomputed from
+ * the word up to the root. Nodes left with no word and no children are
+ * unlinked on the way up. Each weight topMatches returns held at some moment
+ * during the call; a query racing a write sees either the old or the new
+ * weight of the term being written.
+ *
+ * Results are in descending weight order whenever no weight is raised
+ * during the call: lowering and removing weights (and queries on a trie no
+ * one writes) never reorder them, since every key the search reads is at
+ * most the key of the entry it was found under. A weight raised or a term
+ * inserted while a query runs may be read after its ancestor's old maximum,
+ * and so may come after lighter words in that query's results.
+ *
+ */
+public class ConcurrentTrieAutocomplete implements Autocomplete.UpdatableAutocompletor {
+
+	/**
+	 * Root of entire trie
+	 */
+   protected final ConcurrentNode myRoot = new ConcurrentNode('\0', null);
+
+   private final Object myWriteLock = new Object();
+   private final List<Autocomplete.UpdateListener> myListeners =
+      new CopyOnWriteArrayList<Autocomplete.UpdateListener>();
+   private volatile int mySize;
+   private volatile int myNodeCount = 1;
+
+	/**
+	 * Creates an empty trie.
+	 */
+   public ConcurrentTrieAutocomplete() {
+   }
+
+	/**
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or a term is duplicated
+	 */
+   public ConcurrentTrieAutocomplete(String[] terms, double[] weights) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      for (int i = 0; i < terms.length; i++) {
+         if (set(terms[i], weights[i], true) >= 0)
+            throw new IllegalArgumentException("Duplicate input terms");
+      }
+   }
+
+	/**
+	 * Adds term with the given weight, or replaces its weight if it is
+	 * already present.
+	 *
+	 * @throws NullPointerException
+	 *             if term is null
+	 * @throws IllegalArgumentException
+	 *             if weight is negative
+	 */
+   public void insert(String term, double weight) {
+      set(term, weight, true);
+   }
+
+	/**
+	 * Replaces the weight of term, lowering or raising the subtree maxima
+	 * along its path. Returns false, changing nothing, if term is not present.
+	 *
+	 * @throws NullPointerException
+	 *             if term is null
+	 * @throws IllegalArgumentException
+	 *             if weight is negative
+	 */
+   public boolean updateWeight(String term, double weight) {
+      return set(term, weight, false) >= 0;
+   }
+
+	/**
+	 * Removes term, unlinking the nodes that no longer lead to any word.
+	 * Returns false if term is not present.
+	 *
+	 * @throws NullPointerException
+	 *             if term is null
+	 */
+   public boolean remove(String term) {
+      if (term == null)
+         throw new NullPointerException("Null term");
+      synchronized (myWriteLock) {
+         ConcurrentNode node = find(term);
+         if (node == null || node.myWeight < 0)
+            return false;
+         double old = node.myWeight;
+         node.myWeight = -1;
+         mySize--;
+         lower(node);
+         fire(term, old, -1);
+         return true;
+      }
+   }
+
+	/**
+	 * Registers listener to be told of every change made from now on. It is
+	 * called while the write lock is held, so it must not write to this trie.
+	 */
+   public void addUpdateListener(Autocomplete.UpdateListener listener) {
+      if (listener == null)
+         throw new NullPointerException("Null listener");
+      myListeners.add(listener);
+   }
+
+	/**
+	 * Sets the weight of term and returns its old weight, or -1 if it was not
+	 * present. If it was not present and create is false, changes nothing.
+	 */
+   private double set(String term, double weight, boolean create) {
+      if (term == null)
+         throw new NullPointerException("Null term");
+      if (weight < 0)
+         throw new IllegalArgumentException("Negative weight "+ weight);
+      synchronized (myWriteLock) {
+         if (!create) {
+            ConcurrentNode node = find(term);
+            if (node == null || node.myWeight < 0)
+               return -1;
+         }
+         ConcurrentNode node = myRoot;
+         raise(node, weight);
+         for (int i = 0; i < term.length(); i++) {
+            char ch = term.charAt(i);
+            ConcurrentNode child = node.getChild(ch);
+            if (child == null) {
+               child = new ConcurrentNode(ch, node);
+               child.mySubtreeMaxWeight = weight;
+               node.addChild(child);
+               myNodeCount++;
+            } else {
+               raise(child, weight);
+            }
+            node = child;
+         }
+         double old = node.myWeight;
+         if (old < 0) {
+            node.myWord = term;
+            mySize++;
+         }
+         node.myWeight = weight;
+         if (weight < old)
+            lower(node);
+         fire(term, old, weight);
+         return old;
+      }
+   }
+
+   private static void raise(ConcurrentNode node, double weight) {
+      if (node.mySubtreeMaxWeight < weight)
+         node.mySubtreeMaxWeight = weight;
+   }
+
+	/**
+	 * Recomputes mySubtreeMaxWeight from node up to the root after a weight
+	 * in node's subtrie was lowered or removed, unlinking empty nodes. Stops
+	 * as soon as a node's maximum is unchanged, since nothing above it can
+	 * change either.
+	 */
+   private void lower(ConcurrentNode node) {
+      while (node != null) {
+         ConcurrentNode[] kids = node.children;
+         if (node != myRoot && node.myWeight < 0 && kids.length == 0) {
+            node.parent.removeChild(node.myChar);
+            myNodeCount--;
+            node = node.parent;
+            continue;
+         }
+         double max = node.myWeight;
+         for (ConcurrentNode child : kids)
+            max = Math.max(max, child.mySubtreeMaxWeight);
+         if (max == node.mySubtreeMaxWeight)
+            return;
+         node.mySubtreeMaxWeight = max;
+         node = node.parent;
+      }
+   }
+
+   private void fire(String term, double oldWeight, double newWeight) {
+      for (Autocomplete.UpdateListener listener : myListeners)
+         listener.termUpdated(term, oldWeight, newWeight);
+   }
+
+	/**
+	 * Returns the node reached by prefix, or null if there is none.
+	 */
+   ConcurrentNode find(String prefix) {
+      ConcurrentNode node = myRoot;
+      for (int i = 0; i < prefix.length() && node != null; i++)
+         node = node.getChild(prefix.charAt(i));
+      return node;
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words with the
+	 * largest weight which start with prefix, in descending weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      return Autocomplete.wordsOf(topMatches(find(prefix), k));
+   }
+
+	/**
+	 * The same as topMatches, returning each word with the weight it had when
+	 * the search read it.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Term> topMatchesWithWeights(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      return topMatches(find(prefix), k);
+   }
+
+	/**
+	 * Best-first search of the subtrie at start. Every key is read once, when
+	 * its entry is pushed, so writes during the search cannot reorder the
+	 * heap; a word's Term carries the weight it was pushed with. Node entries
+	 * are indices into nodes; word entries are their node's index,
+	 * complemented.
+	 */
+   private List<Term> topMatches(ConcurrentNode start, int k) {
+      ArrayList<Term> ret = new ArrayList<Term>(Math.min(k, 16));
+      if (start == null || k == 0)
+         return ret;
+      double max = start.mySubtreeMaxWeight;
+      if (max < 0)
+         return ret;
+      ArrayList<ConcurrentNode> nodes = new ArrayList<ConcurrentNode>();
+      IndexMaxHeap pq = new IndexMaxHeap();
+      nodes.add(start);
+      pq.add(0, max);
+      while (!pq.isEmpty() && ret.size() < k) {
+         double key = pq.peekKey();
+         int entry = pq.remove();
+         if (entry < 0) {
+            ret.add(new Term(nodes.get(~entry).myWord, key));
+            continue;
+         }
+         ConcurrentNode node = nodes.get(entry);
+         double weight = node.myWeight;
+         if (weight >= 0)
+            pq.add(~entry, weight);
+         for (ConcurrentNode child : node.children) {
+            double childMax = child.mySubtreeMaxWeight;
+            if (childMax >= 0) {
+               pq.add(nodes.size(), childMax);
+               nodes.add(child);
+            }
+         }
+      }
+      return ret;
+   }
+
+	/**
+	 * Returns the largest-weight word starting with prefix, or an empty String
+	 * if there is none.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      List<Term> top = topMatches(find(prefix), 1);
+      return top.isEmpty() ? "" : top.get(0).getWord();
+   }
+
+	/**
+	 * Return the weight of a given term. If term is not in the dictionary,
+	 * return 0.0
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      ConcurrentNode node = find(term);
+      if (node == null)
+         return 0.0;
+      double weight = node.myWeight;
+      return weight >= 0 ? weight : 0.0;
+   }
+
+	/**
+	 * Returns the number of terms currently present.
+	 */
+   public int size() {
+      return mySize;
+   }
+
+   public int nodeCount() {
+      return myNodeCount;
+   }
+}
@@ -0,0 +1,248 @@
+import org.junit.Assert;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentTrieAutocompleteTest {
+
+   public ConcurrentTrieAutocomplete n;
+
+   @Before public void testparameters() {
+      double[] weights = new double[]{6,4,2,3,5,7,1};
+      String[] terms = new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"};
+      n = new ConcurrentTrieAutocomplete(terms, weights);
+   }
+
+   @Test public void testtopmatches() {
+      Assert.assertEquals(Arrays.asList("car", "ape", "bee", "app", "bat", "ban", "cat"), n.topMatches("", 8));
+      Assert.assertEquals(Arrays.asList("ape", "app"), n.topMatches("ap", 5));
+      Assert.assertEquals(Arrays.asList("bee", "bat"), n.topMatches("b", 2));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("d", 5));
+      Assert.assertEquals("car", n.topMatch("c"));
+      Assert.assertEquals("", n.topMatch("x"));
+   }
+
+   @Test public void testupdates() {
+      Assert.assertTrue(n.updateWeight("car", 0.5));
+      Assert.assertEquals("cat", n.topMatch("c"));
+      Assert.assertEquals("ape", n.topMatch(""));
+      Assert.assertFalse(n.updateWeight("ca", 9));
+      Assert.assertEquals(0.0, n.weightOf("ca"), 0);
+      n.insert("ca", 9);
+      Assert.assertEquals(Arrays.asList("ca", "cat", "car"), n.topMatches("c", 5));
+      int nodes = n.nodeCount();
+      Assert.assertTrue(n.remove("cat"));
+      Assert.assertFalse(n.remove("cat"));
+      Assert.assertEquals(nodes - 1, n.nodeCount());
+      Assert.assertTrue(n.remove("ape"));
+      Assert.assertEquals(Arrays.asList("app"), n.topMatches("a", 5));
+      Assert.assertEquals(6, n.size());
+   }
+
+   @Test public void testlistener() {
+      final List<String> events = new ArrayList<String>();
+      n.addUpdateListener(
+         new Autocomplete.UpdateListener() {
+            public void termUpdated(String term, double oldWeight, double newWeight) {
+               events.add(term + ":" + oldWeight + ":" + newWeight);
+            }
+         });
+      n.insert("dog", 2);
+      n.updateWeight("dog", 3);
+      n.updateWeight("emu", 3);
+      n.remove("dog");
+      Assert.assertEquals(Arrays.asList("dog:-1.0:2.0", "dog:2.0:3.0", "dog:3.0:-1.0"), events);
+   }
+
+   @Test public void testupdatesmatchbrute() {
+      Random random = new Random(7);
+      ConcurrentTrieAutocomplete trie = new ConcurrentTrieAutocomplete();
+      Map<String, Double> model = new HashMap<String, Double>();
+      for (int round = 0; round < 50; round++) {
+         for (int op = 0; op < 40; op++)
+            apply(trie, model, random);
+         assertMatchesModel(trie, model);
+      }
+   }
+
+	/*
+	 * Writers update disjoint halves of the vocabulary while readers query
+	 * without pause; afterwards the trie must agree exactly with what the
+	 * writers recorded.
+	 */
+   @Test public void testconcurrentreadersandwriters() throws InterruptedException {
+      final ConcurrentTrieAutocomplete trie = new ConcurrentTrieAutocomplete();
+      final Map<String, Double> model = new ConcurrentHashMap<String, Double>();
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      final int writers = 2;
+      final int readers = 4;
+      final Thread[] threads = new Thread[writers + readers];
+      final AtomicBoolean done = new AtomicBoolean();
+      for (int t = 0; t < writers; t++) {
+         final int first = t;
+         threads[t] = new Thread(
+            new Runnable() {
+               public void run() {
+                  Random random = new Random(first);
+                  Map<String, Double> mine = new HashMap<String, Double>();
+                  for (int op = 0; op < 20000; op++) {
+                     String term = first + word(random);
+                     if (random.nextInt(4) == 0) {
+                        trie.remove(term);
+                        mine.remove(term);
+                     } else {
+                        double weight = random.nextDouble();
+                        trie.insert(term, weight);
+                        mine.put(term, weight);
+                     }
+                  }
+                  model.putAll(mine);
+               }
+            });
+      }
+      for (int t = writers; t < threads.length; t++) {
+         final int seed = t;
+         threads[t] = new Thread(
+            new Runnable() {
+               public void run() {
+                  Random random = new Random(seed);
+                  try {
+                     while (!done.get()) {
+                        String prefix = random.nextInt(writers) + word(random);
+                        prefix = prefix.substring(0, 1 + random.nextInt(prefix.length()));
+                        Set<String> seen = new HashSet<String>();
+                        for (String term : trie.topMatches(prefix, 10)) {
+                           Assert.assertTrue(term.startsWith(prefix));
+                           Assert.assertTrue(seen.add(term));
+                        }
+                        Assert.assertTrue(seen.size() <= 10);
+                     }
+                  } catch (Throwable e) {
+                     failure.compareAndSet(null, e);
+                  }
+               }
+            });
+      }
+      for (Thread thread : threads)
+         thread.start();
+      for (int t = 0; t < writers; t++)
+         threads[t].join();
+      done.set(true);
+      for (int t = writers; t < threads.length; t++)
+         threads[t].join();
+      Assert.assertNull(failure.get());
+      assertMatchesModel(trie, model);
+   }
+
+   @Test public void testdescendingwhileweightsfall() throws InterruptedException {
+      final ConcurrentTrieAutocomplete trie = new ConcurrentTrieAutocomplete();
+      final List<String> terms = new ArrayList<String>();
+      Random setup = new Random(11);
+      for (int i = 0; i < 2000; i++) {
+         String term = word(setup) + word(setup);
+         if (trie.weightOf(term) == 0) {
+            trie.insert(term, 1 + setup.nextDouble());
+            terms.add(term);
+         }
+      }
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      final AtomicBoolean done = new AtomicBoolean();
+      Thread writer = new Thread(
+         new Runnable() {
+            public void run() {
+               Random random = new Random(12);
+               for (int op = 0; op < 50000; op++) {
+                  String term = terms.get(random.nextInt(terms.size()));
+                  if (random.nextInt(8) == 0)
+                     trie.remove(term);
+                  else
+                     trie.updateWeight(term, trie.weightOf(term) * random.nextDouble());
+               }
+            }
+         });
+      Thread[] readers = new Thread[3];
+      for (int t = 0; t < readers.length; t++) {
+         final int seed = t;
+         readers[t] = new Thread(
+            new Runnable() {
+               public void run() {
+                  Random random = new Random(seed);
+                  try {
+                     while (!done.get()) {
+                        String prefix = word(random).substring(0, 1);
+                        double previous = Double.POSITIVE_INFINITY;
+                        for (Term term : trie.topMatchesWithWeights(random.nextBoolean() ? prefix : "", 20)) {
+                           Assert.assertTrue(term.getWeight() <= previous);
+                           previous = term.getWeight();
+                        }
+                     }
+                  } catch (Throwable e) {
+                     failure.compareAndSet(null, e);
+                  }
+               }
+            });
+      }
+      for (Thread reader : readers)
+         reader.start();
+      writer.start();
+      writer.join();
+      done.set(true);
+      for (Thread reader : readers)
+         reader.join();
+      Assert.assertNull(failure.get());
+   }
+
+   private static String word(Random random) {
+      StringBuilder sb = new StringBuilder();
+      int length = 1 + random.nextInt(4);
+      for (int i = 0; i < length; i++)
+         sb.append((char) ('a' + random.nextInt(3)));
+      return sb.toString();
+   }
+
+   private static void apply(ConcurrentTrieAutocomplete trie, Map<String, Double> model, Random random) {
+      String term = word(random);
+      switch (random.nextInt(3)) {
+         case 0:
+            Assert.assertEquals(model.remove(term) != null, trie.remove(term));
+            break;
+         case 1:
+            double weight = random.nextDouble();
+            Assert.assertEquals(model.containsKey(term), trie.updateWeight(term, weight));
+            if (model.containsKey(term))
+               model.put(term, weight);
+            break;
+         default:
+            weight = random.nextDouble();
+            trie.insert(term, weight);
+            model.put(term, weight);
+      }
+   }
+
+   private static void assertMatchesModel(ConcurrentTrieAutocomplete trie, Map<String, Double> model) {
+      String[] terms = new String[model.size()];
+      double[] weights = new double[model.size()];
+      Set<String> prefixes = new HashSet<String>();
+      int i = 0;
+      for (Map.Entry<String, Double> entry : model.entrySet()) {
+         terms[i] = entry.getKey();
+         weights[i++] = entry.getValue();
+         for (int length = 0; length <= entry.getKey().length(); length++)
+            prefixes.add(entry.getKey().substring(0, length));
+      }
+      Autocomplete.Autocompletor brute = new Autocomplete.BruteAutocomplete(terms, weights);
+      Assert.assertEquals(model.size(), trie.size());
+      // every live node lies on the path to some term
+      Assert.assertEquals(Math.max(prefixes.size(), 1), trie.nodeCount());
+      for (String prefix : prefixes) {
+         Assert.assertEquals(brute.topMatches(prefix, 5), trie.topMatches(prefix, 5));
+         Assert.assertEquals(brute.topMatch(prefix), trie.topMatch(prefix));
+      }
+      for (String term : terms)
+         Assert.assertEquals(model.get(term), trie.weightOf(term), 0);
+   }
+}
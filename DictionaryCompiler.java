@@ -0,0 +1,134 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Compiles a dictionary in the "count\nweight\tterm" format, plain or
+ * gzipped, into the binary index read by MappedAutocomplete, so that the
+ * parsing, sorting and index building are paid once instead of at every
+ * startup.
+ *
+ * The file is big-endian and laid out as
+ *
+ *   int     MAGIC
+ *   int     VERSION
+ *   int     n, the number of terms
+ *   int     length of the term blob in bytes
+ *   double  weights[n]       in term order
+ *   int     offsets[n + 1]   start of each term in the blob, then its length
+ *   int     tree[n]          argmax segment tree; tree[0] is unused
+ *   byte    blob[]           UTF-8 terms, sorted by unsigned byte order
+ *
+ * Terms sorted by their UTF-8 bytes are in code point order, and the terms
+ * starting with a prefix are a contiguous run of them. tree[i] is the id of
+ * the heaviest term under internal node i of an implicit segment tree whose
+ * leaves n .. 2n - 1 are the terms 0 .. n - 1, so leaves are not stored.
+ * The whole file must be under 2GB, the limit of one mapped buffer.
+ *
+ *  % java DictionaryCompiler words.txt words.acx
+ *
+ */
+public class DictionaryCompiler {
+
+   public static final int MAGIC = 0x41435831; // "ACX1"
+   public static final int VERSION = 1;
+   public static final int HEADER_BYTES = 16;
+
+	/**
+	 * Writes the index of terms and weights to out.
+	 *
+	 * @throws NullPointerException
+	 *             if terms or weights is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative, a term is duplicated or the index would not fit
+	 *             in one mapped buffer
+	 */
+   public static void compile(String[] terms, double[] weights, File out) throws IOException {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      final int n = terms.length;
+      final byte[][] bytes = new byte[n][];
+      Integer[] order = new Integer[n];
+      long blobLength = 0;
+      for (int i = 0; i < n; i++) {
+         if (weights[i] < 0)
+            throw new IllegalArgumentException("Negative weight "+ weights[i]);
+         bytes[i] = terms[i].getBytes(StandardCharsets.UTF_8);
+         blobLength += bytes[i].length;
+         order[i] = i;
+      }
+      if (HEADER_BYTES + 16L * n + 4 + blobLength > Integer.MAX_VALUE)
+         throw new IllegalArgumentException("Dictionary too large for one mapped file");
+      Arrays.sort(order,
+         new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+               return Arrays.compareUnsigned(bytes[a], bytes[b]);
+            }
+         });
+      double[] sortedWeights = new double[n];
+      for (int i = 0; i < n; i++) {
+         sortedWeights[i] = weights[order[i]];
+         if (i > 0 && Arrays.equals(bytes[order[i]], bytes[order[i - 1]]))
+            throw new IllegalArgumentException("Duplicate input terms");
+      }
+      int[] tree = buildTree(sortedWeights);
+      DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(out), 1 << 16));
+      try {
+         data.writeInt(MAGIC);
+         data.writeInt(VERSION);
+         data.writeInt(n);
+         data.writeInt((int) blobLength);
+         for (double weight : sortedWeights)
+            data.writeDouble(weight);
+         int offset = 0;
+         for (int i = 0; i < n; i++) {
+            data.writeInt(offset);
+            offset += bytes[order[i]].length;
+         }
+         data.writeInt(offset);
+         for (int node : tree)
+            data.writeInt(node);
+         for (int i = 0; i < n; i++)
+            data.write(bytes[order[i]]);
+      } finally {
+         data.close();
+      }
+   }
+
+	/**
+	 * Returns the internal nodes of the argmax segment tree over weights,
+	 * preferring the left child on ties.
+	 */
+   static int[] buildTree(double[] weights) {
+      int n = weights.length;
+      int[] tree = new int[n];
+      for (int i = n - 1; i >= 1; i--) {
+         int left = 2 * i < n ? tree[2 * i] : 2 * i - n;
+         int right = 2 * i + 1 < n ? tree[2 * i + 1] : 2 * i + 1 - n;
+         tree[i] = weights[right] > weights[left] ? right : left;
+      }
+      return tree;
+   }
+
+   public static void main(String[] args) throws IOException {
+      if (args.length < 2) {
+         System.err.println("Usage: java DictionaryCompiler dictionary.txt index.acx");
+         System.exit(1);
+      }
+      long start = System.nanoTime();
+      DictionaryLoader dictionary = DictionaryLoader.load(new File(args[0]));
+      long parsed = System.nanoTime();
+      File out = new File(args[1]);
+      compile(dictionary.getTerms(), dictionary.getWeights(), out);
+      System.out.printf("Compiled %d terms into %s (%d bytes): parse %.3f s, compile %.3f s%n",
+             dictionary.size(), out, out.length(), (parsed - start) / 1e9, (System.nanoTime() - parsed) / 1e9);
+   }
+}
@@ -0,0 +1,355 @@
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads dictionaries in the "count\nweight\tterm" format, optionally
+ * gzipped, without java.util.Scanner.
+ *
+ * Input is read through a channel into one large ByteBuffer and parsed in
+ * place: the weight is converted straight from its digits, and the term is
+ * decoded from its bytes with a single String allocation (Latin-1 when the
+ * line is plain ASCII, which skips UTF-8 validation). Leading and trailing
+ * whitespace around the weight is ignored, and a trailing '\r' is dropped
+ * from the term, so files with Windows line endings load the same.
+ *
+ * Terms are streamed to a Sink as they are parsed; load collects them into
+ * arrays, and build feeds them to an Autocompletor, inserting straight into
+ * an UpdatableAutocompletor when the chosen class is one.
+ *
+ */
+public class DictionaryLoader {
+
+   public static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Receives each term and weight in file order.
+	 */
+   public interface Sink {
+
+   	/**
+   	 * Called once, before any term, with the count from the first line.
+   	 */
+      public default void expect(int count) {
+      }
+
+      public void accept(String term, double weight);
+   }
+
+   private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+   private final String[] myTerms;
+   private final double[] myWeights;
+
+   private DictionaryLoader(String[] terms, double[] weights) {
+      myTerms = terms;
+      myWeights = weights;
+   }
+
+   public String[] getTerms() {
+      return myTerms;
+   }
+
+   public double[] getWeights() {
+      return myWeights;
+   }
+
+   public int size() {
+      return myTerms.length;
+   }
+
+	/**
+	 * Reads file, which may be gzipped, into arrays of terms and weights.
+	 *
+	 * @throws IOException
+	 *             if file cannot be read or is malformed
+	 */
+   public static DictionaryLoader load(File file) throws IOException {
+      Collector collector = new Collector();
+      read(file, collector);
+      return new DictionaryLoader(Arrays.copyOf(collector.myTerms, collector.myCount),
+         Arrays.copyOf(collector.myWeights, collector.myCount));
+   }
+
+	/**
+	 * Gathers a stream of terms into arrays sized by the count line.
+	 */
+   private static class Collector implements Sink {
+      String[] myTerms = new String[0];
+      double[] myWeights = new double[0];
+      int myCount;
+
+      public void expect(int count) {
+         myTerms = new String[count];
+         myWeights = new double[count];
+      }
+
+      public void accept(String term, double weight) {
+         if (myCount == myTerms.length) {
+            myTerms = Arrays.copyOf(myTerms, Math.max(16, 2 * myCount));
+            myWeights = Arrays.copyOf(myWeights, myTerms.length);
+         }
+         myTerms[myCount] = term;
+         myWeights[myCount++] = weight;
+      }
+   }
+
+	/**
+	 * Reads file and returns the named Autocompletor over it, resolved as by
+	 * AutocompletorBenchmark.getInstance. An UpdatableAutocompletor with a
+	 * no-argument constructor is filled by insert as the file is parsed
+	 * (a repeated term keeps its last weight); any other class is built
+	 * from the loaded arrays. Terms are lowercased
+	 * first if lowerCase is true.
+	 *
+	 * @throws IOException
+	 *             if file cannot be read or is malformed
+	 * @throws IllegalArgumentException
+	 *             if there is no such Autocompletor or it rejects the input
+	 */
+   public static Autocomplete.Autocompletor build(File file, String className, final boolean lowerCase)
+          throws IOException {
+      Autocomplete.Autocompletor empty = null;
+      try {
+         empty = (Autocomplete.Autocompletor) Class.forName(className).getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | ClassCastException e) {
+         // no way to stream into it
+      }
+      if (empty instanceof Autocomplete.UpdatableAutocompletor) {
+         final Autocomplete.UpdatableAutocompletor auto = (Autocomplete.UpdatableAutocompletor) empty;
+         read(file,
+            new Sink() {
+               public void accept(String term, double weight) {
+                  auto.insert(lowerCase ? term.toLowerCase() : term, weight);
+               }
+            });
+         return auto;
+      }
+      DictionaryLoader dictionary = load(file);
+      String[] terms = dictionary.getTerms();
+      if (lowerCase) {
+         for (int i = 0; i < terms.length; i++)
+            terms[i] = terms[i].toLowerCase();
+      }
+      return AutocompletorBenchmark.getInstance(className, terms, dictionary.getWeights());
+   }
+
+	/**
+	 * Streams every term of file to sink and returns how many there were.
+	 * The file is gunzipped first if it starts with the gzip magic number.
+	 * Lines after the count line promises are ignored.
+	 *
+	 * @throws IOException
+	 *             if file cannot be read or is malformed
+	 */
+   public static int read(File file, Sink sink) throws IOException {
+      InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+      try {
+         in.mark(2);
+         int first = in.read();
+         int second = in.read();
+         in.reset();
+         if (first == 0x1f && second == 0x8b)
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+         return read(Channels.newChannel(in), sink);
+      } finally {
+         in.close();
+      }
+   }
+
+	/**
+	 * Streams every term read from channel to sink and returns how many
+	 * there were. See read(File, Sink).
+	 */
+   public static int read(ReadableByteChannel channel, Sink sink) throws IOException {
+      Parser parser = new Parser(channel);
+      if (!parser.nextLine())
+         throw new IOException("Empty dictionary");
+      int expected = parser.parseCount();
+      sink.expect(expected);
+      int count = 0;
+      while (count < expected && parser.nextLine()) {
+         parser.parseEntry(count + 2, sink);
+         count++;
+      }
+      if (count < expected)
+         throw new IOException("Expected " + expected + " terms but found " + count);
+      return count;
+   }
+
+	/**
+	 * Splits a channel into lines inside one byte array, growing it only for
+	 * lines longer than the array.
+	 */
+   private static class Parser {
+      private final ReadableByteChannel myChannel;
+      private ByteBuffer myBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+      private boolean myEof;
+      // the current line is myBuffer.array()[myStart..myEnd), without '\n'
+      private int myStart;
+      private int myEnd;
+      // where scanning for the next line starts
+      private int myNext;
+
+      Parser(ReadableByteChannel channel) {
+         myChannel = channel;
+         myBuffer.limit(0);
+      }
+
+      boolean nextLine() throws IOException {
+         byte[] bytes = myBuffer.array();
+         int from = myNext;
+         while (true) {
+            int limit = myBuffer.limit();
+            for (int i = from; i < limit; i++) {
+               if (bytes[i] == '\n') {
+                  myStart = myNext;
+                  myEnd = i;
+                  myNext = i + 1;
+                  return true;
+               }
+            }
+            if (myEof) {
+               if (myNext == limit)
+                  return false;
+               myStart = myNext;
+               myEnd = limit;
+               myNext = limit;
+               return true;
+            }
+            // move the partial line to the front, growing for long lines
+            int partial = limit - myNext;
+            if (partial == bytes.length) {
+               ByteBuffer grown = ByteBuffer.allocate(2 * bytes.length);
+               grown.put(bytes, 0, partial);
+               myBuffer = grown;
+               bytes = grown.array();
+            } else {
+               System.arraycopy(bytes, myNext, bytes, 0, partial);
+               myBuffer.clear();
+               myBuffer.position(partial);
+            }
+            myNext = 0;
+            from = partial;
+            while (myBuffer.hasRemaining()) {
+               if (myChannel.read(myBuffer) < 0) {
+                  myEof = true;
+                  break;
+               }
+            }
+            myBuffer.flip();
+         }
+      }
+
+      int parseCount() throws IOException {
+         int start = skipSpace(myStart, myEnd);
+         int end = trimEnd(start, myEnd);
+         if (start == end)
+            throw new IOException("Line 1: missing term count");
+         long count = 0;
+         byte[] bytes = myBuffer.array();
+         for (int i = start; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || count > Integer.MAX_VALUE)
+               throw new IOException("Line 1: malformed term count");
+            count = 10 * count + digit;
+         }
+         if (count > Integer.MAX_VALUE)
+            throw new IOException("Line 1: malformed term count");
+         return (int) count;
+      }
+
+      void parseEntry(int line, Sink sink) throws IOException {
+         byte[] bytes = myBuffer.array();
+         int tab = -1;
+         boolean ascii = true;
+         for (int i = myStart; i < myEnd; i++) {
+            byte b = bytes[i];
+            if (b == '\t' && tab < 0)
+               tab = i;
+            if (b < 0)
+               ascii = false;
+         }
+         if (tab < 0)
+            throw new IOException("Line " + line + ": no tab after the weight");
+         double weight = parseWeight(line, skipSpace(myStart, tab), trimEnd(myStart, tab));
+         int end = myEnd;
+         if (end > tab + 1 && bytes[end - 1] == '\r')
+            end--;
+         String term = new String(bytes, tab + 1, end - tab - 1,
+            ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+         sink.accept(term, weight);
+      }
+
+   	/**
+   	 * Converts the digits in bytes[start..end) to a double. A plain decimal
+   	 * whose digits, without the point, form an integer of at most 2^53
+   	 * and which has at most 22 fraction digits is that integer divided by
+   	 * an exact power of ten, so one correctly rounded division gives the
+   	 * same double as Double.parseDouble; anything else is handed to it.
+   	 */
+      private double parseWeight(int line, int start, int end) throws IOException {
+         byte[] bytes = myBuffer.array();
+         long mantissa = 0;
+         int digits = 0;
+         int scale = 0;
+         boolean point = false;
+         boolean any = false;
+         int i = start;
+         for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+               any = true;
+               if (digits < 18) {
+                  mantissa = 10 * mantissa + (b - '0');
+                  if (mantissa != 0)
+                     digits++;
+                  if (point)
+                     scale++;
+               }
+               else {
+                  break;
+               }
+            }
+            else if (b == '.' && !point) {
+               point = true;
+            }
+            else {
+               break;
+            }
+         }
+         if (i == end && any && scale <= 22 && mantissa <= 1L << 53) {
+            return scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+         }
+         try {
+            return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+         } catch (NumberFormatException e) {
+            throw new IOException("Line " + line + ": malformed weight");
+         }
+      }
+
+      private int skipSpace(int start, int end) {
+         byte[] bytes = myBuffer.array();
+         while (start < end && (bytes[start] == ' ' || bytes[start] == '\t' || bytes[start] == '\r'))
+            start++;
+         return start;
+      }
+
+      private int trimEnd(int start, int end) {
+         byte[] bytes = myBuffer.array();
+         while (end > start && (bytes[end - 1] == ' ' || bytes[end - 1] == '\t' || bytes[end - 1] == '\r'))
+            end--;
+         return end;
+      }
+   }
+}
@@ -0,0 +1,79 @@
+import org.junit.Assert;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+public class DictionaryLoaderTest {
+
+   private static File write(String contents, boolean gzip) throws IOException {
+      File file = File.createTempFile("dictionary", gzip ? ".txt.gz" : ".txt");
+      file.deleteOnExit();
+      OutputStream out = new FileOutputStream(file);
+      if (gzip)
+         out = new GZIPOutputStream(out);
+      out.write(contents.getBytes("UTF-8"));
+      out.close();
+      return file;
+   }
+
+   @Test public void testformat() throws IOException {
+      for (boolean gzip : new boolean[]{false, true}) {
+         DictionaryLoader dictionary = DictionaryLoader.load(
+            write("3\n   5627187200\tThe Who\r\n  0.25\tcaf\u00e9\n7\ta\tb\nignored\n", gzip));
+         Assert.assertEquals(Arrays.asList("The Who", "caf\u00e9", "a\tb"), Arrays.asList(dictionary.getTerms()));
+         Assert.assertArrayEquals(new double[]{5627187200.0, 0.25, 7}, dictionary.getWeights(), 0);
+      }
+   }
+
+   @Test public void testweightsmatchparsedouble() throws IOException {
+      Random random = new Random(3);
+      String[] weights = new String[5000];
+      StringBuilder contents = new StringBuilder().append(weights.length).append('\n');
+      for (int i = 0; i < weights.length; i++) {
+         switch (i % 5) {
+            case 0: weights[i] = Long.toString(random.nextLong() >>> random.nextInt(64)); break;
+            case 1: weights[i] = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(30) - 15)); break;
+            case 2: weights[i] = "0." + Long.toString(random.nextLong() >>> 1); break;
+            case 3: weights[i] = random.nextInt(1000000) + "." + random.nextInt(1000); break;
+            default: weights[i] = Integer.toString(random.nextInt(100));
+         }
+         contents.append(weights[i]).append('\t').append("t").append(i).append('\n');
+      }
+      DictionaryLoader dictionary = DictionaryLoader.load(write(contents.toString(), false));
+      for (int i = 0; i < weights.length; i++)
+         Assert.assertEquals(weights[i], Double.parseDouble(weights[i]), dictionary.getWeights()[i], 0);
+   }
+
+   @Test public void testlinelongerthanbuffer() throws IOException {
+      StringBuilder term = new StringBuilder();
+      while (term.length() < 3 * DictionaryLoader.BUFFER_SIZE)
+         term.append("abcdefghij");
+      DictionaryLoader dictionary = DictionaryLoader.load(write("2\n1\tx\n2\t" + term + "\n", false));
+      Assert.assertEquals(term.toString(), dictionary.getTerms()[1]);
+   }
+
+   @Test public void testmalformed() throws IOException {
+      for (String contents : new String[]{"", "x\n", "2\n1\ta\n", "1\n1 a\n", "1\nabc\ta\n"}) {
+         try {
+            DictionaryLoader.load(write(contents, false));
+            Assert.fail("accepted \"" + contents + "\"");
+         } catch (IOException e) {
+         }
+      }
+   }
+
+   @Test public void testbuild() throws IOException {
+      File file = write("3\n1\tApe\n3\tapp\n2\tbat\n", false);
+      Autocomplete.Autocompletor trie = DictionaryLoader.build(file, "TrieAutocomplete", true);
+      Assert.assertEquals(Arrays.asList("app", "ape"), trie.topMatches("a", 5));
+      Autocomplete.Autocompletor concurrent = DictionaryLoader.build(file, "ConcurrentTrieAutocomplete", false);
+      Assert.assertTrue(concurrent instanceof ConcurrentTrieAutocomplete);
+      Assert.assertEquals(Arrays.asList("app"), concurrent.topMatches("a", 5));
+      Assert.assertEquals("Ape", concurrent.topMatch("A"));
+   }
+}
@@ -0,0 +1,676 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements Autocompletor over a minimal acyclic finite-state transducer:
+ * a trie whose equivalent subtries are merged, so terms share suffixes as
+ * well as prefixes, and whose arcs carry outputs from which each term's
+ * weight is summed.
+ *
+ * Weights become costs: the distinct weights are sorted in descending order
+ * and a term's cost is the position of its weight, so the heaviest terms cost
+ * 0 and every sum is an exact int. The outputs are pushed towards the root as
+ * far as they go, so an arc's output plus the costs before it is the cost of
+ * the cheapest term through that arc, the analogue of the subtree maximum
+ * weight TrieAutocomplete keeps in each node. topMatches walks the prefix and
+ * then runs the same best-first search as TrieAutocomplete, in which a
+ * state's key is the exact cost of the best term below it, so terms come out
+ * heaviest first. topMatch just follows zero-output arcs.
+ *
+ * The transducer is built from the terms in sorted order, freezing each node
+ * once no later term can reach it and replacing it with an equal frozen node
+ * if there is one, and is held in a few primitive arrays. toByteArray and
+ * fromByteArray save and restore them, laid out big-endian as
+ *
+ *   int     MAGIC
+ *   int     VERSION
+ *   int     terms, nodes, arcs, weights, root
+ *   double  weights[weights]    distinct weights in descending order
+ *   int     arcStart[nodes + 1] first arc of each node, then the arc count
+ *   int     finals[nodes]       final output of each node, -1 if not final
+ *   char    labels[arcs]        in increasing order within a node
+ *   int     targets[arcs]
+ *   int     outputs[arcs]
+ *
+ */
+public class FstAutocomplete implements Autocomplete.Autocompletor {
+
+   public static final int MAGIC = 0x46535431; // "FST1"
+   public static final int VERSION = 1;
+
+   private final int mySize;
+   private final int myRoot;
+   private final double[] myWeights;
+   private final int[] myArcStart;
+   private final int[] myFinals;
+   private final char[] myLabels;
+   private final int[] myTargets;
+   private final int[] myOutputs;
+
+	/**
+	 * Builds the transducer; terms already in String order are not sorted
+	 * again.
+	 *
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @throws NullPointerException
+	 *             if either argument or any term is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or a term is duplicated
+	 */
+   public FstAutocomplete(String[] terms, double[] weights) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      boolean sorted = true;
+      for (int i = 0; i < terms.length; i++) {
+         if (terms[i] == null)
+            throw new NullPointerException("One or more arguments null");
+         if (weights[i] < 0)
+            throw new IllegalArgumentException("Negative weight "+ weights[i]);
+         if (i > 0 && sorted && terms[i - 1].compareTo(terms[i]) >= 0)
+            sorted = false;
+      }
+      Integer[] order = new Integer[terms.length];
+      for (int i = 0; i < order.length; i++)
+         order[i] = i;
+      if (!sorted)
+         Arrays.sort(order, (a, b) -> terms[a].compareTo(terms[b]));
+      double[] distinct = weights.clone();
+      Arrays.sort(distinct);
+      int count = 0;
+      for (int i = 0; i < distinct.length; i++) {
+         if (count == 0 || distinct[i] != distinct[count - 1])
+            distinct[count++] = distinct[i];
+      }
+      myWeights = new double[count];
+      for (int i = 0; i < count; i++)
+         myWeights[i] = distinct[count - 1 - i];
+      Builder builder = new Builder();
+      for (int i = 0; i < order.length; i++) {
+         String term = terms[order[i]];
+         if (i > 0 && term.equals(terms[order[i - 1]]))
+            throw new IllegalArgumentException("Duplicate input terms");
+         builder.add(term, count - 1 - Arrays.binarySearch(distinct, 0, count, weights[order[i]]));
+      }
+      myRoot = builder.finish();
+      mySize = terms.length;
+      myArcStart = Arrays.copyOf(builder.myArcStart, builder.myNodes + 1);
+      myFinals = Arrays.copyOf(builder.myFinals, builder.myNodes);
+      myLabels = Arrays.copyOf(builder.myLabels, builder.myArcs);
+      myTargets = Arrays.copyOf(builder.myTargets, builder.myArcs);
+      myOutputs = Arrays.copyOf(builder.myOutputs, builder.myArcs);
+   }
+
+   private FstAutocomplete(int size, int root, double[] weights, int[] arcStart, int[] finals, char[] labels,
+         int[] targets, int[] outputs) {
+      mySize = size;
+      myRoot = root;
+      myWeights = weights;
+      myArcStart = arcStart;
+      myFinals = finals;
+      myLabels = labels;
+      myTargets = targets;
+      myOutputs = outputs;
+   }
+
+	/**
+	 * Returns the transducer in the format described above.
+	 */
+   public byte[] toByteArray() {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(40 + (int) sizeInBytes());
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+         out.writeInt(MAGIC);
+         out.writeInt(VERSION);
+         out.writeInt(mySize);
+         out.writeInt(myFinals.length);
+         out.writeInt(myLabels.length);
+         out.writeInt(myWeights.length);
+         out.writeInt(myRoot);
+         for (double weight : myWeights)
+            out.writeDouble(weight);
+         for (int start : myArcStart)
+            out.writeInt(start);
+         for (int output : myFinals)
+            out.writeInt(output);
+         for (char label : myLabels)
+            out.writeChar(label);
+         for (int target : myTargets)
+            out.writeInt(target);
+         for (int output : myOutputs)
+            out.writeInt(output);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      return bytes.toByteArray();
+   }
+
+	/**
+	 * Restores a transducer saved by toByteArray, checking everything the
+	 * searches rely on: weights in strictly descending order, labels in
+	 * increasing order within each node, every final output and arc output
+	 * a cost in [0, weights), no cycles (so every search ends), every term's
+	 * cost below the number of weights, outputs pushed as far towards the
+	 * root as they go (so topMatch's walk along zero outputs ends at a
+	 * term), and as many terms as the header says.
+	 *
+	 * @throws NullPointerException
+	 *             if bytes is null
+	 * @throws IllegalArgumentException
+	 *             if bytes is not a transducer of this version, or is
+	 *             truncated or inconsistent
+	 */
+   public static FstAutocomplete fromByteArray(byte[] bytes) {
+      if (bytes == null)
+         throw new NullPointerException("One or more arguments null");
+      try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+         if (bytes.length < 28 || in.readInt() != MAGIC)
+            throw new IllegalArgumentException("Not a serialized FstAutocomplete");
+         int version = in.readInt();
+         if (version != VERSION)
+            throw new IllegalArgumentException("Unsupported version " + version);
+         int size = in.readInt(), nodes = in.readInt(), arcs = in.readInt(), count = in.readInt();
+         int root = in.readInt();
+         if (size < 0 || nodes < 1 || arcs < 0 || count < 0 || root < 0 || root >= nodes
+               || 28 + 8L * count + 8L * nodes + 4 + 10L * arcs != bytes.length)
+            throw new IllegalArgumentException("Inconsistent FstAutocomplete header");
+         double[] weights = new double[count];
+         for (int i = 0; i < count; i++) {
+            weights[i] = in.readDouble();
+            if (!(weights[i] >= 0) || i > 0 && !(weights[i] < weights[i - 1]))
+               throw new IllegalArgumentException("Inconsistent FstAutocomplete weights");
+         }
+         int[] arcStart = new int[nodes + 1];
+         for (int i = 0; i <= nodes; i++) {
+            arcStart[i] = in.readInt();
+            if (arcStart[i] < (i == 0 ? 0 : arcStart[i - 1]) || arcStart[i] > arcs || i == nodes && arcStart[i] != arcs)
+               throw new IllegalArgumentException("Inconsistent FstAutocomplete arcs");
+         }
+         int[] finals = new int[nodes];
+         for (int i = 0; i < nodes; i++) {
+            finals[i] = in.readInt();
+            if (finals[i] < -1 || finals[i] >= count)
+               throw new IllegalArgumentException("Inconsistent FstAutocomplete finals");
+         }
+         char[] labels = new char[arcs];
+         int[] targets = new int[arcs];
+         int[] outputs = new int[arcs];
+         for (int i = 0; i < arcs; i++)
+            labels[i] = in.readChar();
+         for (int node = 0; node < nodes; node++) {
+            for (int i = arcStart[node]; i < arcStart[node + 1]; i++) {
+               targets[i] = in.readInt();
+               if (targets[i] < 0 || targets[i] >= nodes || targets[i] == node
+                     || i > arcStart[node] && labels[i] <= labels[i - 1])
+                  throw new IllegalArgumentException("Inconsistent FstAutocomplete arcs");
+            }
+         }
+         for (int i = 0; i < arcs; i++) {
+            outputs[i] = in.readInt();
+            if (outputs[i] < 0 || outputs[i] >= count)
+               throw new IllegalArgumentException("Inconsistent FstAutocomplete outputs");
+         }
+         checkPaths(size, root, count, arcStart, finals, targets, outputs);
+         return new FstAutocomplete(size, root, weights, arcStart, finals, labels, targets, outputs);
+      } catch (IOException e) {
+         throw new IllegalArgumentException("Truncated FstAutocomplete", e);
+      }
+   }
+
+	/**
+	 * Checks the paths of a restored transducer: orders the nodes so every
+	 * arc leads to a later one, failing if there is a cycle, then, from the
+	 * last node back, finds each node's costliest term and number of terms,
+	 * and checks that the cheapest way on from every node but an empty root
+	 * costs nothing.
+	 */
+   private static void checkPaths(int size, int root, int count, int[] arcStart, int[] finals, int[] targets,
+         int[] outputs) {
+      int nodes = finals.length;
+      int[] incoming = new int[nodes];
+      for (int target : targets)
+         incoming[target]++;
+      int[] order = new int[nodes];
+      int ordered = 0;
+      for (int node = 0; node < nodes; node++) {
+         if (incoming[node] == 0)
+            order[ordered++] = node;
+      }
+      for (int i = 0; i < ordered; i++) {
+         int node = order[i];
+         for (int arc = arcStart[node]; arc < arcStart[node + 1]; arc++) {
+            if (--incoming[targets[arc]] == 0)
+               order[ordered++] = targets[arc];
+         }
+      }
+      if (ordered < nodes)
+         throw new IllegalArgumentException("Cyclic FstAutocomplete arcs");
+      long[] maxCost = new long[nodes];
+      long[] terms = new long[nodes];
+      for (int i = nodes - 1; i >= 0; i--) {
+         int node = order[i];
+         long max = finals[node];
+         long least = finals[node] < 0 ? Long.MAX_VALUE : finals[node];
+         long below = finals[node] < 0 ? 0 : 1;
+         for (int arc = arcStart[node]; arc < arcStart[node + 1]; arc++) {
+            max = Math.max(max, outputs[arc] + maxCost[targets[arc]]);
+            least = Math.min(least, outputs[arc]);
+            below = Math.min(below + terms[targets[arc]], Integer.MAX_VALUE + 1L);
+         }
+         if (least != 0 && !(node == root && least == Long.MAX_VALUE))
+            throw new IllegalArgumentException("Inconsistent FstAutocomplete outputs");
+         maxCost[node] = max;
+         terms[node] = below;
+      }
+      if (maxCost[root] >= count || terms[root] != size)
+         throw new IllegalArgumentException("Inconsistent FstAutocomplete terms");
+   }
+
+	/**
+	 * Returns the arc of node labelled ch, or -1 if there is none.
+	 */
+   private int findArc(int node, char ch) {
+      int beg = myArcStart[node], end = myArcStart[node + 1] - 1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         if (myLabels[mid] < ch)
+            beg = mid + 1;
+         else if (myLabels[mid] > ch)
+            end = mid - 1;
+         else
+            return mid;
+      }
+      return -1;
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words with the
+	 * largest weight which start with prefix, in descending weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      return Autocomplete.wordsOf(topTerms(prefix, k));
+   }
+
+	/**
+	 * The same as topMatches, returning each word with its weight.
+	 */
+   public Iterable<Term> topMatchesWithWeights(String prefix, int k) {
+      return topTerms(prefix, k);
+   }
+
+	/**
+	 * Walks prefix and searches best-first below it. Each search state is a
+	 * node reached by some path, kept in the parallel node, parent, label and
+	 * cost arrays and keyed in the heap by its negated cost; a state with node
+	 * -1 stands for the term ending at its parent. Popping a node state pushes
+	 * its final term, if any, and its children, each costed by its output, so
+	 * states are popped in order of the cheapest term below them.
+	 */
+   private List<Term> topTerms(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      List<Term> ret = new ArrayList<Term>();
+      if (k == 0)
+         return ret;
+      int node = myRoot, cost = 0;
+      for (int i = 0; i < prefix.length(); i++) {
+         int arc = findArc(node, prefix.charAt(i));
+         if (arc < 0)
+            return ret;
+         cost += myOutputs[arc];
+         node = myTargets[arc];
+      }
+      int capacity = 64;
+      int[] nodes = new int[capacity];
+      int[] parents = new int[capacity];
+      char[] labels = new char[capacity];
+      int[] costs = new int[capacity];
+      nodes[0] = node;
+      parents[0] = -1;
+      costs[0] = cost;
+      int states = 1;
+      IndexMaxHeap pq = new IndexMaxHeap();
+      pq.add(0, -cost);
+      while (!pq.isEmpty() && ret.size() < k) {
+         int s = pq.remove();
+         if (nodes[s] < 0) {
+            ret.add(new Term(prefix + pathTo(parents[s], parents, labels), myWeights[costs[s]]));
+            continue;
+         }
+         int n = nodes[s];
+         int first = myArcStart[n], last = myArcStart[n + 1];
+         if (states + 1 + last - first > capacity) {
+            capacity = Math.max(capacity * 2, states + 1 + last - first);
+            nodes = Arrays.copyOf(nodes, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+         }
+         if (myFinals[n] >= 0) {
+            nodes[states] = -1;
+            parents[states] = s;
+            costs[states] = costs[s] + myFinals[n];
+            pq.add(states, -costs[states]);
+            states++;
+         }
+         for (int arc = first; arc < last; arc++) {
+            nodes[states] = myTargets[arc];
+            parents[states] = s;
+            labels[states] = myLabels[arc];
+            costs[states] = costs[s] + myOutputs[arc];
+            pq.add(states, -costs[states]);
+            states++;
+         }
+      }
+      return ret;
+   }
+
+	/**
+	 * Returns the labels on the path from the search's first state to s.
+	 */
+   private static String pathTo(int s, int[] parents, char[] labels) {
+      int depth = 0;
+      for (int t = s; parents[t] >= 0; t = parents[t])
+         depth++;
+      char[] path = new char[depth];
+      for (int t = s; parents[t] >= 0; t = parents[t])
+         path[--depth] = labels[t];
+      return new String(path);
+   }
+
+	/**
+	 * Returns the largest-weight word starting with prefix, or an empty
+	 * String if there is none, by following zero-output arcs below prefix.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      int node = myRoot;
+      for (int i = 0; i < prefix.length(); i++) {
+         int arc = findArc(node, prefix.charAt(i));
+         if (arc < 0)
+            return "";
+         node = myTargets[arc];
+      }
+      if (myFinals[node] < 0 && myArcStart[node] == myArcStart[node + 1])
+         return "";
+      StringBuilder word = new StringBuilder(prefix);
+      while (myFinals[node] != 0) {
+         int arc = myArcStart[node];
+         while (myOutputs[arc] != 0)
+            arc++;
+         word.append(myLabels[arc]);
+         node = myTargets[arc];
+      }
+      return word.toString();
+   }
+
+	/**
+	 * Return the weight of a given term, or 0.0 if it is not in the
+	 * dictionary. An exact match wins; otherwise the first term in String
+	 * order equal to term ignoring case, as String.equalsIgnoreCase compares.
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      int node = myRoot, cost = 0;
+      for (int i = 0; i < term.length() && node >= 0; i++) {
+         int arc = findArc(node, term.charAt(i));
+         cost += arc < 0 ? 0 : myOutputs[arc];
+         node = arc < 0 ? -1 : myTargets[arc];
+      }
+      if (node < 0 || myFinals[node] < 0)
+         cost = foldedCost(myRoot, term, 0, 0);
+      else
+         cost += myFinals[node];
+      return cost < 0 ? 0.0 : myWeights[cost];
+   }
+
+	/**
+	 * Returns the cost of the first term below node whose rest equals
+	 * term[i..] ignoring case, given the cost so far, or -1 if there is none.
+	 */
+   private int foldedCost(int node, String term, int i, int cost) {
+      if (i == term.length())
+         return myFinals[node] < 0 ? -1 : cost + myFinals[node];
+      char ch = term.charAt(i);
+      char upper = Character.toUpperCase(ch), lower = Character.toLowerCase(ch);
+      for (int arc = myArcStart[node]; arc < myArcStart[node + 1]; arc++) {
+         char label = myLabels[arc];
+         if (label == ch || Character.toUpperCase(label) == upper || Character.toLowerCase(label) == lower) {
+            int found = foldedCost(myTargets[arc], term, i + 1, cost + myOutputs[arc]);
+            if (found >= 0)
+               return found;
+         }
+      }
+      return -1;
+   }
+
+	/**
+	 * Returns the number of terms.
+	 */
+   public int size() {
+      return mySize;
+   }
+
+   public int nodeCount() {
+      return myFinals.length;
+   }
+
+   public int arcCount() {
+      return myLabels.length;
+   }
+
+	/**
+	 * Returns the number of bytes used by the transducer's arrays.
+	 */
+   public long sizeInBytes() {
+      long nodes = myFinals.length, arcs = myLabels.length;
+      return 8L * myWeights.length + 4 * (nodes + 1) + 4 * nodes + 10 * arcs;
+   }
+
+	/**
+	 * Builds the transducer from terms added in increasing order. The
+	 * frontier holds the unfrozen nodes along the last term added, whose last
+	 * arcs lead to the next frontier node; every other arc leads to a frozen
+	 * node. Frozen nodes are appended to the same arrays the transducer uses
+	 * and found again through an open-addressing table of node ids.
+	 */
+   private static class Builder {
+      int[] myArcStart = new int[16];
+      int[] myFinals = new int[16];
+      char[] myLabels = new char[16];
+      int[] myTargets = new int[16];
+      int[] myOutputs = new int[16];
+      int myNodes, myArcs;
+      int[] myTable = new int[16];
+      Frontier[] myFrontier = new Frontier[] {new Frontier()};
+      String myPrevious;
+
+      void add(String term, int cost) {
+         int prefix = 0;
+         if (myPrevious != null) {
+            int max = Math.min(myPrevious.length(), term.length());
+            while (prefix < max && myPrevious.charAt(prefix) == term.charAt(prefix))
+               prefix++;
+            freezeBelow(prefix);
+         }
+         if (myFrontier.length <= term.length()) {
+            int old = myFrontier.length;
+            myFrontier = Arrays.copyOf(myFrontier, term.length() + 1);
+            for (int d = old; d < myFrontier.length; d++)
+               myFrontier[d] = new Frontier();
+         }
+         int output = cost;
+         for (int d = 0; d < prefix; d++) {
+            Frontier node = myFrontier[d];
+            int last = node.myCount - 1;
+            int common = Math.min(node.myOutputs[last], output);
+            if (node.myOutputs[last] > common)
+               myFrontier[d + 1].prepend(node.myOutputs[last] - common);
+            node.myOutputs[last] = common;
+            output -= common;
+         }
+         for (int d = prefix; d < term.length(); d++)
+            myFrontier[d].addArc(term.charAt(d), d == prefix ? output : 0);
+         Frontier end = myFrontier[term.length()];
+         end.myFinal = true;
+         end.myFinalOutput = term.length() == prefix ? output : 0;
+         myPrevious = term;
+      }
+
+	   /**
+	    * Freezes the frontier nodes deeper than depth, deepest first, pointing
+	    * each parent's last arc at the frozen node.
+	    */
+      private void freezeBelow(int depth) {
+         for (int d = myPrevious.length(); d > depth; d--) {
+            Frontier parent = myFrontier[d - 1];
+            parent.myTargets[parent.myCount - 1] = freeze(myFrontier[d]);
+         }
+      }
+
+	   /**
+	    * Freezes the remaining frontier and returns the root.
+	    */
+      int finish() {
+         if (myPrevious != null)
+            freezeBelow(0);
+         return freeze(myFrontier[0]);
+      }
+
+      private int freeze(Frontier node) {
+         int h = node.hash();
+         int mask = myTable.length - 1;
+         int i = h & mask;
+         for (int id = myTable[i]; id != 0; id = myTable[i]) {
+            if (node.equalsFrozen(this, id - 1)) {
+               node.clear();
+               return id - 1;
+            }
+            i = (i + 1) & mask;
+         }
+         int id = myNodes;
+         if (id + 2 > myArcStart.length) {
+            myArcStart = Arrays.copyOf(myArcStart, myArcStart.length * 2);
+            myFinals = Arrays.copyOf(myFinals, myArcStart.length);
+         }
+         if (myArcs + node.myCount > myLabels.length) {
+            int grown = Math.max(myLabels.length * 2, myArcs + node.myCount);
+            myLabels = Arrays.copyOf(myLabels, grown);
+            myTargets = Arrays.copyOf(myTargets, grown);
+            myOutputs = Arrays.copyOf(myOutputs, grown);
+         }
+         myArcStart[id] = myArcs;
+         myFinals[id] = node.myFinal ? node.myFinalOutput : -1;
+         System.arraycopy(node.myLabels, 0, myLabels, myArcs, node.myCount);
+         System.arraycopy(node.myTargets, 0, myTargets, myArcs, node.myCount);
+         System.arraycopy(node.myOutputs, 0, myOutputs, myArcs, node.myCount);
+         myArcs += node.myCount;
+         myNodes++;
+         myArcStart[myNodes] = myArcs;
+         node.clear();
+         if (2 * myNodes > myTable.length)
+            rehash(myTable.length * 2);
+         else
+            myTable[i] = id + 1;
+         return id;
+      }
+
+      private void rehash(int capacity) {
+         myTable = new int[capacity];
+         int mask = capacity - 1;
+         for (int id = 0; id < myNodes; id++) {
+            int i = hash(myFinals[id], myLabels, myTargets, myOutputs, myArcStart[id], myArcStart[id + 1]) & mask;
+            while (myTable[i] != 0)
+               i = (i + 1) & mask;
+            myTable[i] = id + 1;
+         }
+      }
+
+      static int hash(int finalOutput, char[] labels, int[] targets, int[] outputs, int from, int to) {
+         int h = finalOutput;
+         for (int a = from; a < to; a++)
+            h = ((h * 31 + labels[a]) * 31 + targets[a]) * 31 + outputs[a];
+         h *= 0x9E3779B9;
+         return h ^ (h >>> 16);
+      }
+   }
+
+	/**
+	 * A node on the builder's frontier, not yet frozen.
+	 */
+   private static class Frontier {
+      char[] myLabels = new char[4];
+      int[] myTargets = new int[4];
+      int[] myOutputs = new int[4];
+      int myCount;
+      boolean myFinal;
+      int myFinalOutput;
+
+      void addArc(char label, int output) {
+         if (myCount == myLabels.length) {
+            myLabels = Arrays.copyOf(myLabels, myCount * 2);
+            myTargets = Arrays.copyOf(myTargets, myCount * 2);
+            myOutputs = Arrays.copyOf(myOutputs, myCount * 2);
+         }
+         myLabels[myCount] = label;
+         myTargets[myCount] = -1;
+         myOutputs[myCount++] = output;
+      }
+
+	   /**
+	    * Adds output to every path through this node, when it is pushed back
+	    * from the arc leading here.
+	    */
+      void prepend(int output) {
+         for (int a = 0; a < myCount; a++)
+            myOutputs[a] += output;
+         if (myFinal)
+            myFinalOutput += output;
+      }
+
+      int hash() {
+         return Builder.hash(myFinal ? myFinalOutput : -1, myLabels, myTargets, myOutputs, 0, myCount);
+      }
+
+      boolean equalsFrozen(Builder builder, int id) {
+         int from = builder.myArcStart[id];
+         if (builder.myFinals[id] != (myFinal ? myFinalOutput : -1) || builder.myArcStart[id + 1] - from != myCount)
+            return false;
+         for (int a = 0; a < myCount; a++) {
+            if (builder.myLabels[from + a] != myLabels[a] || builder.myTargets[from + a] != myTargets[a]
+                  || builder.myOutputs[from + a] != myOutputs[a])
+               return false;
+         }
+         return true;
+      }
+
+      void clear() {
+         myCount = 0;
+         myFinal = false;
+         myFinalOutput = 0;
+      }
+   }
+}
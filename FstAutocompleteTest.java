@@ -0,0 +1,144 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class FstAutocompleteTest {
+
+   private static final String[] TERMS = {"ape", "app", "ban", "bat", "bee", "car", "cat", "", "caps", "cap"};
+   private static final double[] WEIGHTS = {6, 4, 2, 3, 5, 7, 1, 0.5, 2, 7};
+
+   private static List<Double> weights(Iterable<Term> terms) {
+      List<Double> ret = new ArrayList<Double>();
+      for (Term term : terms)
+         ret.add(term.getWeight());
+      return ret;
+   }
+
+   @Test public void testsmall() {
+      FstAutocomplete fst = new FstAutocomplete(TERMS, WEIGHTS);
+      Assert.assertEquals(Arrays.asList("ape", "app"), fst.topMatches("ap", 5));
+      Assert.assertEquals(Arrays.asList("bee", "bat"), fst.topMatches("b", 2));
+      Assert.assertEquals(Arrays.asList(7.0, 7.0, 2.0, 1.0), weights(fst.topMatchesWithWeights("ca", 5)));
+      Assert.assertEquals(Arrays.asList("cap", "caps"), fst.topMatches("cap", 5));
+      Assert.assertEquals(10, weights(fst.topMatchesWithWeights("", 20)).size());
+      Assert.assertEquals(0.5, weights(fst.topMatchesWithWeights("", 20)).get(9), 0);
+      Assert.assertEquals(new ArrayList<String>(), fst.topMatches("d", 5));
+      Assert.assertEquals(new ArrayList<String>(), fst.topMatches("a", 0));
+      Assert.assertEquals("bee", fst.topMatch("b"));
+      Assert.assertEquals("", fst.topMatch("d"));
+      Assert.assertEquals("", fst.topMatch("cats"));
+      Assert.assertEquals(2, fst.weightOf("caps"), 0);
+      Assert.assertEquals(3, fst.weightOf("BaT"), 0);
+      Assert.assertEquals(0.5, fst.weightOf(""), 0);
+      Assert.assertEquals(0, fst.weightOf("ca"), 0);
+      Assert.assertEquals(10, fst.size());
+   }
+
+   @Test public void testsharedsuffixes() {
+      FstAutocomplete fst = new FstAutocomplete(new String[]{"walking", "talking", "balking"}, new double[]{1, 1, 1});
+      Assert.assertEquals(8, fst.nodeCount());
+      Assert.assertEquals(9, fst.arcCount());
+   }
+
+   @Test public void testagainstsparsetable() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(5000, 37);
+      SparseTableAutocomplete expected = new SparseTableAutocomplete(dictionary.getTerms(), dictionary.getWeights());
+      FstAutocomplete fst = new FstAutocomplete(dictionary.getTerms(), dictionary.getWeights());
+      FstAutocomplete copy = FstAutocomplete.fromByteArray(fst.toByteArray());
+      Assert.assertEquals(fst.sizeInBytes() + 28, fst.toByteArray().length);
+      Random random = new Random(8);
+      for (int length = 0; length <= 3; length++) {
+         for (String prefix : dictionary.samplePrefixes(30, length, random)) {
+            List<Double> want = weights(expected.topMatchesWithWeights(prefix, 9));
+            Assert.assertEquals(want, weights(fst.topMatchesWithWeights(prefix, 9)));
+            Assert.assertEquals(fst.topMatches(prefix, 9), copy.topMatches(prefix, 9));
+            Assert.assertEquals(expected.weightOf(expected.topMatch(prefix)), fst.weightOf(fst.topMatch(prefix)), 0);
+            for (Term term : fst.topMatchesWithWeights(prefix, 9)) {
+               Assert.assertTrue(term.getWord().startsWith(prefix));
+               Assert.assertEquals(expected.weightOf(term.getWord()), copy.weightOf(term.getWord()), 0);
+            }
+         }
+      }
+   }
+
+   @Test public void testfrombytearray() {
+      byte[] bytes = new FstAutocomplete(TERMS, WEIGHTS).toByteArray();
+      try {
+         FstAutocomplete.fromByteArray(Arrays.copyOf(bytes, bytes.length - 1));
+         Assert.fail("accepted a truncated array");
+      } catch (IllegalArgumentException e) {
+      }
+      bytes[0] = 0;
+      try {
+         FstAutocomplete.fromByteArray(bytes);
+         Assert.fail("accepted a bad magic number");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   /*
+    * Rewrites one int of a serialized transducer. Section is 0 for the
+    * header, then 1 for arcStart, 2 finals, 3 targets and 4 outputs.
+    */
+   private static byte[] patch(byte[] bytes, int section, int index, int value) {
+      java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(bytes.clone());
+      int nodes = buffer.getInt(12), arcs = buffer.getInt(16), count = buffer.getInt(20);
+      int[] starts = {0, 28 + 8 * count, 28 + 8 * count + 4 * (nodes + 1), 0, 0};
+      starts[3] = starts[2] + 4 * nodes + 2 * arcs;
+      starts[4] = starts[3] + 4 * arcs;
+      buffer.putInt(starts[section] + 4 * index, value);
+      return buffer.array();
+   }
+
+   /*
+    * Returns the arc labelled ch, and the node it leaves, of a serialized
+    * transducer.
+    */
+   private static int[] arcOf(byte[] bytes, char ch) {
+      java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(bytes);
+      int nodes = buffer.getInt(12), arcs = buffer.getInt(16), count = buffer.getInt(20);
+      int labels = 28 + 8 * count + 4 * (nodes + 1) + 4 * nodes;
+      for (int arc = 0; arc < arcs; arc++) {
+         if (buffer.getChar(labels + 2 * arc) == ch) {
+            int node = 0;
+            while (buffer.getInt(28 + 8 * count + 4 * (node + 1)) <= arc)
+               node++;
+            return new int[]{arc, node};
+         }
+      }
+      throw new IllegalStateException("no arc " + ch);
+   }
+
+   private static void assertRejected(byte[] bytes, String what) {
+      try {
+         FstAutocomplete.fromByteArray(bytes);
+         Assert.fail("accepted " + what);
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   @Test public void testinconsistentbytearray() {
+      // a chain x -> y -> z, costs 0, 1, 2, whose arcs y and z output 1
+      byte[] bytes = new FstAutocomplete(new String[]{"x", "xy", "xyz"}, new double[]{3, 2, 1}).toByteArray();
+      Assert.assertEquals(Arrays.asList("x", "xy", "xyz"), FstAutocomplete.fromByteArray(bytes).topMatches("", 5));
+      int[] x = arcOf(bytes, 'x'), y = arcOf(bytes, 'y'), z = arcOf(bytes, 'z');
+      assertRejected(patch(bytes, 2, y[1], 3), "a final output past the weights");
+      assertRejected(patch(bytes, 2, y[1], -2), "a final output below -1");
+      assertRejected(patch(bytes, 4, y[0], -1), "a negative arc output");
+      assertRejected(patch(bytes, 4, y[0], 3), "an arc output past the weights");
+      assertRejected(patch(bytes, 3, y[0], y[1]), "an arc to its own node");
+      assertRejected(patch(bytes, 3, z[0], x[1]), "a cycle");
+      assertRejected(patch(bytes, 4, z[0], 2), "a term costing more than the weights");
+      assertRejected(patch(bytes, 4, x[0], 1), "outputs not pushed to the root");
+      assertRejected(patch(bytes, 0, 2, 4), "the wrong number of terms");
+   }
+
+   @Test public void testduplicates() {
+      try {
+         new FstAutocomplete(new String[]{"b", "a", "b"}, new double[]{1, 2, 3});
+         Assert.fail("accepted a duplicate term");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+}
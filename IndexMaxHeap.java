@@ -0,0 +1,116 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary max-heap of int values ordered by a double key, backed by two
+ * parallel primitive arrays. Used by the array-based Autocompletors so that
+ * best-first searches do not box node or term indices into objects.
+ *
+ * A heap can be cleared and reused between queries; its arrays only grow.
+ *
+ */
+public class IndexMaxHeap {
+
+   private int[] myValues;
+   private double[] myKeys;
+   private int mySize;
+
+   public IndexMaxHeap() {
+      this(16);
+   }
+
+   public IndexMaxHeap(int capacity) {
+      capacity = Math.max(capacity, 1);
+      myValues = new int[capacity];
+      myKeys = new double[capacity];
+   }
+
+   public int size() {
+      return mySize;
+   }
+
+   public boolean isEmpty() {
+      return mySize == 0;
+   }
+
+   public void clear() {
+      mySize = 0;
+   }
+
+	/**
+	 * Adds value to the heap with the given key.
+	 */
+   public void add(int value, double key) {
+      if (mySize == myValues.length) {
+         myValues = Arrays.copyOf(myValues, mySize * 2);
+         myKeys = Arrays.copyOf(myKeys, mySize * 2);
+      }
+      int i = mySize++;
+      while (i > 0) {
+         int parent = (i - 1) >>> 1;
+         if (myKeys[parent] >= key)
+            break;
+         myValues[i] = myValues[parent];
+         myKeys[i] = myKeys[parent];
+         i = parent;
+      }
+      myValues[i] = value;
+      myKeys[i] = key;
+   }
+
+	/**
+	 * Returns the key of the largest entry without removing it.
+	 *
+	 * @throws NoSuchElementException
+	 *             if the heap is empty
+	 */
+   public double peekKey() {
+      if (mySize == 0)
+         throw new NoSuchElementException();
+      return myKeys[0];
+   }
+
+	/**
+	 * Returns the value of the largest entry without removing it.
+	 *
+	 * @throws NoSuchElementException
+	 *             if the heap is empty
+	 */
+   public int peek() {
+      if (mySize == 0)
+         throw new NoSuchElementException();
+      return myValues[0];
+   }
+
+	/**
+	 * Removes the largest entry and returns its value.
+	 *
+	 * @throws NoSuchElementException
+	 *             if the heap is empty
+	 */
+   public int remove() {
+      if (mySize == 0)
+         throw new NoSuchElementException();
+      int result = myValues[0];
+      mySize--;
+      if (mySize > 0) {
+         int value = myValues[mySize];
+         double key = myKeys[mySize];
+         int i = 0;
+         int half = mySize >>> 1;
+         while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < mySize && myKeys[child + 1] > myKeys[child])
+               child++;
+            if (key >= myKeys[child])
+               break;
+            myValues[i] = myValues[child];
+            myKeys[i] = myKeys[child];
+            i = child;
+         }
+         myValues[i] = value;
+         myKeys[i] = key;
+      }
+      return result;
+   }
+}
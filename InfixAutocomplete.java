@@ -0,0 +1,278 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Implements Autocompletor for prefixes of any word of a multi-word term, not
+ * only of its first: "york" finds "new york city".
+ *
+ * Every token start of every term (its first character, and every letter or
+ * digit that follows a character that is neither) is an entry, and the
+ * entries are sorted by the rest of the term from that point on, like a
+ * suffix array restricted to word boundaries. The entries whose suffix starts
+ * with a prefix form one range, found by binary search, and a RangeMaxIndex
+ * over the entries' weights finds the heaviest entries of the range as in
+ * SparseTableAutocomplete. A term with several matching tokens has several
+ * entries in the range; only the first, heaviest-first, is returned.
+ *
+ * Matching is case-sensitive, as in the prefix-only engines, and a prefix may
+ * run across tokens ("york ci").
+ *
+ */
+public class InfixAutocomplete implements Autocomplete.Autocompletor {
+
+	/**
+	 * The terms in input order; term ids are indices into these arrays.
+	 */
+   final String[] myWords;
+   final double[] myWeights;
+
+	/**
+	 * Entry e is the suffix of myWords[myTerms[e]] starting at myOffsets[e];
+	 * entries are sorted by suffix and myEntryWeights[e] is the term's weight.
+	 */
+   final int[] myTerms;
+   final int[] myOffsets;
+   final double[] myEntryWeights;
+
+	/**
+	 * The range-maximum index over myEntryWeights.
+	 */
+   final RangeMaxIndex myRangeMax;
+
+   private final TermIndex myIndex;
+
+	/**
+	 * @param terms
+	 *            - The terms we will autocomplete from, each of one or more
+	 *            words
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @throws NullPointerException
+	 *             if either argument or any term is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or a term is duplicated
+	 */
+   public InfixAutocomplete(String[] terms, double[] weights) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      HashSet<String> seen = new HashSet<String>();
+      int entries = 0;
+      for (int i = 0; i < terms.length; i++) {
+         if (terms[i] == null)
+            throw new NullPointerException("One or more arguments null");
+         if (weights[i] < 0)
+            throw new IllegalArgumentException("Negative weight " + weights[i]);
+         if (!seen.add(terms[i]))
+            throw new IllegalArgumentException("Duplicate input terms");
+         for (int j = 0; j < terms[i].length(); j++) {
+            if (isTokenStart(terms[i], j))
+               entries++;
+         }
+      }
+      seen = null;
+      myWords = terms.clone();
+      myWeights = weights.clone();
+      Integer[] order = new Integer[entries];
+      int[] termOf = new int[entries];
+      int[] offsetOf = new int[entries];
+      int e = 0;
+      for (int i = 0; i < terms.length; i++) {
+         for (int j = 0; j < terms[i].length(); j++) {
+            if (isTokenStart(terms[i], j)) {
+               order[e] = e;
+               termOf[e] = i;
+               offsetOf[e++] = j;
+            }
+         }
+      }
+      Arrays.parallelSort(order, (a, b) -> compareSuffixes(termOf[a], offsetOf[a], termOf[b], offsetOf[b]));
+      myTerms = new int[entries];
+      myOffsets = new int[entries];
+      myEntryWeights = new double[entries];
+      for (e = 0; e < entries; e++) {
+         myTerms[e] = termOf[order[e]];
+         myOffsets[e] = offsetOf[order[e]];
+         myEntryWeights[e] = myWeights[myTerms[e]];
+      }
+      myRangeMax = new RangeMaxIndex(myEntryWeights);
+      myIndex = new TermIndex(myWords, myWeights);
+   }
+
+	/**
+	 * Returns whether a token starts at position i of term: the first
+	 * character, or a letter or digit after a character that is neither.
+	 */
+   static boolean isTokenStart(String term, int i) {
+      return i == 0 || Character.isLetterOrDigit(term.charAt(i)) && !Character.isLetterOrDigit(term.charAt(i - 1));
+   }
+
+   private int compareSuffixes(int a, int aOffset, int b, int bOffset) {
+      String x = myWords[a], y = myWords[b];
+      int length = Math.min(x.length() - aOffset, y.length() - bOffset);
+      for (int i = 0; i < length; i++) {
+         int diff = x.charAt(aOffset + i) - y.charAt(bOffset + i);
+         if (diff != 0)
+            return diff;
+      }
+      return (x.length() - aOffset) - (y.length() - bOffset);
+   }
+
+	/**
+	 * Compares the suffix of entry e with prefix as Autocomplete.comparePrefix
+	 * compares a word: 0 if the suffix starts with prefix.
+	 */
+   private int comparePrefix(int e, CharSequence prefix) {
+      String word = myWords[myTerms[e]];
+      int offset = myOffsets[e];
+      int length = Math.min(word.length() - offset, prefix.length());
+      for (int i = 0; i < length; i++) {
+         int diff = word.charAt(offset + i) - prefix.charAt(i);
+         if (diff != 0)
+            return diff;
+      }
+      return word.length() - offset < prefix.length() ? -1 : 0;
+   }
+
+	/**
+	 * Returns the first (or, if last, the last) entry whose suffix starts with
+	 * prefix, or -1 if there is none.
+	 */
+   int indexOf(CharSequence prefix, boolean last) {
+      int beg = 0, end = myTerms.length - 1;
+      int index = -1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         int cmp = comparePrefix(mid, prefix);
+         if (cmp == 0) {
+            index = mid;
+            if (last)
+               beg = mid + 1;
+            else
+               end = mid - 1;
+         } else if (cmp < 0) {
+            beg = mid + 1;
+         } else {
+            end = mid - 1;
+         }
+      }
+      return index;
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k terms with the
+	 * largest weight which have a word starting with prefix, in descending
+	 * weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      int[] ids = topIds(prefix, k);
+      List<String> ret = new ArrayList<String>(ids.length);
+      for (int id : ids)
+         ret.add(myWords[id]);
+      return ret;
+   }
+
+	/**
+	 * The same as topMatches, returning each term with its weight.
+	 */
+   public Iterable<Term> topMatchesWithWeights(String prefix, int k) {
+      int[] ids = topIds(prefix, k);
+      List<Term> ret = new ArrayList<Term>(ids.length);
+      for (int id : ids)
+         ret.add(new Term(myWords[id], myWeights[id]));
+      return ret;
+   }
+
+	/**
+	 * Returns the ids of the (at most) k heaviest distinct terms with an
+	 * entry starting with prefix, in descending weight order.
+	 *
+	 * The heap holds sub-ranges of entries keyed by the weight of their
+	 * heaviest entry, whose bounds and position sit in the calling thread's
+	 * scratch lo, hi and max. Each pop emits its entry's term unless an
+	 * earlier entry already has, as recorded in the scratch id set, and
+	 * pushes the sub-ranges on either side.
+	 */
+   private int[] topIds(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      int f = indexOf(prefix, false);
+      if (f < 0 || k == 0)
+         return new int[0];
+      int l = indexOf(prefix, true);
+      int[] out = new int[Math.min(k, l - f + 1)];
+      MatchBuffer.Scratch scratch = MatchBuffer.scratch();
+      scratch.ensure(2 * out.length + 1);
+      scratch.clearSeen(out.length);
+      IndexMaxHeap pq = scratch.myHeap;
+      pq.clear();
+      int slots = myRangeMax.push(f, l, 0, scratch.myLo, scratch.myHi, scratch.myMax, pq);
+      int found = 0;
+      while (!pq.isEmpty() && found < out.length) {
+         int r = pq.remove();
+         int m = scratch.myMax[r];
+         if (scratch.addSeen(myTerms[m]))
+            out[found++] = myTerms[m];
+         // entries of already emitted terms do not count towards k, so the
+         // slots can outrun 2 * k + 1
+         scratch.ensure(slots + 2);
+         int[] lo = scratch.myLo, hi = scratch.myHi, max = scratch.myMax;
+         if (m > lo[r])
+            slots = myRangeMax.push(lo[r], m - 1, slots, lo, hi, max, pq);
+         if (m < hi[r])
+            slots = myRangeMax.push(m + 1, hi[r], slots, lo, hi, max, pq);
+      }
+      return found == out.length ? out : Arrays.copyOf(out, found);
+   }
+
+	/**
+	 * Returns the largest-weight term with a word starting with prefix, or an
+	 * empty String if there is none.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      int f = indexOf(prefix, false);
+      if (f < 0)
+         return "";
+      return myWords[myTerms[myRangeMax.argMax(f, indexOf(prefix, true))]];
+   }
+
+	/**
+	 * Return the weight of a given term, ignoring case. If term is not in the
+	 * dictionary, return 0.0
+	 */
+   public double weightOf(String term) {
+      return myIndex.weightOf(term);
+   }
+
+	/**
+	 * Returns the number of token entries indexed.
+	 */
+   public int entryCount() {
+      return myTerms.length;
+   }
+
+	/**
+	 * Returns an estimate of the memory held by the term and entry arrays and
+	 * the sparse table, not counting the Strings themselves or the weightOf
+	 * index, on the same basis as SparseTableAutocomplete.sizeInBytes.
+	 */
+   public long sizeInBytes() {
+      return 12L * myWords.length + 16L * myTerms.length + myRangeMax.sizeInBytes();
+   }
+}
@@ -0,0 +1,66 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class InfixAutocompleteTest {
+
+   @Test public void testtokens() {
+      String[] terms = new String[]{"new york city", "york", "new jersey", "yorkshire pudding", "old new york"};
+      InfixAutocomplete n = new InfixAutocomplete(terms, new double[]{9, 5, 7, 3, 1});
+      Assert.assertEquals(Arrays.asList("new york city", "york", "yorkshire pudding", "old new york"), n.topMatches("york", 10));
+      Assert.assertEquals(Arrays.asList("new york city", "new jersey", "old new york"), n.topMatches("new", 10));
+      Assert.assertEquals(Arrays.asList("new york city", "old new york"), n.topMatches("new york", 10));
+      Assert.assertEquals(Arrays.asList("new york city", "york"), n.topMatches("york", 2));
+      Assert.assertEquals(Arrays.asList("new york city"), n.topMatches("ci", 10));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("ork", 10));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("york", 0));
+      Assert.assertEquals("yorkshire pudding", n.topMatch("pud"));
+      Assert.assertEquals("", n.topMatch("x"));
+      Assert.assertEquals(7, n.weightOf("new jersey"), 0);
+      Assert.assertEquals(0, n.weightOf("jersey"), 0);
+      Assert.assertEquals(11, n.entryCount());
+   }
+
+   @Test public void testagainstscan() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(3000, 31);
+      Random random = new Random(4);
+      String[] terms = dictionary.getPhrases(3, random);
+      double[] weights = dictionary.getWeights();
+      InfixAutocomplete n = new InfixAutocomplete(terms, weights);
+      for (int length = 0; length <= 4; length++) {
+         for (String prefix : dictionary.samplePrefixes(20, length, random)) {
+            List<Double> expected = new ArrayList<Double>();
+            for (int i = 0; i < terms.length; i++) {
+               if (Arrays.asList(terms[i].split(" ")).stream().anyMatch(w -> w.startsWith(prefix)))
+                  expected.add(weights[i]);
+            }
+            Collections.sort(expected, Collections.reverseOrder());
+            List<Double> actual = new ArrayList<Double>();
+            for (Term term : n.topMatchesWithWeights(prefix, 12))
+               actual.add(term.getWeight());
+            Assert.assertEquals(expected.subList(0, Math.min(12, expected.size())), actual);
+         }
+      }
+   }
+
+   @Test public void testrepeatedtokens() {
+      // the heaviest term's many entries all pop before the second term's
+      StringBuilder repeated = new StringBuilder("go");
+      for (int i = 0; i < 200; i++)
+         repeated.append(" go");
+      String[] terms = new String[]{repeated.toString(), "gone", "going home", "stop"};
+      InfixAutocomplete n = new InfixAutocomplete(terms, new double[]{9, 5, 7, 3});
+      Assert.assertEquals(Arrays.asList(terms[0], "going home"), n.topMatches("go", 2));
+      Assert.assertEquals(Arrays.asList(terms[0], "going home", "gone"), n.topMatches("go", 5));
+      Assert.assertEquals(Arrays.asList(terms[0]), n.topMatches("go ", 5));
+   }
+
+   @Test public void testduplicates() {
+      try {
+         new InfixAutocomplete(new String[]{"a b", "c", "a b"}, new double[]{1, 2, 3});
+         Assert.fail("accepted a duplicate term");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+}
@@ -0,0 +1,208 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * Headless load tool that replays typing traffic against Autocompletors.
+ *
+ * Real traffic is a user typing a word one character at a time, so every
+ * typed query becomes a session: a burst of topMatches calls with the
+ * prefixes of length 1, 2, ... up to the whole query. Queries come from a log
+ * file (one typed query per line) or are drawn from the dictionary's own
+ * terms in proportion to their weights. Sessions are split across threads,
+ * each thread times every call into its own LatencyHistogram, and the merged
+ * p50/p90/p99/p999 latencies and overall queries per second are printed per
+ * implementation after an untimed warmup pass.
+ *
+ *  % java KeystrokeLoadGenerator -synthetic 1000000 -threads 8
+ *  % java KeystrokeLoadGenerator -dict cities.txt -log typed.txt -impl TrieAutocomplete
+ *
+ * Options:
+ *   -dict file        dictionary in the "count\nweight\tterm" format, optionally gzipped
+ *   -synthetic n      use a SyntheticDictionary of n terms instead (default 100000)
+ *   -log file         typed queries to replay, one per line
+ *   -sessions n       sessions drawn from the dictionary when there is no log (default 20000)
+ *   -threads n        replay threads (default: available processors)
+ *   -k n              results per query (default 10)
+ *   -impl a,b,...     Autocompletor class names (default: all)
+ *   -seed n           seed for dictionary and session generation (default 1234)
+ *   -cache n          wrap each implementation in a CachingAutocompletor of n prefixes
+ *   -policy p         its eviction policy, LRU or TINY_LFU (default TINY_LFU)
+ *
+ */
+public class KeystrokeLoadGenerator {
+
+   public static final String[] ALL_IMPLEMENTATIONS = {
+      "BruteAutocomplete", "BinarySearchAutocomplete", "TrieAutocomplete",
+      "PackedTrieAutocomplete", "RadixTrieAutocomplete", "SparseTableAutocomplete", "ConcurrentTrieAutocomplete",
+      "MappedAutocomplete", "ShardedAutocomplete",
+      "TieredAutocomplete", "FstAutocomplete" };
+
+   private final Autocomplete.Autocompletor myAuto;
+   private final List<String> mySessions;
+   private final int myThreads;
+   private final int myK;
+   private long myElapsedNanos;
+
+	/**
+	 * Result counts are accumulated here so the JIT cannot drop the queries.
+	 */
+   private volatile int mySink;
+
+	/**
+	 * @param auto
+	 *            - The Autocompletor to load
+	 * @param sessions
+	 *            - The typed queries; each is replayed one keystroke at a time
+	 * @param threads
+	 *            - The number of threads replaying sessions concurrently
+	 * @param k
+	 *            - The number of results requested per keystroke
+	 */
+   public KeystrokeLoadGenerator(Autocomplete.Autocompletor auto, List<String> sessions, int threads, int k) {
+      if (threads < 1)
+         throw new IllegalArgumentException("Illegal number of threads:"+threads);
+      myAuto = auto;
+      mySessions = sessions;
+      myThreads = threads;
+      myK = k;
+   }
+
+	/**
+	 * Draws count typed queries from terms, in proportion to their weights.
+	 */
+   public static List<String> sampleSessions(String[] terms, double[] weights, int count, Random random) {
+      double[] cumulative = SyntheticDictionary.cumulativeWeights(weights);
+      List<String> sessions = new ArrayList<String>(count);
+      for (int i = 0; i < count; i++)
+         sessions.add(terms[SyntheticDictionary.sample(cumulative, random)]);
+      return sessions;
+   }
+
+	/**
+	 * Replays every session once across the threads and returns the merged
+	 * latency histogram. The wall-clock time of the run is available from
+	 * getElapsedNanos afterwards.
+	 */
+   public LatencyHistogram run() throws InterruptedException {
+      final LatencyHistogram[] histograms = new LatencyHistogram[myThreads];
+      Thread[] workers = new Thread[myThreads];
+      for (int t = 0; t < myThreads; t++) {
+         final int first = t;
+         histograms[t] = new LatencyHistogram();
+         workers[t] = new Thread(
+            new Runnable() {
+               public void run() {
+                  for (int s = first; s < mySessions.size(); s += myThreads)
+                     replay(mySessions.get(s), histograms[first]);
+               }
+            }, "keystroke-replay-" + t);
+      }
+      long start = System.nanoTime();
+      for (Thread worker : workers)
+         worker.start();
+      for (Thread worker : workers)
+         worker.join();
+      myElapsedNanos = System.nanoTime() - start;
+      LatencyHistogram merged = new LatencyHistogram();
+      for (LatencyHistogram histogram : histograms)
+         merged.add(histogram);
+      return merged;
+   }
+
+   public long getElapsedNanos() {
+      return myElapsedNanos;
+   }
+
+   private void replay(String query, LatencyHistogram histogram) {
+      for (int length = 1; length <= query.length(); length++) {
+         String prefix = query.substring(0, length);
+         long start = System.nanoTime();
+         int results = 0;
+         for (String term : myAuto.topMatches(prefix, myK))
+            results++;
+         histogram.record(System.nanoTime() - start);
+         mySink += results;
+      }
+   }
+
+   static List<String> readLog(File file) throws FileNotFoundException {
+      Scanner in = new Scanner(file, AutocompletorBenchmark.CHARSET);
+      List<String> sessions = new ArrayList<String>();
+      try {
+         while (in.hasNextLine()) {
+            String line = in.nextLine();
+            if (!line.isEmpty())
+               sessions.add(line);
+         }
+      } finally {
+         in.close();
+      }
+      return sessions;
+   }
+
+   public static void main(String[] args) throws Exception {
+      String dictFile = null, logFile = null;
+      int synthetic = 100000, sessions = 20000, k = 10;
+      int threads = Runtime.getRuntime().availableProcessors();
+      long seed = 1234;
+      int cache = 0;
+      CachingAutocompletor.Policy policy = CachingAutocompletor.Policy.TINY_LFU;
+      String[] implementations = ALL_IMPLEMENTATIONS;
+      for (int i = 0; i + 1 < args.length; i += 2) {
+         String value = args[i + 1];
+         switch (args[i]) {
+            case "-dict": dictFile = value; break;
+            case "-synthetic": synthetic = Integer.parseInt(value); break;
+            case "-log": logFile = value; break;
+            case "-sessions": sessions = Integer.parseInt(value); break;
+            case "-threads": threads = Integer.parseInt(value); break;
+            case "-k": k = Integer.parseInt(value); break;
+            case "-impl": implementations = value.split(","); break;
+            case "-seed": seed = Long.parseLong(value); break;
+            case "-cache": cache = Integer.parseInt(value); break;
+            case "-policy": policy = CachingAutocompletor.Policy.valueOf(value.toUpperCase()); break;
+            default:
+               System.err.println("Unknown option " + args[i]);
+               System.exit(1);
+         }
+      }
+      String[] terms;
+      double[] weights;
+      if (dictFile != null) {
+         DictionaryLoader dictionary = DictionaryLoader.load(new File(dictFile));
+         terms = dictionary.getTerms();
+         weights = dictionary.getWeights();
+      } else {
+         SyntheticDictionary dictionary = new SyntheticDictionary(synthetic, seed);
+         terms = dictionary.getTerms();
+         weights = dictionary.getWeights();
+      }
+      List<String> replay = logFile != null ? readLog(new File(logFile))
+             : sampleSessions(terms, weights, sessions, new Random(seed));
+      long keystrokes = 0;
+      for (String query : replay)
+         keystrokes += query.length();
+      System.out.printf("%d terms, %d sessions, %d keystrokes, %d threads, k=%d%n",
+             terms.length, replay.size(), keystrokes, threads, k);
+      for (String name : implementations) {
+         Autocomplete.Autocompletor auto = AutocompletorBenchmark.getInstance(name, terms, weights);
+         if (cache > 0)
+            auto = new CachingAutocompletor(auto, cache, policy);
+         KeystrokeLoadGenerator generator = new KeystrokeLoadGenerator(auto, replay, threads, k);
+         generator.run();
+         LatencyHistogram histogram = generator.run();
+         histogram.print(System.out, name);
+         System.out.printf("%-28s %.0f queries/s%n", "",
+                histogram.getTotalCount() / (generator.getElapsedNanos() / 1e9));
+         if (auto instanceof CachingAutocompletor) {
+            CachingAutocompletor cached = (CachingAutocompletor) auto;
+            System.out.printf("%-28s %s cache: %d hits, %d misses, %d evictions, %.1f%% hit rate%n", "",
+                   policy, cached.getHits(), cached.getMisses(), cached.getEvictions(), 100 * cached.getHitRate());
+         }
+      }
+   }
+}
@@ -0,0 +1,138 @@
+import java.io.PrintStream;
+
+/**
+ * A log-linear histogram of latencies in nanoseconds, in the style of
+ * HdrHistogram: values below 2^SUB_BUCKET_BITS are counted exactly, and above
+ * that each power-of-two range is split into 2^(SUB_BUCKET_BITS - 1) equal
+ * buckets, so every recorded value is reported within 0.1% of its true
+ * value. Recording is an index computation and an increment.
+ *
+ * A histogram is not thread-safe; give each thread its own and add() them
+ * together afterwards.
+ *
+ */
+public class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 11;
+   private static final int HALF_BUCKET_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+
+	/**
+	 * Values of 2^MAX_VALUE_BITS ns (about 18 minutes) or more are recorded as
+	 * the largest trackable value.
+	 */
+   private static final int MAX_VALUE_BITS = 40;
+   private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+   static final int BUCKET_COUNT = index(MAX_VALUE) + 1;
+
+   private final long[] myCounts;
+   private long myTotalCount;
+   private long myMin = Long.MAX_VALUE;
+   private long myMax;
+   private double mySum;
+
+   public LatencyHistogram() {
+      myCounts = new long[BUCKET_COUNT];
+   }
+
+	/**
+	 * Wraps bucket counts collected elsewhere, as by LatencyRecorder.
+	 */
+   LatencyHistogram(long[] counts, long totalCount, long min, long max, double sum) {
+      myCounts = counts;
+      myTotalCount = totalCount;
+      myMin = min;
+      myMax = max;
+      mySum = sum;
+   }
+
+	/**
+	 * Returns nanos limited to the range a histogram tracks.
+	 */
+   static long clamp(long nanos) {
+      return Math.min(Math.max(nanos, 0), MAX_VALUE);
+   }
+
+   static int index(long value) {
+      int magnitude = 64 - Long.numberOfLeadingZeros(value | ((1L << SUB_BUCKET_BITS) - 1)) - SUB_BUCKET_BITS;
+      return (magnitude << (SUB_BUCKET_BITS - 1)) + (int) (value >>> magnitude);
+   }
+
+	/**
+	 * Returns the largest value that falls in the same bucket as index.
+	 */
+   static long highestValue(int index) {
+      int magnitude = index < (1 << SUB_BUCKET_BITS) ? 0 : (index >> (SUB_BUCKET_BITS - 1)) - 1;
+      long sub = index - ((long) magnitude << (SUB_BUCKET_BITS - 1));
+      return ((sub + 1) << magnitude) - 1;
+   }
+
+	/**
+	 * Records one latency, in nanoseconds. Negative values are recorded as 0.
+	 */
+   public void record(long nanos) {
+      long value = clamp(nanos);
+      myCounts[index(value)]++;
+      myTotalCount++;
+      myMin = Math.min(myMin, value);
+      myMax = Math.max(myMax, value);
+      mySum += value;
+   }
+
+	/**
+	 * Adds every value recorded in other to this histogram.
+	 */
+   public void add(LatencyHistogram other) {
+      for (int i = 0; i < myCounts.length; i++)
+         myCounts[i] += other.myCounts[i];
+      myTotalCount += other.myTotalCount;
+      myMin = Math.min(myMin, other.myMin);
+      myMax = Math.max(myMax, other.myMax);
+      mySum += other.mySum;
+   }
+
+   public long getTotalCount() {
+      return myTotalCount;
+   }
+
+   public long getMax() {
+      return myMax;
+   }
+
+   public long getMin() {
+      return myTotalCount == 0 ? 0 : myMin;
+   }
+
+   public double getMean() {
+      return myTotalCount == 0 ? 0 : mySum / myTotalCount;
+   }
+
+	/**
+	 * Returns the value at the given percentile (0 to 100): the smallest
+	 * recorded value, to bucket precision, that at least that percentage of
+	 * all recorded values do not exceed.
+	 */
+   public long getValueAtPercentile(double percentile) {
+      if (myTotalCount == 0)
+         return 0;
+      long target = Math.max(1, (long) Math.ceil(percentile / 100 * myTotalCount));
+      long seen = 0;
+      for (int i = 0; i < myCounts.length; i++) {
+         seen += myCounts[i];
+         if (seen >= target)
+            return Math.min(highestValue(i), myMax);
+      }
+      return myMax;
+   }
+
+	/**
+	 * Prints count, mean and the p50/p90/p99/p999/max latencies in
+	 * microseconds on one line, after label.
+	 */
+   public void print(PrintStream out, String label) {
+      out.printf("%-28s n=%-9d mean=%9.2f p50=%9.2f p90=%9.2f p99=%9.2f p999=%9.2f max=%9.2f (us)%n",
+             label, myTotalCount, getMean() / 1e3,
+             getValueAtPercentile(50) / 1e3, getValueAtPercentile(90) / 1e3,
+             getValueAtPercentile(99) / 1e3, getValueAtPercentile(99.9) / 1e3, myMax / 1e3);
+   }
+}
@@ -0,0 +1,135 @@
+import org.junit.Assert;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+   private static LatencyHistogram of(long from, long to) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (long value = from; value <= to; value++)
+         histogram.record(value);
+      return histogram;
+   }
+
+   @Test public void testexactvalues() {
+      LatencyHistogram histogram = of(1, 100);
+      Assert.assertEquals(100, histogram.getTotalCount());
+      Assert.assertEquals(1, histogram.getMin());
+      Assert.assertEquals(100, histogram.getMax());
+      Assert.assertEquals(50.5, histogram.getMean(), 0);
+      Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+      Assert.assertEquals(1, histogram.getValueAtPercentile(1));
+      Assert.assertEquals(50, histogram.getValueAtPercentile(50));
+      Assert.assertEquals(51, histogram.getValueAtPercentile(50.5));
+      Assert.assertEquals(90, histogram.getValueAtPercentile(90));
+      Assert.assertEquals(100, histogram.getValueAtPercentile(99.9));
+      Assert.assertEquals(100, histogram.getValueAtPercentile(100));
+   }
+
+   @Test public void testempty() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      Assert.assertEquals(0, histogram.getTotalCount());
+      Assert.assertEquals(0, histogram.getMin());
+      Assert.assertEquals(0, histogram.getMax());
+      Assert.assertEquals(0, histogram.getMean(), 0);
+      Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+   }
+
+   /*
+    * Values below 2048 have a bucket each; above, every power-of-two range
+    * has 1024 buckets, so 2048 and 2049 share one and 2^20 .. 2^20 + 1023
+    * share another.
+    */
+   @Test public void testbuckets() {
+      for (long value = 0; value < 2048; value++) {
+         Assert.assertEquals(value, LatencyHistogram.index(value));
+         Assert.assertEquals(value, LatencyHistogram.highestValue((int) value));
+      }
+      Assert.assertEquals(2048, LatencyHistogram.index(2048));
+      Assert.assertEquals(2048, LatencyHistogram.index(2049));
+      Assert.assertEquals(2049, LatencyHistogram.index(2050));
+      Assert.assertEquals(2049, LatencyHistogram.highestValue(2048));
+      int million = LatencyHistogram.index(1 << 20);
+      Assert.assertEquals(million, LatencyHistogram.index((1 << 20) + 1023));
+      Assert.assertEquals(million + 1, LatencyHistogram.index((1 << 20) + 1024));
+      Assert.assertEquals((1 << 20) + 1023, LatencyHistogram.highestValue(million));
+      long max = LatencyHistogram.clamp(Long.MAX_VALUE);
+      Assert.assertEquals((1L << 40) - 1, max);
+      Assert.assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.index(max));
+      Assert.assertEquals(max, LatencyHistogram.highestValue(LatencyHistogram.BUCKET_COUNT - 1));
+      Assert.assertEquals(0, LatencyHistogram.clamp(-5));
+   }
+
+   @Test public void testprecision() {
+      Random random = new Random(501);
+      for (int i = 0; i < 100000; i++) {
+         long value = random.nextLong() >>> (24 + random.nextInt(40));
+         int index = LatencyHistogram.index(value);
+         long highest = LatencyHistogram.highestValue(index);
+         Assert.assertTrue(value + " -> " + highest, highest >= value);
+         Assert.assertTrue(value + " -> " + highest, highest - value <= value / 1024);
+         Assert.assertEquals(index, LatencyHistogram.index(highest));
+         Assert.assertTrue(index < LatencyHistogram.BUCKET_COUNT);
+      }
+      // bucket ranges are contiguous
+      for (int index = 1; index < LatencyHistogram.BUCKET_COUNT; index++) {
+         long start = LatencyHistogram.highestValue(index - 1) + 1;
+         Assert.assertEquals(index, LatencyHistogram.index(start));
+      }
+   }
+
+   @Test public void testpercentilesofbucketedvalues() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(1000000);
+      histogram.record(5000000);
+      histogram.record(-7);
+      histogram.record(Long.MAX_VALUE);
+      Assert.assertEquals(4, histogram.getTotalCount());
+      Assert.assertEquals(0, histogram.getMin());
+      Assert.assertEquals((1L << 40) - 1, histogram.getMax());
+      // 1000000 is in the bucket 1000000 >> 9 of width 512
+      Assert.assertEquals(1000447, histogram.getValueAtPercentile(50));
+      Assert.assertEquals(0, histogram.getValueAtPercentile(25));
+      Assert.assertEquals((1L << 40) - 1, histogram.getValueAtPercentile(100));
+      LatencyHistogram single = new LatencyHistogram();
+      single.record(1000000);
+      // never above the largest value recorded
+      Assert.assertEquals(1000000, single.getValueAtPercentile(50));
+   }
+
+   @Test public void testadd() {
+      LatencyHistogram low = of(1, 50);
+      LatencyHistogram high = of(51, 100);
+      LatencyHistogram whole = of(1, 100);
+      low.add(high);
+      Assert.assertEquals(whole.getTotalCount(), low.getTotalCount());
+      Assert.assertEquals(1, low.getMin());
+      Assert.assertEquals(100, low.getMax());
+      Assert.assertEquals(whole.getMean(), low.getMean(), 0);
+      for (double percentile : new double[]{1, 25, 50, 90, 99, 100})
+         Assert.assertEquals(whole.getValueAtPercentile(percentile), low.getValueAtPercentile(percentile));
+      // high is unchanged
+      Assert.assertEquals(50, high.getTotalCount());
+      Assert.assertEquals(51, high.getMin());
+      LatencyHistogram empty = new LatencyHistogram();
+      low.add(empty);
+      Assert.assertEquals(100, low.getTotalCount());
+      Assert.assertEquals(1, low.getMin());
+      empty.add(high);
+      Assert.assertEquals(51, empty.getMin());
+      Assert.assertEquals(100, empty.getMax());
+      Assert.assertEquals(75, empty.getValueAtPercentile(50));
+   }
+
+   @Test public void testprint() {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      of(1000, 1099).print(new PrintStream(bytes, true), "label");
+      String line = bytes.toString();
+      Assert.assertTrue(line, line.startsWith("label"));
+      Assert.assertTrue(line, line.contains("n=100 "));
+      Assert.assertTrue(line, line.trim().endsWith("(us)"));
+   }
+}
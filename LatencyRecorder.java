@@ -0,0 +1,68 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects latencies from any number of threads at once without locking, in
+ * the buckets of a LatencyHistogram: each bucket is an element of an
+ * AtomicLongArray, and the count, sum, minimum and maximum are striped
+ * adders and accumulators, so concurrent recorders contend only when they
+ * land in the same bucket. snapshot copies the counts into a
+ * LatencyHistogram for the percentile math.
+ *
+ * A snapshot taken while values are being recorded may include some of
+ * them and not others, and so may reset; neither blocks a recorder.
+ *
+ */
+public class LatencyRecorder {
+
+   private final AtomicLongArray myCounts = new AtomicLongArray(LatencyHistogram.BUCKET_COUNT);
+   private final LongAdder myTotalCount = new LongAdder();
+   private final LongAdder mySum = new LongAdder();
+   private final LongAccumulator myMin = new LongAccumulator(Math::min, Long.MAX_VALUE);
+   private final LongAccumulator myMax = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records one latency, in nanoseconds, as LatencyHistogram.record does.
+	 */
+   public void record(long nanos) {
+      long value = LatencyHistogram.clamp(nanos);
+      myCounts.getAndIncrement(LatencyHistogram.index(value));
+      myTotalCount.increment();
+      mySum.add(value);
+      myMin.accumulate(value);
+      myMax.accumulate(value);
+   }
+
+	/**
+	 * Returns a LatencyHistogram of the values recorded so far.
+	 */
+   public LatencyHistogram snapshot() {
+      long[] counts = new long[myCounts.length()];
+      long total = 0;
+      for (int i = 0; i < counts.length; i++) {
+         counts[i] = myCounts.get(i);
+         total += counts[i];
+      }
+      return new LatencyHistogram(counts, total, myMin.get(), myMax.get(), mySum.sum());
+   }
+
+	/**
+	 * Forgets every recorded value.
+	 */
+   public void reset() {
+      for (int i = 0; i < myCounts.length(); i++)
+         myCounts.set(i, 0);
+      myTotalCount.reset();
+      mySum.reset();
+      myMin.reset();
+      myMax.reset();
+   }
+
+	/**
+	 * Returns the number of values recorded.
+	 */
+   public long getTotalCount() {
+      return myTotalCount.sum();
+   }
+}
@@ -0,0 +1,39 @@
+import org.junit.Assert;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+   @Test public void testconcurrentrecords() throws InterruptedException {
+      final LatencyRecorder recorder = new LatencyRecorder();
+      Thread[] threads = new Thread[4];
+      for (int t = 0; t < threads.length; t++) {
+         final int offset = t;
+         threads[t] = new Thread() {
+            public void run() {
+               for (int i = 1; i <= 10000; i++)
+                  recorder.record(i * 4 + offset);
+            }
+         };
+         threads[t].start();
+      }
+      for (Thread thread : threads)
+         thread.join();
+      LatencyHistogram histogram = recorder.snapshot();
+      LatencyHistogram expected = new LatencyHistogram();
+      for (int i = 1; i <= 10000; i++) {
+         for (int t = 0; t < threads.length; t++)
+            expected.record(i * 4 + t);
+      }
+      Assert.assertEquals(40000, recorder.getTotalCount());
+      Assert.assertEquals(40000, histogram.getTotalCount());
+      Assert.assertEquals(4, histogram.getMin());
+      Assert.assertEquals(40003, histogram.getMax());
+      Assert.assertEquals(expected.getMean(), histogram.getMean(), 1e-9);
+      for (double percentile : new double[]{1, 50, 90, 99.9, 100})
+         Assert.assertEquals(expected.getValueAtPercentile(percentile), histogram.getValueAtPercentile(percentile));
+      recorder.reset();
+      Assert.assertEquals(0, recorder.snapshot().getTotalCount());
+      Assert.assertEquals(0, recorder.snapshot().getMax());
+   }
+}
@@ -0,0 +1,301 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implements Autocompletor directly over an index file written by
+ * DictionaryCompiler, memory-mapped read-only. Opening reads only the header,
+ * so startup takes milliseconds whatever the dictionary size, and the terms,
+ * weights and index stay in the page cache rather than on the heap: queries
+ * compare the prefix's UTF-8 bytes against the mapped term bytes in place,
+ * and decode a String only for each term they return.
+ *
+ * topMatches binary searches the prefix range and then repeatedly takes the
+ * heaviest term of a sub-range from the argmax segment tree, splitting the
+ * sub-range around it, so it costs O(log N + k log N) whatever the range size.
+ *
+ * The mapped buffer is only read with absolute gets, so one instance can be
+ * queried from any number of threads.
+ *
+ */
+public class MappedAutocomplete implements Autocomplete.Autocompletor {
+
+   private final ByteBuffer myBuffer;
+   private final int mySize;
+   private final int myWeightsStart;
+   private final int myOffsetsStart;
+   private final int myTreeStart;
+   private final int myBlobStart;
+
+	/**
+	 * Maps an index file written by DictionaryCompiler.
+	 *
+	 * @throws IOException
+	 *             if the file cannot be read or is not a compiled dictionary
+	 */
+   public MappedAutocomplete(File file) throws IOException {
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      try {
+         FileChannel channel = raf.getChannel();
+         if (channel.size() > Integer.MAX_VALUE)
+            throw new IOException(file + " is too large to map");
+         // the mapping stays valid after the channel is closed
+         myBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } finally {
+         raf.close();
+      }
+      if (myBuffer.capacity() < DictionaryCompiler.HEADER_BYTES
+             || myBuffer.getInt(0) != DictionaryCompiler.MAGIC)
+         throw new IOException(file + " is not a compiled dictionary");
+      if (myBuffer.getInt(4) != DictionaryCompiler.VERSION)
+         throw new IOException(file + " has unsupported version " + myBuffer.getInt(4));
+      mySize = myBuffer.getInt(8);
+      myWeightsStart = DictionaryCompiler.HEADER_BYTES;
+      myOffsetsStart = myWeightsStart + 8 * mySize;
+      myTreeStart = myOffsetsStart + 4 * (mySize + 1);
+      myBlobStart = myTreeStart + 4 * mySize;
+      if ((long) myBlobStart + myBuffer.getInt(12) != myBuffer.capacity())
+         throw new IOException(file + " is truncated");
+   }
+
+	/**
+	 * Compiles terms and weights into a temporary index file and maps it,
+	 * so this engine can be built like the others. The file is deleted when
+	 * the JVM exits.
+	 *
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or a term is duplicated
+	 */
+   public MappedAutocomplete(String[] terms, double[] weights) throws IOException {
+      this(compileTemporary(terms, weights));
+   }
+
+   private static File compileTemporary(String[] terms, double[] weights) throws IOException {
+      File file = File.createTempFile("autocomplete", ".acx");
+      file.deleteOnExit();
+      DictionaryCompiler.compile(terms, weights, file);
+      return file;
+   }
+
+	/**
+	 * Returns whether file starts like an index written by DictionaryCompiler.
+	 */
+   public static boolean isCompiled(File file) {
+      try {
+         RandomAccessFile raf = new RandomAccessFile(file, "r");
+         try {
+            return raf.length() >= DictionaryCompiler.HEADER_BYTES && raf.readInt() == DictionaryCompiler.MAGIC;
+         } finally {
+            raf.close();
+         }
+      } catch (IOException e) {
+         return false;
+      }
+   }
+
+   private double weight(int id) {
+      return myBuffer.getDouble(myWeightsStart + 8 * id);
+   }
+
+   private int offset(int id) {
+      return myBlobStart + myBuffer.getInt(myOffsetsStart + 4 * id);
+   }
+
+	/**
+	 * Returns the term with the given id, decoded from the mapped bytes.
+	 */
+   String term(int id) {
+      int start = offset(id);
+      byte[] bytes = new byte[offset(id + 1) - start];
+      for (int i = 0; i < bytes.length; i++)
+         bytes[i] = myBuffer.get(start + i);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+	/**
+	 * Compares the bytes of term id against key by unsigned byte order. If
+	 * prefix is true, a term that starts with key compares equal to it.
+	 */
+   private int compare(int id, byte[] key, boolean prefix) {
+      int start = offset(id);
+      int length = offset(id + 1) - start;
+      int common = Math.min(length, key.length);
+      for (int i = 0; i < common; i++) {
+         int diff = (myBuffer.get(start + i) & 0xff) - (key[i] & 0xff);
+         if (diff != 0)
+            return diff;
+      }
+      if (prefix && length >= key.length)
+         return 0;
+      return length - key.length;
+   }
+
+	/**
+	 * Returns the first (or, if last is true, the last) id whose term starts
+	 * with key, or -1 if there is none.
+	 */
+   private int indexOf(byte[] key, boolean last) {
+      int beg = 0, end = mySize - 1;
+      int index = -1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         int cmp = compare(mid, key, true);
+         if (cmp == 0) {
+            index = mid;
+            if (last) beg = mid + 1;
+            else end = mid - 1;
+         }
+         else if (cmp > 0) end = mid - 1;
+         else beg = mid + 1;
+      }
+      return index;
+   }
+
+	/**
+	 * Returns whichever of term ids a and b is heavier, preferring a on ties.
+	 * Either may be -1 for no term.
+	 */
+   private int heavier(int a, int b) {
+      if (a < 0) return b;
+      if (b < 0) return a;
+      return weight(b) > weight(a) ? b : a;
+   }
+
+	/**
+	 * Returns the id of the heaviest term in lo..hi, inclusive.
+	 */
+   int argMax(int lo, int hi) {
+      int best = -1;
+      int n = mySize;
+      for (int l = lo + n, r = hi + n + 1; l < r; l >>>= 1, r >>>= 1) {
+         if ((l & 1) == 1) best = heavier(best, node(l++));
+         if ((r & 1) == 1) best = heavier(best, node(--r));
+      }
+      return best;
+   }
+
+	/**
+	 * Returns the heaviest term id under segment tree node i.
+	 */
+   private int node(int i) {
+      return i >= mySize ? i - mySize : myBuffer.getInt(myTreeStart + 4 * i);
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words with the
+	 * largest weight which start with prefix, in descending weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      return Autocomplete.wordsOf(topMatchesWithWeights(prefix, k));
+   }
+
+	/**
+	 * The same as topMatches, returning each word with its weight.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Term> topMatchesWithWeights(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      ArrayList<Term> ret = new ArrayList<Term>(Math.min(k, 16));
+      byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+      int f = indexOf(key, false);
+      if (f < 0 || k == 0)
+         return ret;
+      int l = indexOf(key, true);
+      k = Math.min(k, l - f + 1);
+      // the heap holds sub-ranges keyed by the weight of their heaviest
+      // term; slot r's bounds and heaviest term are in lo, hi and max
+      int[] lo = new int[2 * k + 1];
+      int[] hi = new int[2 * k + 1];
+      int[] max = new int[2 * k + 1];
+      IndexMaxHeap pq = new IndexMaxHeap();
+      int slots = push(f, l, 0, lo, hi, max, pq);
+      while (!pq.isEmpty() && ret.size() < k) {
+         int r = pq.remove();
+         int m = max[r];
+         ret.add(new Term(term(m), weight(m)));
+         if (m > lo[r])
+            slots = push(lo[r], m - 1, slots, lo, hi, max, pq);
+         if (m < hi[r])
+            slots = push(m + 1, hi[r], slots, lo, hi, max, pq);
+      }
+      return ret;
+   }
+
+   private int push(int from, int to, int slot, int[] lo, int[] hi, int[] max, IndexMaxHeap pq) {
+      lo[slot] = from;
+      hi[slot] = to;
+      max[slot] = argMax(from, to);
+      pq.add(slot, weight(max[slot]));
+      return slot + 1;
+   }
+
+	/**
+	 * Returns the largest-weight word starting with prefix, or an empty String
+	 * if there is none.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+      int f = indexOf(key, false);
+      if (f < 0)
+         return "";
+      return term(argMax(f, indexOf(key, true)));
+   }
+
+	/**
+	 * Return the weight of a given term. If term is not in the dictionary,
+	 * return 0.0
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      byte[] key = term.getBytes(StandardCharsets.UTF_8);
+      int beg = 0, end = mySize - 1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         int cmp = compare(mid, key, false);
+         if (cmp == 0) return weight(mid);
+         if (cmp > 0) end = mid - 1;
+         else beg = mid + 1;
+      }
+      return 0.0;
+   }
+
+	/**
+	 * Returns the number of terms in the index.
+	 */
+   public int size() {
+      return mySize;
+   }
+
+	/**
+	 * Returns the size of the mapped index file in bytes.
+	 */
+   public long sizeInBytes() {
+      return myBuffer.capacity();
+   }
+}
@@ -0,0 +1,88 @@
+import org.junit.Assert;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedAutocompleteTest {
+
+   public MappedAutocomplete n;
+
+   @Before public void testparameters() throws IOException {
+      double[] weights = new double[]{6,4,2,3,5,7,1};
+      String[] terms = new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"};
+      n = new MappedAutocomplete(terms, weights);
+   }
+
+   @Test public void testtopmatches() {
+      Assert.assertEquals(Arrays.asList("car", "ape", "bee", "app", "bat", "ban", "cat"), n.topMatches("", 8));
+      Assert.assertEquals(Arrays.asList("ape", "app"), n.topMatches("ap", 5));
+      Assert.assertEquals(Arrays.asList("bee", "bat"), n.topMatches("b", 2));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("d", 5));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("a", 0));
+      Assert.assertEquals("car", n.topMatch("c"));
+      Assert.assertEquals("", n.topMatch("apex"));
+   }
+
+   @Test public void testweightof() {
+      Assert.assertEquals(4, n.weightOf("app"), 0);
+      Assert.assertEquals(0, n.weightOf("ap"), 0);
+      Assert.assertEquals(0, n.weightOf("apps"), 0);
+      Assert.assertEquals(7, n.size());
+   }
+
+   @Test public void testmultibyteterms() throws IOException {
+      MappedAutocomplete auto = new MappedAutocomplete(
+         new String[]{"caf\u00e9", "cafe", "caf\u00e9s", "\u65e5\u672c", "\ud83d\ude00 smile"},
+         new double[]{3, 5, 4, 2, 1});
+      Assert.assertEquals(Arrays.asList("cafe", "caf\u00e9s", "caf\u00e9"), auto.topMatches("caf", 5));
+      Assert.assertEquals(Arrays.asList("caf\u00e9s", "caf\u00e9"), auto.topMatches("caf\u00e9", 5));
+      Assert.assertEquals("\u65e5\u672c", auto.topMatch("\u65e5"));
+      Assert.assertEquals(1, auto.weightOf("\ud83d\ude00 smile"), 0);
+   }
+
+   @Test public void testagainstbrute() throws IOException {
+      Random random = new Random(11);
+      int size = 2000;
+      String[] terms = new String[size];
+      double[] weights = new double[size];
+      Set<String> seen = new HashSet<String>();
+      for (int i = 0; i < size; i++) {
+         String word;
+         do {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++)
+               sb.append((char) ('a' + random.nextInt(4)));
+            word = sb.toString();
+         } while (!seen.add(word));
+         terms[i] = word;
+         weights[i] = i;
+      }
+      Autocomplete.Autocompletor brute = new Autocomplete.BruteAutocomplete(terms, weights);
+      MappedAutocomplete mapped = new MappedAutocomplete(terms, weights);
+      for (String prefix : new String[]{"", "a", "bc", "dda", "abcd", "zz"}) {
+         for (int k : new int[]{1, 5, 50}) {
+            Assert.assertEquals(brute.topMatches(prefix, k), mapped.topMatches(prefix, k));
+         }
+         Assert.assertEquals(brute.topMatch(prefix), mapped.topMatch(prefix));
+      }
+   }
+
+   @Test public void testrejectsotherfiles() throws IOException {
+      File file = File.createTempFile("autocomplete", ".txt");
+      file.deleteOnExit();
+      FileOutputStream out = new FileOutputStream(file);
+      out.write("1\n5\tape\n".getBytes("UTF-8"));
+      out.close();
+      Assert.assertFalse(MappedAutocomplete.isCompiled(file));
+      try {
+         new MappedAutocomplete(file);
+         Assert.fail("opened a text dictionary");
+      } catch (IOException e) {
+      }
+   }
+}
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+/**
+ * A reusable holder for the results of one topMatches query: parallel arrays
+ * of term ids, words and weights, in descending order of weight. The arrays
+ * only grow, so once a buffer has held k results, filling it with k or fewer
+ * allocates nothing.
+ *
+ * Term ids are the engine's own indices (positions in its sorted term array)
+ * and only mean something to the engine that wrote them.
+ *
+ * A buffer is not thread-safe; give each thread its own.
+ *
+ */
+public class MatchBuffer {
+
+   int[] myIds;
+   String[] myWords;
+   double[] myWeights;
+   int mySize;
+
+   public MatchBuffer() {
+      this(16);
+   }
+
+   public MatchBuffer(int capacity) {
+      capacity = Math.max(capacity, 1);
+      myIds = new int[capacity];
+      myWords = new String[capacity];
+      myWeights = new double[capacity];
+   }
+
+   public int size() {
+      return mySize;
+   }
+
+   public boolean isEmpty() {
+      return mySize == 0;
+   }
+
+   public int getId(int i) {
+      check(i);
+      return myIds[i];
+   }
+
+   public String getWord(int i) {
+      check(i);
+      return myWords[i];
+   }
+
+   public double getWeight(int i) {
+      check(i);
+      return myWeights[i];
+   }
+
+   private void check(int i) {
+      if (i < 0 || i >= mySize)
+         throw new IndexOutOfBoundsException("Index " + i + " of " + mySize);
+   }
+
+	/**
+	 * Empties the buffer and makes room for capacity results, so an engine
+	 * can write ids straight into myIds.
+	 */
+   void reset(int capacity) {
+      if (capacity > myIds.length) {
+         int grown = Math.max(capacity, myIds.length * 2);
+         myIds = Arrays.copyOf(myIds, grown);
+         myWords = Arrays.copyOf(myWords, grown);
+         myWeights = Arrays.copyOf(myWeights, grown);
+      }
+      // drop references to the previous query's words
+      Arrays.fill(myWords, 0, mySize, null);
+      mySize = 0;
+   }
+
+	/**
+	 * Per-thread scratch space for the engines that fill MatchBuffers, so the
+	 * heap and work arrays of a search are allocated once per thread rather
+	 * than once per query.
+	 */
+   static class Scratch {
+      final IndexMaxHeap myHeap = new IndexMaxHeap();
+      int[] myLo = new int[0];
+      int[] myHi = new int[0];
+      int[] myMax = new int[0];
+      // an open-addressing set of ids, each stored plus one so 0 is empty
+      private int[] mySeen = new int[0];
+      private int mySeenMask;
+
+      /**
+       * Makes myLo, myHi and myMax hold at least length entries each,
+       * keeping their contents.
+       */
+      void ensure(int length) {
+         if (myLo.length < length) {
+            int grown = Math.max(length, myLo.length * 2);
+            myLo = Arrays.copyOf(myLo, grown);
+            myHi = Arrays.copyOf(myHi, grown);
+            myMax = Arrays.copyOf(myMax, grown);
+         }
+      }
+
+      /**
+       * Empties the id set and makes room for up to capacity ids.
+       */
+      void clearSeen(int capacity) {
+         int size = Integer.highestOneBit(Math.max(2 * capacity, 2) - 1) << 1;
+         if (mySeen.length < size)
+            mySeen = new int[size];
+         else
+            Arrays.fill(mySeen, 0, size, 0);
+         mySeenMask = size - 1;
+      }
+
+      /**
+       * Adds id to the set, returning false if it was already there.
+       */
+      boolean addSeen(int id) {
+         int h = id * 0x9E3779B9;
+         int i = (h ^ h >>> 16) & mySeenMask;
+         while (mySeen[i] != 0) {
+            if (mySeen[i] == id + 1)
+               return false;
+            i = (i + 1) & mySeenMask;
+         }
+         mySeen[i] = id + 1;
+         return true;
+      }
+   }
+
+   private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+      @Override
+      protected Scratch initialValue() {
+         return new Scratch();
+      }
+   };
+
+	/**
+	 * Returns the calling thread's scratch space.
+	 */
+   static Scratch scratch() {
+      return SCRATCH.get();
+   }
+}
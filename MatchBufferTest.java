@@ -0,0 +1,53 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class MatchBufferTest {
+
+   private static Autocomplete.BufferedAutocompletor[] engines(String[] terms, double[] weights) {
+      return new Autocomplete.BufferedAutocompletor[]{
+         new PackedTrieAutocomplete(terms, weights), new PackedTrieAutocomplete(terms, weights, 4, 20),
+         new SparseTableAutocomplete(terms, weights)};
+   }
+
+   @Test public void testmatcheslist() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(2000, 29);
+      Random random = new Random(9);
+      MatchBuffer buffer = new MatchBuffer(1);
+      for (Autocomplete.BufferedAutocompletor auto : engines(dictionary.getTerms(), dictionary.getWeights())) {
+         for (int length = 0; length <= 3; length++) {
+            for (String prefix : dictionary.samplePrefixes(30, length, random)) {
+               for (int k : new int[]{8, 0, 1, 3, 50}) {
+                  int found = auto.topMatches(prefix, k, buffer);
+                  Assert.assertEquals(found, buffer.size());
+                  List<String> words = new ArrayList<String>();
+                  for (int i = 0; i < found; i++) {
+                     words.add(buffer.getWord(i));
+                     Assert.assertEquals(auto.weightOf(buffer.getWord(i)), buffer.getWeight(i), 0);
+                  }
+                  Assert.assertEquals(auto.topMatches(prefix, k), words);
+               }
+            }
+         }
+         Assert.assertEquals(0, auto.topMatches("\uffff", 5, buffer));
+         Assert.assertTrue(buffer.isEmpty());
+      }
+   }
+
+   @Test public void testnoallocation() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(5000, 31);
+      final String[] prefixes = dictionary.samplePrefixes(64, 2, new Random(4));
+      final MatchBuffer buffer = new MatchBuffer();
+      for (final Autocomplete.BufferedAutocompletor auto : engines(dictionary.getTerms(), dictionary.getWeights())) {
+         double bytes = AutocompletorBenchmark.allocatedBytesPerOp(new Runnable() {
+            public void run() {
+               for (String prefix : prefixes)
+                  auto.topMatches(prefix, 10, buffer);
+            }
+         }, 2000);
+         if (bytes >= 0)
+            Assert.assertEquals(auto.getClass().getName(), 0, bytes, 1);
+      }
+   }
+}
@@ -0,0 +1,265 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Wraps an Autocompletor built over normalized keys, so that matching
+ * ignores case, accents and compatibility variants while results keep the
+ * terms as they were given.
+ *
+ * Every term is normalized once, when the dictionary is built, and the named
+ * engine indexes the keys; a query normalizes only its prefix. Terms whose
+ * keys collide ("Apple" and "apple", or a repeated term) are merged into one
+ * entry with the largest of their weights, displayed as the heaviest of them
+ * (the first given, among equals). The display forms are kept apart from
+ * the keys, in a map holding only those that differ from their key, so a
+ * dictionary that is already lower-case ASCII stores no second copy of its
+ * terms.
+ *
+ * newSession follows typed text keystroke by keystroke: each change is
+ * normalized and only the difference between the new key and the last one
+ * is replayed on a session of the wrapped engine, when it is a
+ * SessionAutocompletor. Over any other engine the session answers each
+ * query from the whole normalized prefix.
+ *
+ */
+public class NormalizedAutocomplete implements Autocomplete.SessionAutocompletor {
+
+	/**
+	 * The engine used by the two-argument constructor, whose shared prefixes
+	 * and suffixes keep the keys compact.
+	 */
+   public static final String DEFAULT_ENGINE = "FstAutocomplete";
+
+   private final TermNormalizer myNormalizer;
+   private final Autocomplete.Autocompletor myAuto;
+   private final HashMap<String, String> myDisplay = new HashMap<String, String>();
+   private final int mySize;
+
+	/**
+	 * Builds a DEFAULT_ENGINE over keys from TermNormalizer.DEFAULT.
+	 *
+	 * @see #NormalizedAutocomplete(String[], double[], TermNormalizer, String)
+	 */
+   public NormalizedAutocomplete(String[] terms, double[] weights) {
+      this(terms, weights, TermNormalizer.DEFAULT, DEFAULT_ENGINE);
+   }
+
+	/**
+	 * @param terms
+	 *            - The words we will autocomplete from, as they are displayed
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @param normalizer
+	 *            - Maps terms and prefixes to keys
+	 * @param className
+	 *            - The Autocompletor built over the keys, resolved as by
+	 *            AutocompletorBenchmark.getInstance
+	 * @throws NullPointerException
+	 *             if any argument or term is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or there is no such Autocompletor
+	 */
+   public NormalizedAutocomplete(String[] terms, double[] weights, TermNormalizer normalizer, String className) {
+      if (terms == null || weights == null || normalizer == null || className == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      myNormalizer = normalizer;
+      String[] keys = new String[terms.length];
+      double[] keyWeights = new double[terms.length];
+      HashMap<String, Integer> entries = new HashMap<String, Integer>();
+      int count = 0;
+      for (int i = 0; i < terms.length; i++) {
+         if (terms[i] == null)
+            throw new NullPointerException("One or more arguments null");
+         if (weights[i] < 0)
+            throw new IllegalArgumentException("Negative weight " + weights[i]);
+         String key = normalizer.normalize(terms[i]);
+         Integer entry = entries.putIfAbsent(key, count);
+         if (entry == null) {
+            keys[count] = key;
+            keyWeights[count++] = weights[i];
+            if (!key.equals(terms[i]))
+               myDisplay.put(key, terms[i]);
+         } else if (weights[i] > keyWeights[entry]) {
+            keyWeights[entry] = weights[i];
+            if (key.equals(terms[i]))
+               myDisplay.remove(key);
+            else
+               myDisplay.put(key, terms[i]);
+         }
+      }
+      entries = null;
+      mySize = count;
+      if (count < terms.length) {
+         keys = Arrays.copyOf(keys, count);
+         keyWeights = Arrays.copyOf(keyWeights, count);
+      }
+      myAuto = AutocompletorBenchmark.getInstance(className, keys, keyWeights);
+   }
+
+	/**
+	 * Returns the key a term or prefix is matched by.
+	 */
+   public String normalize(String text) {
+      return myNormalizer.normalize(text);
+   }
+
+   private String displayOf(String key) {
+      String display = myDisplay.get(key);
+      return display == null ? key : display;
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k terms with the
+	 * largest weight whose keys start with the key of prefix, in descending
+	 * weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      List<String> ret = new ArrayList<String>();
+      for (String key : myAuto.topMatches(normalize(prefix), k))
+         ret.add(displayOf(key));
+      return ret;
+   }
+
+	/**
+	 * The same as topMatches, returning each term with its weight.
+	 */
+   public Iterable<Term> topMatchesWithWeights(String prefix, int k) {
+      List<Term> ret = new ArrayList<Term>();
+      for (Term term : myAuto.topMatchesWithWeights(normalize(prefix), k))
+         ret.add(new Term(displayOf(term.getWord()), term.getWeight()));
+      return ret;
+   }
+
+	/**
+	 * Returns the largest-weight term matching prefix, or an empty String if
+	 * there is none.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      String key = myAuto.topMatch(normalize(prefix));
+      return key.isEmpty() ? key : displayOf(key);
+   }
+
+	/**
+	 * Returns the weight of the entry term normalizes to, or 0.0 if there is
+	 * none.
+	 */
+   public double weightOf(String term) {
+      return term == null ? 0.0 : myAuto.weightOf(normalize(term));
+   }
+
+	/**
+	 * Returns the number of entries, after terms with the same key are
+	 * merged.
+	 */
+   public int size() {
+      return mySize;
+   }
+
+	/**
+	 * Returns how many display forms are stored apart from their keys.
+	 */
+   public int displayCount() {
+      return myDisplay.size();
+   }
+
+	/**
+	 * Returns whether sessions replay keystrokes on a session of the wrapped
+	 * engine rather than querying it afresh.
+	 */
+   public boolean hasIncrementalSessions() {
+      return myAuto instanceof Autocomplete.SessionAutocompletor;
+   }
+
+   public CompletionSession newSession() {
+      return new NormalizedSession();
+   }
+
+	/**
+	 * A session over the typed text, whose key is kept in step on the wrapped
+	 * engine's session if there is one.
+	 */
+   private class NormalizedSession implements CompletionSession {
+      private final StringBuilder myPrefix = new StringBuilder();
+      private final CompletionSession myKeys = hasIncrementalSessions()
+            ? ((Autocomplete.SessionAutocompletor) myAuto).newSession() : null;
+      private String myKey = "";
+
+      public void append(char ch) {
+         myPrefix.append(ch);
+         update();
+      }
+
+      public void backspace() {
+         if (myPrefix.length() == 0)
+            return;
+         myPrefix.setLength(myPrefix.length() - 1);
+         update();
+      }
+
+      public void reset() {
+         myPrefix.setLength(0);
+         myKey = "";
+         if (myKeys != null)
+            myKeys.reset();
+      }
+
+      public String getPrefix() {
+         return myPrefix.toString();
+      }
+
+	   /**
+	    * Normalizes the typed text and replays the change in its key on the
+	    * wrapped session: backspaces to the common prefix of the old and new
+	    * keys, then the new key's remaining characters.
+	    */
+      private void update() {
+         String key = normalize(myPrefix.toString());
+         if (myKeys != null) {
+            int common = 0;
+            int max = Math.min(key.length(), myKey.length());
+            while (common < max && key.charAt(common) == myKey.charAt(common))
+               common++;
+            for (int i = myKey.length(); i > common; i--)
+               myKeys.backspace();
+            for (int i = common; i < key.length(); i++)
+               myKeys.append(key.charAt(i));
+         }
+         myKey = key;
+      }
+
+      public Iterable<String> topMatches(int k) {
+         Iterable<String> keys = myKeys == null ? myAuto.topMatches(myKey, k) : myKeys.topMatches(k);
+         List<String> ret = new ArrayList<String>();
+         for (String key : keys)
+            ret.add(displayOf(key));
+         return ret;
+      }
+
+      public Iterable<Term> topMatchesWithWeights(int k) {
+         Iterable<Term> terms = myKeys == null ? myAuto.topMatchesWithWeights(myKey, k)
+               : myKeys.topMatchesWithWeights(k);
+         List<Term> ret = new ArrayList<Term>();
+         for (Term term : terms)
+            ret.add(new Term(displayOf(term.getWord()), term.getWeight()));
+         return ret;
+      }
+
+      public String topMatch() {
+         String key = myKeys == null ? myAuto.topMatch(myKey) : myKeys.topMatch();
+         return key.isEmpty() ? key : displayOf(key);
+      }
+   }
+}
@@ -0,0 +1,80 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class NormalizedAutocompleteTest {
+
+   @Test public void testnormalize() {
+      TermNormalizer n = TermNormalizer.DEFAULT;
+      String plain = "already lower";
+      Assert.assertSame(plain, n.normalize(plain));
+      Assert.assertEquals("new york", n.normalize("New York"));
+      Assert.assertEquals("cafe", n.normalize("Caf\u00e9"));
+      Assert.assertEquals("cafe", n.normalize("Cafe\u0301"));
+      Assert.assertEquals("strasse", n.normalize("Stra\u00dfe"));
+      Assert.assertEquals("office", n.normalize("o\ufb03ce"));
+      Assert.assertEquals("abc1", n.normalize("\uff21\uff42\uff43\uff11"));
+      Assert.assertEquals("caf\u00e9", new TermNormalizer(Locale.ROOT, false).normalize("CAFE\u0301"));
+      Assert.assertEquals("\u0131stanbul", new TermNormalizer(new Locale("tr"), false).normalize("ISTANBUL"));
+      Assert.assertEquals("istanbul", n.normalize("\u0130STANBUL"));
+   }
+
+   @Test public void testmatches() {
+      String[] terms = {"Caf\u00e9 Noir", "cafeteria", "CAFE", "Apple", "apple", "\u00c4pfel", "apple"};
+      double[] weights = {5, 3, 4, 2, 6, 1, 3};
+      NormalizedAutocomplete auto = new NormalizedAutocomplete(terms, weights);
+      Assert.assertEquals(Arrays.asList("Caf\u00e9 Noir", "CAFE", "cafeteria"), auto.topMatches("caf", 5));
+      Assert.assertEquals(Arrays.asList("Caf\u00e9 Noir", "CAFE", "cafeteria"), auto.topMatches("CAF\u00c9", 5));
+      Assert.assertEquals(Arrays.asList("apple", "\u00c4pfel"), auto.topMatches("Ap", 5));
+      List<Double> weightsOut = new ArrayList<Double>();
+      for (Term term : auto.topMatchesWithWeights("a", 5))
+         weightsOut.add(term.getWeight());
+      Assert.assertEquals(Arrays.asList(6.0, 1.0), weightsOut);
+      Assert.assertEquals("Caf\u00e9 Noir", auto.topMatch("cafe "));
+      Assert.assertEquals("", auto.topMatch("b"));
+      Assert.assertEquals(6, auto.weightOf("APPLE"), 0);
+      Assert.assertEquals(5, auto.weightOf("cafe noir"), 0);
+      Assert.assertEquals(0, auto.weightOf("pear"), 0);
+      Assert.assertEquals(5, auto.size());
+      Assert.assertEquals(3, auto.displayCount());
+   }
+
+   @Test public void testengines() {
+      String[] terms = {"\u00c9clair", "eclipse", "Echo"};
+      double[] weights = {2, 3, 1};
+      for (String engine : new String[]{"TrieAutocomplete", "SparseTableAutocomplete", "BinarySearchAutocomplete"}) {
+         NormalizedAutocomplete auto = new NormalizedAutocomplete(terms, weights, TermNormalizer.DEFAULT, engine);
+         Assert.assertEquals(Arrays.asList("eclipse", "\u00c9clair", "Echo"), auto.topMatches("E", 5));
+         Assert.assertEquals(Arrays.asList("\u00c9clair"), auto.topMatches("\u00e9cla", 5));
+      }
+   }
+
+   @Test public void testsessions() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(2000, 41);
+      String[] terms = dictionary.getTerms().clone();
+      for (int i = 0; i < terms.length; i += 2)
+         terms[i] = terms[i].toUpperCase().replace('E', '\u00c9');
+      for (String engine : new String[]{"TrieAutocomplete", "FstAutocomplete"}) {
+         NormalizedAutocomplete auto = new NormalizedAutocomplete(terms, dictionary.getWeights(), TermNormalizer.DEFAULT, engine);
+         Assert.assertEquals(engine.equals("TrieAutocomplete"), auto.hasIncrementalSessions());
+         CompletionSession session = auto.newSession();
+         Random random = new Random(3);
+         for (int step = 0; step < 300; step++) {
+            if (random.nextInt(3) == 0)
+               session.backspace();
+            else if (random.nextInt(20) == 0)
+               session.reset();
+            else
+               session.append("aAeE\u00e9\u00c9rst".charAt(random.nextInt(9)));
+            String prefix = session.getPrefix();
+            Assert.assertEquals(auto.topMatches(prefix, 5), session.topMatches(5));
+            Assert.assertEquals(auto.topMatch(prefix), session.topMatch());
+            List<String> words = new ArrayList<String>();
+            for (Term term : session.topMatchesWithWeights(5))
+               words.add(term.getWord());
+            Assert.assertEquals(auto.topMatches(prefix, 5), words);
+         }
+      }
+   }
+}
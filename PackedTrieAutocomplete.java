@@ -0,0 +1,592 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Implements Autocompletor with a trie stored entirely in flat primitive
+ * arrays instead of Node objects. Nodes are numbered in breadth-first order so
+ * the children of a node occupy a contiguous, label-sorted block of indices:
+ * the children of node n are myFirstChild[n] .. myFirstChild[n + 1] - 1.
+ *
+ * Per node this costs one char, two ints and one double, compared to a Node,
+ * a one-character String and a HashMap (plus its entries) per character in
+ * TrieAutocomplete.
+ *
+ * Optionally, nodes whose subtrie holds many terms (the short, popular
+ * prefixes) carry a precomputed list of their top cacheK term ids, so that
+ * topMatches(prefix, k) for k <= cacheK at such a node is a descent and an
+ * array copy. Larger k, or nodes without a cached list, fall back to the
+ * best-first search.
+ *
+ */
+public class PackedTrieAutocomplete implements Autocomplete.SessionAutocompletor,
+      Autocomplete.BufferedAutocompletor {
+
+	/**
+	 * Terms sorted lexicographically; term ids are indices into these arrays.
+	 */
+   String[] myWords;
+   double[] myWeights;
+
+	/**
+	 * The character on the edge into each node. Unused for the root (node 0).
+	 */
+   char[] myLabels;
+
+	/**
+	 * Index of the first child of each node, with one trailing sentinel entry.
+	 */
+   int[] myFirstChild;
+
+	/**
+	 * The maximum weight of any term in the subtrie rooted at each node.
+	 */
+   double[] mySubtreeMaxWeight;
+
+	/**
+	 * The id of the term ending at each node, or -1 if no term ends there.
+	 */
+   int[] myTermId;
+
+   int myNodeCount;
+
+	/**
+	 * Top-k cache: the ascending ids of cached nodes, the start of each cached
+	 * node's list in myCacheIds (with a trailing sentinel) and the term ids of
+	 * every list, each in descending weight order. Empty when caching is off.
+	 */
+   int myCacheK;
+   int[] myCachedNodes = new int[0];
+   int[] myCacheStart = new int[]{0};
+   int[] myCacheIds = new int[0];
+
+	/**
+	 * Builds the packed trie from the given terms.
+	 *
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or a term is duplicated
+	 */
+   public PackedTrieAutocomplete(String[] terms, double[] weights) {
+      this(terms, weights, 0, 0);
+   }
+
+	/**
+	 * Builds the packed trie and caches the top cacheK term ids of every node
+	 * whose subtrie contains at least cacheMinTerms terms. A cacheK of 0
+	 * disables the cache.
+	 *
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @param cacheK
+	 *            - The number of completions cached per node
+	 * @param cacheMinTerms
+	 *            - The fewest terms a node's subtrie may hold and still be
+	 *            cached
+	 * @throws NullPointerException
+	 *             if either array is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative, a term is duplicated or cacheK is negative
+	 */
+   public PackedTrieAutocomplete(String[] terms, double[] weights, int cacheK, int cacheMinTerms) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      Term[] sorted = new Term[terms.length];
+      for (int i = 0; i < terms.length; i++) {
+         if (weights[i] < 0)
+            throw new IllegalArgumentException("Negative weight "+ weights[i]);
+         sorted[i] = new Term(terms[i], weights[i]);
+      }
+      Arrays.sort(sorted);
+      myWords = new String[sorted.length];
+      myWeights = new double[sorted.length];
+      for (int i = 0; i < sorted.length; i++) {
+         myWords[i] = sorted[i].getWord();
+         myWeights[i] = sorted[i].getWeight();
+         if (i > 0 && myWords[i].equals(myWords[i - 1]))
+            throw new IllegalArgumentException("Duplicate input terms");
+      }
+      if (cacheK < 0)
+         throw new IllegalArgumentException("Illegal value of cacheK:"+cacheK);
+      build();
+      if (cacheK > 0)
+         buildCache(cacheK, Math.max(cacheMinTerms, 1));
+   }
+
+	/**
+	 * Lays out the trie breadth-first. Each node covers the range of sorted
+	 * terms sharing its prefix; its children split that range by the character
+	 * at the node's depth. Subtree maxima are filled in afterwards in reverse
+	 * node order, since every child has a larger index than its parent.
+	 */
+   private void build() {
+      int capacity = 16;
+      char[] labels = new char[capacity];
+      int[] firstChild = new int[capacity + 1];
+      int[] termId = new int[capacity];
+      int[] lo = new int[capacity];
+      int[] hi = new int[capacity];
+      int[] depth = new int[capacity];
+      int count = 1;
+      lo[0] = 0;
+      hi[0] = myWords.length;
+      for (int n = 0; n < count; n++) {
+         int start = lo[n];
+         int end = hi[n];
+         int d = depth[n];
+         termId[n] = -1;
+         if (start < end && myWords[start].length() == d)
+            termId[n] = start++;
+         firstChild[n] = count;
+         while (start < end) {
+            char ch = myWords[start].charAt(d);
+            int stop = start + 1;
+            while (stop < end && myWords[stop].charAt(d) == ch)
+               stop++;
+            if (count == labels.length) {
+               capacity *= 2;
+               labels = Arrays.copyOf(labels, capacity);
+               firstChild = Arrays.copyOf(firstChild, capacity + 1);
+               termId = Arrays.copyOf(termId, capacity);
+               lo = Arrays.copyOf(lo, capacity);
+               hi = Arrays.copyOf(hi, capacity);
+               depth = Arrays.copyOf(depth, capacity);
+            }
+            labels[count] = ch;
+            lo[count] = start;
+            hi[count] = stop;
+            depth[count] = d + 1;
+            count++;
+            start = stop;
+         }
+      }
+      firstChild[count] = count;
+      myNodeCount = count;
+      myLabels = Arrays.copyOf(labels, count);
+      myFirstChild = Arrays.copyOf(firstChild, count + 1);
+      myTermId = Arrays.copyOf(termId, count);
+      mySubtreeMaxWeight = new double[count];
+      for (int n = count - 1; n >= 0; n--) {
+         double max = myTermId[n] >= 0 ? myWeights[myTermId[n]] : -1;
+         for (int c = myFirstChild[n]; c < myFirstChild[n + 1]; c++)
+            max = Math.max(max, mySubtreeMaxWeight[c]);
+         mySubtreeMaxWeight[n] = max;
+      }
+   }
+
+	/**
+	 * Counts the terms in each subtrie, then runs the best-first search once
+	 * per qualifying node. Nodes are visited in index order so myCachedNodes
+	 * comes out sorted.
+	 */
+   private void buildCache(int cacheK, int cacheMinTerms) {
+      int[] termCount = new int[myNodeCount];
+      int cached = 0;
+      for (int n = myNodeCount - 1; n >= 0; n--) {
+         int count = myTermId[n] >= 0 ? 1 : 0;
+         for (int c = myFirstChild[n]; c < myFirstChild[n + 1]; c++)
+            count += termCount[c];
+         termCount[n] = count;
+         if (count >= cacheMinTerms)
+            cached++;
+      }
+      myCacheK = cacheK;
+      myCachedNodes = new int[cached];
+      myCacheStart = new int[cached + 1];
+      int[] ids = new int[16];
+      int[] scratch = new int[cacheK];
+      IndexMaxHeap pq = new IndexMaxHeap();
+      int i = 0;
+      for (int n = 0; n < myNodeCount; n++) {
+         if (termCount[n] < cacheMinTerms)
+            continue;
+         int found = collect(n, cacheK, pq, scratch);
+         if (myCacheStart[i] + found > ids.length)
+            ids = Arrays.copyOf(ids, Math.max(ids.length * 2, myCacheStart[i] + found));
+         System.arraycopy(scratch, 0, ids, myCacheStart[i], found);
+         myCachedNodes[i] = n;
+         myCacheStart[i + 1] = myCacheStart[i] + found;
+         i++;
+      }
+      myCacheIds = Arrays.copyOf(ids, myCacheStart[cached]);
+   }
+
+	/**
+	 * Returns the position of node in myCachedNodes, or -1 if it has no cached
+	 * list.
+	 */
+   int cacheSlot(int node) {
+      int slot = Arrays.binarySearch(myCachedNodes, node);
+      return slot >= 0 ? slot : -1;
+   }
+
+	/**
+	 * Writes the ids of the (at most) k heaviest terms in the subtrie at node
+	 * into out, in descending weight order, and returns how many were found.
+	 *
+	 * Subtrees are expanded best-first by mySubtreeMaxWeight; a term is only
+	 * emitted once its own weight reaches the top of the heap, so no term is
+	 * emitted before a heavier one.
+	 */
+   int collect(int node, int k, IndexMaxHeap pq, int[] out) {
+      int found = 0;
+      pq.clear();
+      pq.add(node, mySubtreeMaxWeight[node]);
+      while (!pq.isEmpty() && found < k) {
+         int entry = pq.remove();
+         if (entry < 0) {
+            out[found++] = ~entry;
+            continue;
+         }
+         if (myTermId[entry] >= 0)
+            pq.add(~myTermId[entry], myWeights[myTermId[entry]]);
+         for (int c = myFirstChild[entry]; c < myFirstChild[entry + 1]; c++)
+            pq.add(c, mySubtreeMaxWeight[c]);
+      }
+      return found;
+   }
+
+	/**
+	 * Returns the child of node labelled ch, or -1 if there is none.
+	 */
+   int child(int node, char ch) {
+      int beg = myFirstChild[node], end = myFirstChild[node + 1] - 1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         char label = myLabels[mid];
+         if (label < ch) beg = mid + 1;
+         else if (label > ch) end = mid - 1;
+         else return mid;
+      }
+      return -1;
+   }
+
+	/**
+	 * Returns the node reached by following prefix from the root, or -1 if no
+	 * term starts with prefix.
+	 */
+   int find(CharSequence prefix) {
+      int node = 0;
+      for (int i = 0; i < prefix.length() && node >= 0; i++)
+         node = child(node, prefix.charAt(i));
+      return node;
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words with the
+	 * largest weight which start with prefix, in descending weight order.
+	 * Served from the node's cached list when it has one that covers k.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      return topMatches(find(prefix), k);
+   }
+
+	/**
+	 * The same as topMatches, returning each word with its weight.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Term> topMatchesWithWeights(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      return topTerms(find(prefix), k);
+   }
+
+	/**
+	 * Returns the k heaviest words in the subtrie at node (none if node is
+	 * -1), in descending weight order.
+	 */
+   List<String> topMatches(int node, int k) {
+      return topMatches(node, k, null, null);
+   }
+
+	/**
+	 * The same as topMatches(node, k), searching with pq and ids when they
+	 * are given and ids holds at least min(k, term count) entries.
+	 */
+   List<String> topMatches(int node, int k, IndexMaxHeap pq, int[] ids) {
+      if (pq == null) {
+         pq = new IndexMaxHeap();
+         ids = new int[Math.min(k, myWords.length)];
+      }
+      int found = topIds(node, k, pq, ids);
+      ArrayList<String> ret = new ArrayList<String>(found);
+      for (int i = 0; i < found; i++)
+         ret.add(myWords[ids[i]]);
+      return ret;
+   }
+
+	/**
+	 * The same as topMatches(node, k), as Terms.
+	 */
+   List<Term> topTerms(int node, int k) {
+      int[] ids = new int[Math.min(k, myWords.length)];
+      int found = topIds(node, k, new IndexMaxHeap(), ids);
+      ArrayList<Term> ret = new ArrayList<Term>(found);
+      for (int i = 0; i < found; i++)
+         ret.add(new Term(myWords[ids[i]], myWeights[ids[i]]));
+      return ret;
+   }
+
+	/**
+	 * Writes the ids of the k heaviest terms in the subtrie at node (none if
+	 * node is -1) into ids, from the node's cached list when it has one that
+	 * covers k, and returns how many there are. ids must hold at least
+	 * min(k, term count) entries.
+	 */
+   int topIds(int node, int k, IndexMaxHeap pq, int[] ids) {
+      if (node < 0 || k == 0 || mySubtreeMaxWeight[node] < 0)
+         return 0;
+      k = Math.min(k, myWords.length);
+      int slot = cacheSlot(node);
+      if (slot >= 0) {
+         int start = myCacheStart[slot], end = myCacheStart[slot + 1];
+         // a list shorter than myCacheK holds every term in the subtrie
+         if (k <= myCacheK || end - start < myCacheK) {
+            int found = Math.min(k, end - start);
+            System.arraycopy(myCacheIds, start, ids, 0, found);
+            return found;
+         }
+      }
+      return collect(node, k, pq, ids);
+   }
+
+	/**
+	 * Fills into from the node's cached list when it has one that covers k,
+	 * and otherwise by the best-first search over the calling thread's
+	 * scratch heap, writing term ids straight into the buffer.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix or into is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public int topMatches(CharSequence prefix, int k, MatchBuffer into) {
+      if (prefix == null || into == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      int node = find(prefix);
+      k = Math.min(k, myWords.length);
+      into.reset(k);
+      if (node < 0 || k == 0 || mySubtreeMaxWeight[node] < 0)
+         return 0;
+      int found;
+      int slot = cacheSlot(node);
+      int start = slot >= 0 ? myCacheStart[slot] : 0, end = slot >= 0 ? myCacheStart[slot + 1] : 0;
+      if (slot >= 0 && (k <= myCacheK || end - start < myCacheK)) {
+         found = Math.min(k, end - start);
+         System.arraycopy(myCacheIds, start, into.myIds, 0, found);
+      } else {
+         found = collect(node, k, MatchBuffer.scratch().myHeap, into.myIds);
+      }
+      for (int i = 0; i < found; i++) {
+         into.myWords[i] = myWords[into.myIds[i]];
+         into.myWeights[i] = myWeights[into.myIds[i]];
+      }
+      into.mySize = found;
+      return found;
+   }
+
+	/**
+	 * Answers the prefixes in sorted order, keeping the path of nodes along
+	 * the previous prefix so that each descent starts from the deepest node
+	 * the two share rather than the root. A repeated prefix reuses the
+	 * previous result, and one heap and id buffer serve the whole batch.
+	 *
+	 * @throws NullPointerException
+	 *             if prefixes or any prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Iterable<String>> topMatchesBatch(List<String> prefixes, int k) {
+      Integer[] order = Autocomplete.batchOrder(prefixes, k);
+      Iterable<String>[] results = Autocomplete.newBatchResults(order.length);
+      IndexMaxHeap pq = new IndexMaxHeap();
+      int[] ids = new int[Math.min(k, myWords.length)];
+      int[] path = new int[16];
+      path[0] = 0;
+      // path[0..depth] are the nodes along previous, or -1 past a dead end
+      int depth = 0;
+      String previous = "";
+      for (int i = 0; i < order.length; i++) {
+         String prefix = prefixes.get(order[i]);
+         if (i > 0 && prefix.equals(previous)) {
+            results[order[i]] = results[order[i - 1]];
+            continue;
+         }
+         int common = 0;
+         int limit = Math.min(Math.min(prefix.length(), previous.length()), depth);
+         while (common < limit && prefix.charAt(common) == previous.charAt(common))
+            common++;
+         if (prefix.length() >= path.length)
+            path = Arrays.copyOf(path, prefix.length() * 2);
+         int node = path[common];
+         for (depth = common; depth < prefix.length() && node >= 0; depth++) {
+            node = child(node, prefix.charAt(depth));
+            path[depth + 1] = node;
+         }
+         results[order[i]] = topMatches(node, k, pq, ids);
+         previous = prefix;
+      }
+      return Arrays.asList(results);
+   }
+
+	/**
+	 * Returns the largest-weight word starting with prefix, or an empty String
+	 * if there is none, by following the child whose subtree maximum equals
+	 * the current node's.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      int node = find(prefix);
+      if (node < 0 || mySubtreeMaxWeight[node] < 0)
+         return "";
+      int slot = cacheSlot(node);
+      if (slot >= 0)
+         return myWords[myCacheIds[myCacheStart[slot]]];
+      double max = mySubtreeMaxWeight[node];
+      while (myTermId[node] < 0 || myWeights[myTermId[node]] != max) {
+         int c = myFirstChild[node];
+         while (mySubtreeMaxWeight[c] != max)
+            c++;
+         node = c;
+      }
+      return myWords[myTermId[node]];
+   }
+
+	/**
+	 * Return the weight of a given term. If term is not in the dictionary,
+	 * return 0.0
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      int node = find(term);
+      if (node < 0 || myTermId[node] < 0)
+         return 0.0;
+      return myWeights[myTermId[node]];
+   }
+
+	/**
+	 * Returns a session that keeps the stack of nodes along its prefix, since
+	 * packed nodes have no parent pointers; backspace pops the stack.
+	 */
+   public CompletionSession newSession() {
+      return new PackedSession();
+   }
+
+   private class PackedSession implements CompletionSession {
+      private final StringBuilder myPrefix = new StringBuilder();
+      // myPath[i] is the node reached by the first i characters, or -1
+      private int[] myPath = new int[16];
+      private List<Term> myResults;
+      private int myResultsK;
+   
+      public void append(char ch) {
+         int node = myPath[myPrefix.length()];
+         myPrefix.append(ch);
+         if (myPrefix.length() == myPath.length)
+            myPath = Arrays.copyOf(myPath, myPath.length * 2);
+         myPath[myPrefix.length()] = node < 0 ? -1 : child(node, ch);
+         myResults = null;
+      }
+   
+      public void backspace() {
+         if (myPrefix.length() == 0)
+            return;
+         myPrefix.setLength(myPrefix.length() - 1);
+         myResults = null;
+      }
+   
+      public void reset() {
+         myPrefix.setLength(0);
+         myResults = null;
+      }
+   
+      public String getPrefix() {
+         return myPrefix.toString();
+      }
+   
+      public Iterable<String> topMatches(int k) {
+         return Autocomplete.wordsOf(topMatchesWithWeights(k));
+      }
+   
+      public List<Term> topMatchesWithWeights(int k) {
+         if (k < 0)
+            throw new IllegalArgumentException("Illegal value of k:"+k);
+         // a shorter list than was asked for holds every match
+         if (myResults == null || (k > myResultsK && myResults.size() == myResultsK)) {
+            myResults = topTerms(myPath[myPrefix.length()], k);
+            myResultsK = k;
+         }
+         return new ArrayList<Term>(myResults.subList(0, Math.min(k, myResults.size())));
+      }
+   
+      public String topMatch() {
+         Iterator<String> top = topMatches(1).iterator();
+         return top.hasNext() ? top.next() : "";
+      }
+   }
+
+   public int nodeCount() {
+      return myNodeCount;
+   }
+
+	/**
+	 * Returns the number of bytes used by the trie arrays, the top-k cache and
+	 * the parallel weight and word-reference arrays, assuming 4-byte
+	 * references. The term Strings themselves are shared with the caller and
+	 * not counted.
+	 */
+   public long sizeInBytes() {
+      long n = myNodeCount;
+      long terms = myWords.length;
+      return 2 * n + 4 * (n + 1) + 8 * n + 4 * n + 8 * terms + 4 * terms + cacheSizeInBytes();
+   }
+
+	/**
+	 * Returns the number of bytes used by the top-k cache alone.
+	 */
+   public long cacheSizeInBytes() {
+      return 4L * myCachedNodes.length + 4L * myCacheStart.length + 4L * myCacheIds.length;
+   }
+
+   public int cachedNodeCount() {
+      return myCachedNodes.length;
+   }
+
+   public double bytesPerTerm() {
+      return myWords.length == 0 ? 0 : (double) sizeInBytes() / myWords.length;
+   }
+}
@@ -0,0 +1,185 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PackedTrieAutocompleteTest {
+
+   public PackedTrieAutocomplete n;
+
+   @Before public void testparameters() {
+      double[] weights = new double[]{6,4,2,3,5,7,1};
+      String[] terms = new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"};
+      n = new PackedTrieAutocomplete(terms, weights);
+   }
+
+   @Test public void testtopmatches() {
+      Assert.assertEquals(Arrays.asList("car", "ape", "bee", "app", "bat", "ban", "cat"), n.topMatches("", 8));
+      Assert.assertEquals(Arrays.asList("car"), n.topMatches("", 1));
+      Assert.assertEquals(Arrays.asList("car", "ape", "bee"), n.topMatches("", 3));
+      Assert.assertEquals(Arrays.asList("ape"), n.topMatches("ap", 1));
+      Assert.assertEquals(Arrays.asList("bee", "bat"), n.topMatches("b", 2));
+      Assert.assertEquals(Arrays.asList(), n.topMatches("d", 100));
+      Assert.assertEquals(Arrays.asList(), n.topMatches("a", 0));
+   }
+
+   @Test public void testtopmatch() {
+      Assert.assertEquals("", n.topMatch(" "));
+      Assert.assertEquals("car", n.topMatch(""));
+      Assert.assertEquals("ape", n.topMatch("a"));
+      Assert.assertEquals("bat", n.topMatch("ba"));
+      Assert.assertEquals("", n.topMatch("d"));
+   }
+
+   @Test public void testweightof() {
+      Assert.assertEquals(3.0, n.weightOf("bat"), 0);
+      Assert.assertEquals(0.0, n.weightOf("ba"), 0);
+      Assert.assertEquals(0.0, n.weightOf("dog"), 0);
+   }
+
+   /*
+    * Words that are prefixes of other words must not hide their subtrees.
+    */
+   @Test public void testnestedwords() {
+      PackedTrieAutocomplete p = new PackedTrieAutocomplete(
+         new String[]{"a", "ab", "abc", "abd"}, new double[]{1, 2, 4, 3});
+      Assert.assertEquals(Arrays.asList("abc", "abd", "ab", "a"), p.topMatches("a", 10));
+      Assert.assertEquals("abc", p.topMatch("a"));
+      Assert.assertEquals(5, p.nodeCount());
+   }
+
+   @Test public void testagainstbrute() {
+      Random random = new Random(201);
+      int size = 2000;
+      HashSet<String> seen = new HashSet<String>();
+      String[] terms = new String[size];
+      double[] weights = new double[size];
+      for (int i = 0; i < size; i++) {
+         String word;
+         do {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++)
+               sb.append((char) ('a' + random.nextInt(4)));
+            word = sb.toString();
+         } while (!seen.add(word));
+         terms[i] = word;
+         weights[i] = i;
+      }
+      Autocomplete.Autocompletor brute = new Autocomplete.BruteAutocomplete(terms, weights);
+      PackedTrieAutocomplete packed = new PackedTrieAutocomplete(terms, weights);
+      for (String prefix : new String[]{"", "a", "bc", "dda", "abcd", "zz"}) {
+         for (int k : new int[]{1, 5, 50}) {
+            Assert.assertEquals(brute.topMatches(prefix, k), packed.topMatches(prefix, k));
+         }
+         Assert.assertEquals(brute.topMatch(prefix), packed.topMatch(prefix));
+      }
+   }
+
+   @Test public void testcachematchessearch() {
+      PackedTrieAutocomplete cached = new PackedTrieAutocomplete(
+         new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"},
+         new double[]{6,4,2,3,5,7,1}, 2, 2);
+      Assert.assertTrue(cached.cachedNodeCount() > 0);
+      Assert.assertTrue(cached.cacheSizeInBytes() > 0);
+      for (String prefix : new String[]{"", "a", "b", "ba", "c", "d"}) {
+         for (int k = 0; k <= 8; k++)
+            Assert.assertEquals(n.topMatches(prefix, k), cached.topMatches(prefix, k));
+         Assert.assertEquals(n.topMatch(prefix), cached.topMatch(prefix));
+      }
+   }
+
+   @Test public void testsessionmatchesprefix() {
+      Autocomplete.Autocompletor trie = new Autocomplete.TrieAutocomplete(
+         new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"},
+         new double[]{6,4,2,3,5,7,1});
+      for (Autocomplete.SessionAutocompletor auto : new Autocomplete.SessionAutocompletor[]{
+            n, (Autocomplete.SessionAutocompletor) trie}) {
+         CompletionSession session = auto.newSession();
+         for (String typed : new String[]{"ap", "a", "", "bax", "ba", "b", "ca", "cat", "catz"}) {
+            String current = session.getPrefix();
+            if (!typed.startsWith(current))
+               session.reset();
+            for (int i = session.getPrefix().length(); i < typed.length(); i++)
+               session.append(typed.charAt(i));
+            Assert.assertEquals(typed, session.getPrefix());
+            for (int k = 0; k <= 8; k++)
+               Assert.assertEquals(auto.topMatches(typed, k), session.topMatches(k));
+            Assert.assertEquals(auto.topMatch(typed), session.topMatch());
+         }
+         session.reset();
+         for (String typed : new String[]{"catz", "cat", "ca", "c", ""}) {
+            while (session.getPrefix().length() > typed.length())
+               session.backspace();
+            for (int i = session.getPrefix().length(); i < typed.length(); i++)
+               session.append(typed.charAt(i));
+            for (int k = 1; k <= 8; k += 7)
+               Assert.assertEquals(auto.topMatches(typed, k), session.topMatches(k));
+         }
+      }
+   }
+
+   @Test public void testsessionnegativek() {
+      Autocomplete.Autocompletor trie = new Autocomplete.TrieAutocomplete(
+         new String[]{"ape", "app", "ban"}, new double[]{6, 4, 2});
+      for (Autocomplete.SessionAutocompletor auto : new Autocomplete.SessionAutocompletor[]{
+            n, (Autocomplete.SessionAutocompletor) trie}) {
+         CompletionSession session = auto.newSession();
+         for (String typed : new String[]{"", "a", "azz"}) {
+            session.reset();
+            for (int i = 0; i < typed.length(); i++)
+               session.append(typed.charAt(i));
+            try {
+               session.topMatchesWithWeights(-1);
+               Assert.fail("accepted a negative k");
+            } catch (IllegalArgumentException e) {
+            }
+            // the engine itself agrees with its sessions
+            try {
+               auto.topMatches(typed, -1);
+               Assert.fail("accepted a negative k");
+            } catch (IllegalArgumentException e) {
+            }
+            try {
+               auto.topMatchesWithWeights(typed, -1);
+               Assert.fail("accepted a negative k");
+            } catch (IllegalArgumentException e) {
+            }
+            Assert.assertEquals(Arrays.asList(), auto.topMatches(typed, 0));
+            Assert.assertEquals(Arrays.asList(), session.topMatches(0));
+         }
+         try {
+            auto.topMatches(null, 5);
+            Assert.fail("accepted a null prefix");
+         } catch (NullPointerException e) {
+         }
+      }
+   }
+
+   @Test public void testbatchmatchesloop() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(3000, 23);
+      String[] terms = dictionary.getTerms();
+      double[] weights = dictionary.getWeights();
+      Random random = new Random(7);
+      List<String> prefixes = new ArrayList<String>();
+      for (int length = 0; length <= 4; length++)
+         prefixes.addAll(Arrays.asList(dictionary.samplePrefixes(150, length, random)));
+      for (String extra : new String[]{"zzz", "zz", "", "qxq", "a\uffff"})
+         prefixes.add(extra);
+      Collections.shuffle(prefixes, random);
+      Autocomplete.Autocompletor[] engines = {
+         new PackedTrieAutocomplete(terms, weights), new PackedTrieAutocomplete(terms, weights, 5, 50),
+         new SparseTableAutocomplete(terms, weights), new Autocomplete.TrieAutocomplete(terms, weights)};
+      for (Autocomplete.Autocompletor auto : engines) {
+         for (int k : new int[]{0, 3, 20}) {
+            for (boolean parallel : new boolean[]{false, true}) {
+               List<Iterable<String>> batch = auto.topMatchesBatch(prefixes, k, parallel);
+               Assert.assertEquals(prefixes.size(), batch.size());
+               for (int i = 0; i < prefixes.size(); i++)
+                  Assert.assertEquals(prefixes.get(i), auto.topMatches(prefixes.get(i), k), batch.get(i));
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,114 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Node in a path-compressed (radix) trie. Unlike Node, the edge into a
+ * RadixNode carries a whole fragment of characters, so a chain of nodes with
+ * a single child each is stored as one node. Children are kept in an array
+ * sorted by the first character of their fragments; no two children share a
+ * first character.
+ *
+ */
+public class RadixNode {
+	/**
+	 * The characters on the edge into this node. Empty only for the root.
+	 */
+   String myFragment;
+
+	/**
+	 * Whether or not a word ends at this node
+	 */
+   boolean isWord;
+
+	/**
+	 * Only non-null/interpretable if isWord is true. Holds the entire word
+	 * ending at this node.
+	 */
+   String myWord;
+
+	/**
+	 * Only positive/interpretable if isWord is true. Represents the weight of
+	 * myWord.
+	 */
+   double myWeight = -1;
+
+	/**
+	 * The maximum weight of any word in this node's subtrie, including this
+	 * node itself.
+	 */
+   double mySubtreeMaxWeight = -1;
+
+   RadixNode[] children = new RadixNode[0];
+
+   public RadixNode(String fragment) {
+      myFragment = fragment;
+   }
+
+	/**
+	 * Returns the index in children of the child whose fragment starts with
+	 * ch, or (-(insertion point) - 1) if there is none.
+	 */
+   int indexOf(char ch) {
+      int beg = 0, end = children.length - 1;
+      while (beg <= end) {
+         int mid = (beg + end) >>> 1;
+         char first = children[mid].myFragment.charAt(0);
+         if (first < ch) beg = mid + 1;
+         else if (first > ch) end = mid - 1;
+         else return mid;
+      }
+      return -(beg + 1);
+   }
+
+	/**
+	 * Returns null if no child's fragment starts with ch.
+	 */
+   RadixNode getChild(char ch) {
+      int index = indexOf(ch);
+      return index >= 0 ? children[index] : null;
+   }
+
+	/**
+	 * Adds child, or replaces the existing child whose fragment starts with
+	 * the same character.
+	 */
+   void putChild(RadixNode child) {
+      int index = indexOf(child.myFragment.charAt(0));
+      if (index >= 0) {
+         children[index] = child;
+         return;
+      }
+      index = -(index + 1);
+      RadixNode[] grown = Arrays.copyOf(children, children.length + 1);
+      System.arraycopy(children, index, grown, index + 1, children.length - index);
+      grown[index] = child;
+      children = grown;
+   }
+
+   @Override
+   public String toString() {
+      return myFragment + " (" + myWeight + ")";
+   }
+
+	/*
+	 * In reverse subtreeMaxWeight order to make the PriorityQueue (a min-heap)
+	 * act as a max heap.
+	 */
+   public static class ReverseSubtreeMaxWeightComparator implements Comparator<RadixNode> {
+      @Override
+      public int compare(RadixNode o1, RadixNode o2) {
+         return Double.compare(o2.mySubtreeMaxWeight, o1.mySubtreeMaxWeight);
+      }
+   }
+
+	/*
+	 * In reverse myWeight order, for queues of nodes whose words are waiting
+	 * to be emitted.
+	 */
+   public static class ReverseWeightComparator implements Comparator<RadixNode> {
+      @Override
+      public int compare(RadixNode o1, RadixNode o2) {
+         return Double.compare(o2.myWeight, o1.myWeight);
+      }
+   }
+}
@@ -0,0 +1,219 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Implements Autocompletor with a path-compressed trie of RadixNodes. Edges
+ * carry string fragments rather than single characters, so long runs of
+ * single-child nodes (common in phrase dictionaries) collapse into one node.
+ * Top-k search is the same best-first search by mySubtreeMaxWeight used by
+ * TrieAutocomplete.
+ *
+ */
+public class RadixTrieAutocomplete implements Autocomplete.Autocompletor {
+
+	/**
+	 * Root of entire trie
+	 */
+   protected RadixNode myRoot;
+
+   private int myNodeCount;
+
+	/**
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or a term is duplicated
+	 */
+   public RadixTrieAutocomplete(String[] terms, double[] weights) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      myRoot = new RadixNode("");
+      myNodeCount = 1;
+      for (int i = 0; i < terms.length; i++) {
+         add(terms[i], weights[i]);
+      }
+   }
+
+	/**
+	 * Add the word with given weight to the trie, splitting the edge where
+	 * word leaves an existing fragment, and raising mySubtreeMaxWeight along
+	 * the path.
+	 *
+	 * @throws NullPointerException
+	 *             if word is null
+	 * @throws IllegalArgumentException
+	 *             if weight is negative or word is already present
+	 */
+   private void add(String word, double weight) {
+      if (word == null)
+         throw new NullPointerException("Null word");
+      if (weight < 0)
+         throw new IllegalArgumentException("Negative weight "+ weight);
+      RadixNode node = myRoot;
+      int i = 0;
+      while (true) {
+         node.mySubtreeMaxWeight = Math.max(node.mySubtreeMaxWeight, weight);
+         if (i == word.length()) {
+            if (node.isWord)
+               throw new IllegalArgumentException("Duplicate input terms");
+            node.isWord = true;
+            node.myWord = word;
+            node.myWeight = weight;
+            return;
+         }
+         RadixNode child = node.getChild(word.charAt(i));
+         if (child == null) {
+            RadixNode leaf = new RadixNode(word.substring(i));
+            leaf.isWord = true;
+            leaf.myWord = word;
+            leaf.myWeight = weight;
+            leaf.mySubtreeMaxWeight = weight;
+            node.putChild(leaf);
+            myNodeCount++;
+            return;
+         }
+         String fragment = child.myFragment;
+         int common = 1;
+         while (common < fragment.length() && i + common < word.length()
+                && fragment.charAt(common) == word.charAt(i + common))
+            common++;
+         if (common < fragment.length()) {
+            // word leaves the edge part way along: split it at common
+            RadixNode mid = new RadixNode(fragment.substring(0, common));
+            mid.mySubtreeMaxWeight = child.mySubtreeMaxWeight;
+            node.putChild(mid);
+            child.myFragment = fragment.substring(common);
+            mid.putChild(child);
+            myNodeCount++;
+            child = mid;
+         }
+         node = child;
+         i += common;
+      }
+   }
+
+	/**
+	 * Returns the node whose subtrie holds exactly the words starting with
+	 * prefix, or null if there are none. The returned node's own path may
+	 * extend past the end of prefix.
+	 */
+   RadixNode find(String prefix) {
+      RadixNode node = myRoot;
+      int i = 0;
+      while (i < prefix.length()) {
+         node = node.getChild(prefix.charAt(i));
+         if (node == null)
+            return null;
+         String fragment = node.myFragment;
+         int length = Math.min(fragment.length(), prefix.length() - i);
+         if (!prefix.regionMatches(i, fragment, 0, length))
+            return null;
+         i += length;
+      }
+      return node;
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words in the trie
+	 * with the largest weight which start with prefix, in descending weight
+	 * order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      return Autocomplete.wordsOf(topMatchesWithWeights(prefix, k));
+   }
+
+	/**
+	 * The same as topMatches, with each word's weight read from its node.
+	 *
+	 * Subtrees are expanded best-first by mySubtreeMaxWeight. A node's own
+	 * word waits in a second queue until no unexpanded subtree could hold a
+	 * heavier word.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Term> topMatchesWithWeights(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      ArrayList<Term> ret = new ArrayList<Term>();
+      RadixNode start = find(prefix);
+      if (start == null || k == 0 || start.mySubtreeMaxWeight < 0)
+         return ret;
+      PriorityQueue<RadixNode> subtrees = new PriorityQueue<RadixNode>(new RadixNode.ReverseSubtreeMaxWeightComparator());
+      PriorityQueue<RadixNode> words = new PriorityQueue<RadixNode>(new RadixNode.ReverseWeightComparator());
+      subtrees.add(start);
+      while (ret.size() < k && (!subtrees.isEmpty() || !words.isEmpty())) {
+         if (!words.isEmpty() && (subtrees.isEmpty()
+                || words.peek().myWeight >= subtrees.peek().mySubtreeMaxWeight)) {
+            RadixNode word = words.remove();
+            ret.add(new Term(word.myWord, word.myWeight));
+            continue;
+         }
+         RadixNode node = subtrees.remove();
+         if (node.isWord)
+            words.add(node);
+         for (RadixNode child : node.children)
+            subtrees.add(child);
+      }
+      return ret;
+   }
+
+	/**
+	 * Returns the largest-weight word starting with prefix, or an empty String
+	 * if there is none.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      RadixNode node = find(prefix);
+      if (node == null || node.mySubtreeMaxWeight < 0)
+         return "";
+      double max = node.mySubtreeMaxWeight;
+      while (!node.isWord || node.myWeight != max) {
+         for (RadixNode child : node.children) {
+            if (child.mySubtreeMaxWeight == max) {
+               node = child;
+               break;
+            }
+         }
+      }
+      return node.myWord;
+   }
+
+	/**
+	 * Return the weight of a given term. If term is not in the dictionary,
+	 * return 0.0
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      RadixNode node = find(term);
+      if (node == null || !node.isWord || !node.myWord.equals(term))
+         return 0.0;
+      return node.myWeight;
+   }
+
+   public int nodeCount() {
+      return myNodeCount;
+   }
+}
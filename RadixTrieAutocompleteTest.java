@@ -0,0 +1,121 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RadixTrieAutocompleteTest {
+
+   public String[] terms;
+   public double[] weights;
+   public RadixTrieAutocomplete n;
+   public Autocomplete.Autocompletor brute;
+
+   @Before public void testparameters() {
+      terms = new String[]{"romane", "romanus", "romulus", "rubens", "ruber", "rubicon", "rubicundus", "ru"};
+      weights = new double[]{3, 8, 5, 1, 7, 2, 6, 4};
+      n = new RadixTrieAutocomplete(terms, weights);
+      brute = new Autocomplete.BruteAutocomplete(terms, weights);
+   }
+
+   /*
+    * Each word leaving an edge part way along splits it, and "ru", added
+    * last, ends inside the edge "ub" and splits it too.
+    */
+   @Test public void testedgesplitting() {
+      Assert.assertEquals(15, n.nodeCount());
+      for (int i = 0; i < terms.length; i++)
+         Assert.assertEquals(weights[i], n.weightOf(terms[i]), 0);
+      Assert.assertEquals(0.0, n.weightOf("rub"), 0);
+      Assert.assertEquals(0.0, n.weightOf("r"), 0);
+      Assert.assertEquals(0.0, n.weightOf("romanes"), 0);
+      Assert.assertEquals(Arrays.asList("ruber", "rubicundus", "ru", "rubicon", "rubens"), n.topMatches("ru", 10));
+   }
+
+   @Test public void testprefixmidedge() {
+      for (String prefix : new String[]{"rom", "roma", "romu", "rubic", "rubicu", "rubicund", "rube", "rubenz", "romx"}) {
+         for (int k = 1; k <= 9; k++)
+            Assert.assertEquals(prefix + " " + k, brute.topMatches(prefix, k), n.topMatches(prefix, k));
+         Assert.assertEquals(prefix, brute.topMatch(prefix), n.topMatch(prefix));
+      }
+   }
+
+   @Test public void testemptyprefix() {
+      Assert.assertEquals(brute.topMatches("", 9), n.topMatches("", 9));
+      Assert.assertEquals(Arrays.asList("romanus", "ruber", "rubicundus"), n.topMatches("", 3));
+      Assert.assertEquals("romanus", n.topMatch(""));
+      RadixTrieAutocomplete empty = new RadixTrieAutocomplete(new String[0], new double[0]);
+      Assert.assertEquals(Arrays.asList(), empty.topMatches("", 5));
+      Assert.assertEquals("", empty.topMatch(""));
+   }
+
+   @Test public void testzerok() {
+      for (String prefix : new String[]{"", "r", "roma", "x"})
+         Assert.assertEquals(Arrays.asList(), n.topMatches(prefix, 0));
+      try {
+         n.topMatches("r", -1);
+         Assert.fail("accepted a negative k");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   @Test public void testagainstbrute() {
+      Random random = new Random(301);
+      int size = 2000;
+      HashSet<String> seen = new HashSet<String>();
+      String[] words = new String[size];
+      double[] wordWeights = new double[size];
+      for (int i = 0; i < size; i++) {
+         String word;
+         do {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++)
+               sb.append((char) ('a' + random.nextInt(3)));
+            word = sb.toString();
+         } while (!seen.add(word));
+         words[i] = word;
+         wordWeights[i] = random.nextInt(size * 10) + 0.5 * i / size;
+      }
+      Autocomplete.Autocompletor reference = new Autocomplete.BruteAutocomplete(words, wordWeights);
+      RadixTrieAutocomplete radix = new RadixTrieAutocomplete(words, wordWeights);
+      for (int p = 0; p < 300; p++) {
+         String prefix = words[random.nextInt(size)];
+         prefix = prefix.substring(0, random.nextInt(prefix.length() + 1));
+         for (int k : new int[]{1, 7, 100})
+            Assert.assertEquals(reference.topMatches(prefix, k), radix.topMatches(prefix, k));
+         Assert.assertEquals(Arrays.asList(), radix.topMatches(prefix, 0));
+         Assert.assertEquals(reference.topMatch(prefix), radix.topMatch(prefix));
+      }
+      for (String word : words)
+         Assert.assertEquals(reference.weightOf(word), radix.weightOf(word), 0);
+   }
+
+   @Test public void testweights() {
+      for (String prefix : new String[]{"", "r", "ru", "roma", "rubicu", "x"}) {
+         List<String> words = new ArrayList<String>();
+         for (Term term : n.topMatchesWithWeights(prefix, 9)) {
+            Assert.assertEquals(term.getWord(), n.weightOf(term.getWord()), term.getWeight(), 0);
+            words.add(term.getWord());
+         }
+         Assert.assertEquals(brute.topMatches(prefix, 9), words);
+      }
+      List<Double> weightsOf = new ArrayList<Double>();
+      for (Term term : n.topMatchesWithWeights("ru", 3))
+         weightsOf.add(term.getWeight());
+      Assert.assertEquals(Arrays.asList(7.0, 6.0, 4.0), weightsOf);
+      try {
+         n.topMatchesWithWeights("r", -1);
+         Assert.fail("accepted a negative k");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   @Test public void testduplicates() {
+      try {
+         new RadixTrieAutocomplete(new String[]{"ab", "abc", "ab"}, new double[]{1, 2, 3});
+         Assert.fail("accepted a duplicate term");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+}
@@ -0,0 +1,113 @@
+/**
+ * A range-maximum index over an array of weights: argMax(lo, hi) returns the
+ * position of the heaviest weight in lo..hi, preferring the leftmost on ties.
+ *
+ * The index is a sparse table over blocks of BLOCK_SIZE consecutive
+ * positions: level j holds, for every block b, the position of the heaviest
+ * weight in blocks b .. b + 2^j - 1. A query scans at most two partial blocks
+ * and looks up two overlapping table entries, so it costs O(1) in the range
+ * size, while the table takes O((N / BLOCK_SIZE) log N) ints instead of the
+ * O(N log N) of a per-position sparse table.
+ *
+ * push supports the best-first search both SparseTableAutocomplete and
+ * InfixAutocomplete run over a range: a heap of sub-ranges keyed by the
+ * weight of their heaviest position, where popping a sub-range yields that
+ * position and pushes the sub-ranges on either side of it.
+ *
+ */
+class RangeMaxIndex {
+
+   static final int BLOCK_SHIFT = 5;
+   static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+   private final double[] myWeights;
+
+	/**
+	 * myBlockMax[j][b] is the heaviest position in blocks b .. b + 2^j - 1.
+	 */
+   private final int[][] myBlockMax;
+
+	/**
+	 * @param weights
+	 *            - The weights to index, which are not copied and must not
+	 *            change afterwards
+	 */
+   RangeMaxIndex(double[] weights) {
+      myWeights = weights;
+      int blocks = (weights.length + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+      int levels = 1;
+      while ((1 << levels) <= blocks)
+         levels++;
+      myBlockMax = new int[levels][];
+      myBlockMax[0] = new int[blocks];
+      for (int b = 0; b < blocks; b++) {
+         int start = b << BLOCK_SHIFT;
+         myBlockMax[0][b] = scan(start, Math.min(start + BLOCK_SIZE, weights.length) - 1);
+      }
+      for (int j = 1; j < levels; j++) {
+         int half = 1 << (j - 1);
+         int[] prev = myBlockMax[j - 1];
+         int[] level = new int[Math.max(blocks - (1 << j) + 1, 0)];
+         for (int b = 0; b < level.length; b++)
+            level[b] = heavier(prev[b], prev[b + half]);
+         myBlockMax[j] = level;
+      }
+   }
+
+	/**
+	 * Returns whichever of positions a and b is heavier, preferring a on ties.
+	 */
+   int heavier(int a, int b) {
+      return myWeights[b] > myWeights[a] ? b : a;
+   }
+
+   private int scan(int lo, int hi) {
+      int best = lo;
+      for (int i = lo + 1; i <= hi; i++) {
+         if (myWeights[i] > myWeights[best])
+            best = i;
+      }
+      return best;
+   }
+
+	/**
+	 * Returns the heaviest position in lo..hi, inclusive.
+	 */
+   int argMax(int lo, int hi) {
+      int first = lo >>> BLOCK_SHIFT;
+      int last = hi >>> BLOCK_SHIFT;
+      if (first == last)
+         return scan(lo, hi);
+      // left to right, so ties go to the leftmost
+      int best = scan(lo, ((first + 1) << BLOCK_SHIFT) - 1);
+      if (first + 1 <= last - 1) {
+         int from = first + 1, to = last - 1;
+         int j = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+         best = heavier(best, heavier(myBlockMax[j][from], myBlockMax[j][to - (1 << j) + 1]));
+      }
+      return heavier(best, scan(last << BLOCK_SHIFT, hi));
+   }
+
+	/**
+	 * Stores the range from..to in slot of lo, hi and max, with its heaviest
+	 * position, adds the slot to pq keyed by that position's weight and
+	 * returns the next free slot.
+	 */
+   int push(int from, int to, int slot, int[] lo, int[] hi, int[] max, IndexMaxHeap pq) {
+      lo[slot] = from;
+      hi[slot] = to;
+      max[slot] = argMax(from, to);
+      pq.add(slot, myWeights[max[slot]]);
+      return slot + 1;
+   }
+
+	/**
+	 * Returns the number of bytes used by the sparse table.
+	 */
+   long sizeInBytes() {
+      long result = 0;
+      for (int[] level : myBlockMax)
+         result += 4L * level.length;
+      return result;
+   }
+}
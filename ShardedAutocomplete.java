@@ -0,0 +1,322 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits a dictionary by term hash across several inner Autocompletors and
+ * answers each query from all of them at once.
+ *
+ * topMatches forks one task per shard onto a ForkJoinPool; every shard finds
+ * its own top k, each already in descending order of weight, and the lists
+ * are merged with a k-way merge over an IndexMaxHeap of the shards' next
+ * results. Each shard searches roughly 1/N of the terms, which pays for the
+ * fan-out when a short prefix matches a large part of the dictionary.
+ *
+ * Each shard is asked for topMatchesWithWeights, so the merge has the
+ * weights without looking them up. Terms are sharded by the hash of their
+ * lower-case form, so every case variant of a term lands in one shard and
+ * weightOf asks only that shard, under its engine's case rules.
+ *
+ * Each shard's query times are recorded in its own LatencyRecorder, which
+ * takes no lock on the query path; main compares the sharded and
+ * single-instance latency on this machine.
+ *
+ */
+public class ShardedAutocomplete implements Autocomplete.Autocompletor {
+
+   public static final String DEFAULT_SHARD_CLASS = "TrieAutocomplete";
+
+   private final Autocomplete.Autocompletor[] myShards;
+   private final int[] myShardSizes;
+   private final LatencyRecorder[] myLatencies;
+   private final ForkJoinPool myPool;
+
+	/**
+	 * Creates one DEFAULT_SHARD_CLASS shard per available processor.
+	 *
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 */
+   public ShardedAutocomplete(String[] terms, double[] weights) {
+      this(terms, weights, Runtime.getRuntime().availableProcessors(), DEFAULT_SHARD_CLASS,
+            ForkJoinPool.commonPool());
+   }
+
+	/**
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @param shards
+	 *            - The number of inner Autocompletors
+	 * @param shardClass
+	 *            - Their class name, as taken by
+	 *            AutocompletorBenchmark.getInstance
+	 * @param pool
+	 *            - The pool queries are fanned out on
+	 * @throws NullPointerException
+	 *             if any argument or term is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, shards is not
+	 *             positive, a weight is negative or a term is duplicated
+	 */
+   public ShardedAutocomplete(String[] terms, double[] weights, int shards, String shardClass,
+         ForkJoinPool pool) {
+      if (terms == null || weights == null || shardClass == null || pool == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      if (shards < 1)
+         throw new IllegalArgumentException("Illegal number of shards:" + shards);
+      int[] counts = new int[shards];
+      for (int i = 0; i < terms.length; i++) {
+         if (terms[i] == null)
+            throw new NullPointerException("One or more arguments null");
+         if (weights[i] < 0)
+            throw new IllegalArgumentException("Negative weight " + weights[i]);
+         counts[shardOf(terms[i], shards)]++;
+      }
+      Term[][] split = new Term[shards][];
+      for (int s = 0; s < shards; s++)
+         split[s] = new Term[counts[s]];
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < terms.length; i++) {
+         int s = shardOf(terms[i], shards);
+         split[s][counts[s]++] = new Term(terms[i], weights[i]);
+      }
+      myShards = new Autocomplete.Autocompletor[shards];
+      myShardSizes = new int[shards];
+      myLatencies = new LatencyRecorder[shards];
+      for (int s = 0; s < shards; s++) {
+         Arrays.sort(split[s]);
+         String[] shardTerms = new String[split[s].length];
+         double[] shardWeights = new double[split[s].length];
+         for (int i = 0; i < split[s].length; i++) {
+            shardTerms[i] = split[s][i].getWord();
+            shardWeights[i] = split[s][i].getWeight();
+            if (i > 0 && shardTerms[i].equals(shardTerms[i - 1]))
+               throw new IllegalArgumentException("Duplicate input terms");
+         }
+         split[s] = null;
+         myShardSizes[s] = shardTerms.length;
+         myShards[s] = AutocompletorBenchmark.getInstance(shardClass, shardTerms, shardWeights);
+         myLatencies[s] = new LatencyRecorder();
+      }
+      myPool = pool;
+   }
+
+   private static int shardOf(String term, int shards) {
+      return Math.floorMod(term.toLowerCase(Locale.ROOT).hashCode(), shards);
+   }
+
+   public int getShardCount() {
+      return myShards.length;
+   }
+
+	/**
+	 * Returns the number of terms in the given shard.
+	 */
+   public int getShardSize(int shard) {
+      return myShardSizes[shard];
+   }
+
+	/**
+	 * Returns a copy of the query latencies recorded for the given shard.
+	 */
+   public LatencyHistogram getShardLatency(int shard) {
+      return myLatencies[shard].snapshot();
+   }
+
+	/**
+	 * Forgets every recorded shard latency.
+	 */
+   public void resetStats() {
+      for (LatencyRecorder latency : myLatencies)
+         latency.reset();
+   }
+
+	/**
+	 * Prints each shard's size and query latencies.
+	 */
+   public void printStats(PrintStream out) {
+      for (int s = 0; s < myShards.length; s++)
+         getShardLatency(s).print(out, "shard " + s + " (" + getShardSize(s) + " terms)");
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns an array containing the
+	 * k words in the dictionary with the largest weight which match the given
+	 * prefix, in descending weight order, merged from the top k of every
+	 * shard.
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      return Autocomplete.wordsOf(topMatchesWithWeights(prefix, k));
+   }
+
+	/**
+	 * The same as topMatches, returning each word with its weight.
+	 */
+   public List<Term> topMatchesWithWeights(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException("Prefix is null");
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:" + k);
+      if (k == 0)
+         return Collections.emptyList();
+      List<ShardQuery> queries = new ArrayList<ShardQuery>(myShards.length);
+      for (int s = 0; s < myShards.length; s++)
+         queries.add(new ShardQuery(s, prefix, k));
+      if (ForkJoinTask.inForkJoinPool())
+         ForkJoinTask.invokeAll(queries);
+      else
+         myPool.invoke(new FanOut(queries));
+      IndexMaxHeap heads = new IndexMaxHeap(myShards.length);
+      int[] next = new int[myShards.length];
+      for (int s = 0; s < myShards.length; s++) {
+         ShardQuery query = queries.get(s);
+         if (query.myWords.length > 0)
+            heads.add(s, query.myWeights[0]);
+      }
+      List<Term> result = new ArrayList<Term>();
+      while (result.size() < k && !heads.isEmpty()) {
+         int s = heads.remove();
+         ShardQuery query = queries.get(s);
+         result.add(new Term(query.myWords[next[s]], query.myWeights[next[s]]));
+         next[s]++;
+         if (next[s] < query.myWords.length)
+            heads.add(s, query.myWeights[next[s]]);
+      }
+      return result;
+   }
+
+	/**
+	 * Given a prefix, returns the largest-weight word in the dictionary which
+	 * starts with that prefix.
+	 */
+   public String topMatch(String prefix) {
+      for (String word : topMatches(prefix, 1))
+         return word;
+      return "";
+   }
+
+	/**
+	 * Return the weight of a given term. If term is not in the dictionary,
+	 * return 0.0
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      return myShards[shardOf(term, myShards.length)].weightOf(term);
+   }
+
+	/**
+	 * Runs the shard queries from a thread outside the pool.
+	 */
+   private static class FanOut extends RecursiveTask<Void> {
+      private static final long serialVersionUID = 1L;
+      private final List<ShardQuery> myQueries;
+
+      FanOut(List<ShardQuery> queries) {
+         myQueries = queries;
+      }
+
+      @Override
+      protected Void compute() {
+         ForkJoinTask.invokeAll(myQueries);
+         return null;
+      }
+   }
+
+	/**
+	 * One shard's part of a query: its top k words, in descending order, and
+	 * their weights.
+	 */
+   private class ShardQuery extends RecursiveTask<Void> {
+      private static final long serialVersionUID = 1L;
+      private final int myShard;
+      private final String myPrefix;
+      private final int myK;
+      String[] myWords;
+      double[] myWeights;
+
+      ShardQuery(int shard, String prefix, int k) {
+         myShard = shard;
+         myPrefix = prefix;
+         myK = k;
+      }
+
+      @Override
+      protected Void compute() {
+         long start = System.nanoTime();
+         List<Term> terms = new ArrayList<Term>();
+         for (Term term : myShards[myShard].topMatchesWithWeights(myPrefix, myK))
+            terms.add(term);
+         myWords = new String[terms.size()];
+         myWeights = new double[terms.size()];
+         for (int i = 0; i < myWords.length; i++) {
+            myWords[i] = terms.get(i).getWord();
+            myWeights[i] = terms.get(i).getWeight();
+         }
+         myLatencies[myShard].record(System.nanoTime() - start);
+         return null;
+      }
+   }
+
+	/**
+	 * Measures query latency for short prefixes against a single instance and
+	 * a sharded one over the same dictionary, and prints the speedup and the
+	 * per-shard latencies.
+	 *
+	 *  % java ShardedAutocomplete [size] [shards] [shard class]
+	 */
+   public static void main(String[] args) {
+      int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+      int shards = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+      String shardClass = args.length > 2 ? args[2] : DEFAULT_SHARD_CLASS;
+      int k = 10, queries = 20000;
+      SyntheticDictionary dictionary = new SyntheticDictionary(size, 1234);
+      Random random = new Random(42);
+      List<String> prefixes = new ArrayList<String>();
+      for (int length = 0; length <= 2; length++)
+         prefixes.addAll(Arrays.asList(dictionary.samplePrefixes(queries / 3, length, random)));
+      Collections.shuffle(prefixes, random);
+
+      Autocomplete.Autocompletor single = AutocompletorBenchmark.getInstance(shardClass,
+            dictionary.getTerms(), dictionary.getWeights());
+      ShardedAutocomplete sharded = new ShardedAutocomplete(dictionary.getTerms(), dictionary.getWeights(),
+            shards, shardClass, ForkJoinPool.commonPool());
+      System.out.printf("%d terms, %d %s shards, %d cores, %d queries of prefix length 0-2, k=%d%n",
+            size, shards, shardClass, Runtime.getRuntime().availableProcessors(), prefixes.size(), k);
+
+      time(single, prefixes, k);
+      time(sharded, prefixes, k);
+      sharded.resetStats();
+      LatencyHistogram singleLatency = time(single, prefixes, k);
+      LatencyHistogram shardedLatency = time(sharded, prefixes, k);
+      singleLatency.print(System.out, "single " + shardClass);
+      shardedLatency.print(System.out, "sharded x" + shards);
+      sharded.printStats(System.out);
+      System.out.printf("speedup: %.2fx mean, %.2fx p99%n",
+            singleLatency.getMean() / shardedLatency.getMean(),
+            (double) singleLatency.getValueAtPercentile(99) / shardedLatency.getValueAtPercentile(99));
+   }
+
+   private static LatencyHistogram time(Autocomplete.Autocompletor auto, List<String> prefixes, int k) {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (String prefix : prefixes) {
+         long start = System.nanoTime();
+         auto.topMatches(prefix, k);
+         histogram.record(System.nanoTime() - start);
+      }
+      return histogram;
+   }
+}
@@ -0,0 +1,71 @@
+import org.junit.Assert;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class ShardedAutocompleteTest {
+
+   @Test public void testmergesshards() {
+      double[] weights = new double[]{6,4,2,3,5,7,1};
+      String[] terms = new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"};
+      ShardedAutocomplete n = new ShardedAutocomplete(terms, weights, 3, "BinarySearchAutocomplete",
+         ForkJoinPool.commonPool());
+      Assert.assertEquals(Arrays.asList("car", "ape", "bee", "app", "bat", "ban", "cat"), n.topMatches("", 8));
+      Assert.assertEquals(Arrays.asList("bee", "bat"), n.topMatches("b", 2));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("d", 5));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("a", 0));
+      Assert.assertEquals("car", n.topMatch("c"));
+      Assert.assertEquals("", n.topMatch("apex"));
+      Assert.assertEquals(4, n.weightOf("app"), 0);
+      Assert.assertEquals(0, n.weightOf("ap"), 0);
+      int total = 0;
+      for (int s = 0; s < n.getShardCount(); s++) {
+         total += n.getShardSize(s);
+         Assert.assertEquals(5, n.getShardLatency(s).getTotalCount());
+      }
+      Assert.assertEquals(terms.length, total);
+   }
+
+   @Test public void testagainstbrute() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(5000, 17);
+      Autocomplete.Autocompletor brute = new Autocomplete.BruteAutocomplete(dictionary.getTerms(), dictionary.getWeights());
+      ShardedAutocomplete sharded = new ShardedAutocomplete(dictionary.getTerms(), dictionary.getWeights(), 4,
+         "TrieAutocomplete", new ForkJoinPool(2));
+      Random random = new Random(3);
+      for (int length = 0; length <= 3; length++) {
+         for (String prefix : dictionary.samplePrefixes(50, length, random)) {
+            Assert.assertEquals(brute.topMatches(prefix, 10), sharded.topMatches(prefix, 10));
+            Assert.assertEquals(brute.topMatch(prefix), sharded.topMatch(prefix));
+         }
+      }
+   }
+
+   /*
+    * weightOf answers as the shard engine does: TrieAutocomplete ignores
+    * case, so every case variant of a term must be routed to its shard.
+    */
+   @Test public void testweightofcase() {
+      String[] terms = new String[]{"Apple", "apply", "Banana", "cherry", "Date", "eel", "Fig"};
+      double[] weights = new double[]{5, 3, 8, 1, 4, 7, 2};
+      Autocomplete.Autocompletor single = new Autocomplete.TrieAutocomplete(terms, weights);
+      for (int shards = 1; shards <= 5; shards++) {
+         ShardedAutocomplete sharded = new ShardedAutocomplete(terms, weights, shards, "TrieAutocomplete",
+            ForkJoinPool.commonPool());
+         for (String term : new String[]{"Apple", "apple", "APPLE", "Apply", "banana", "CHERRY", "date", "EEL", "fig", "figs"})
+            Assert.assertEquals(term, single.weightOf(term), sharded.weightOf(term), 0);
+         for (int i = 0; i < terms.length; i++)
+            Assert.assertEquals(weights[i], sharded.weightOf(terms[i]), 0);
+         Assert.assertEquals(0.0, sharded.weightOf(null), 0);
+      }
+   }
+
+   @Test public void testduplicates() {
+      try {
+         new ShardedAutocomplete(new String[]{"ape", "bat", "ape"}, new double[]{1, 2, 3}, 2,
+            "TrieAutocomplete", ForkJoinPool.commonPool());
+         Assert.fail("accepted a duplicate term");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+}
@@ -0,0 +1,295 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements Autocompletor over sorted parallel arrays of words and weights,
+ * with a range-maximum index over the weights so that the heaviest terms of a
+ * prefix range are found without scanning the range. The index is a
+ * RangeMaxIndex, a sparse table over blocks of terms whose queries cost O(1)
+ * in the range size.
+ *
+ * topMatch is one binary search pair plus one range query. topMatches pops
+ * the heaviest term of a range and pushes the two sub-ranges on either side
+ * of it, so it costs O(log N + k log k) regardless of how many terms match.
+ *
+ */
+public class SparseTableAutocomplete implements Autocomplete.BufferedAutocompletor {
+
+	/**
+	 * Terms sorted lexicographically; term ids are indices into these arrays.
+	 */
+   String[] myWords;
+   double[] myWeights;
+
+	/**
+	 * The range-maximum index over myWeights.
+	 */
+   RangeMaxIndex myIndex;
+
+	/**
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, a weight is
+	 *             negative or a term is duplicated
+	 */
+   public SparseTableAutocomplete(String[] terms, double[] weights) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      Term[] sorted = new Term[terms.length];
+      for (int i = 0; i < terms.length; i++) {
+         if (weights[i] < 0)
+            throw new IllegalArgumentException("Negative weight "+ weights[i]);
+         sorted[i] = new Term(terms[i], weights[i]);
+      }
+      Arrays.sort(sorted);
+      myWords = new String[sorted.length];
+      myWeights = new double[sorted.length];
+      for (int i = 0; i < sorted.length; i++) {
+         myWords[i] = sorted[i].getWord();
+         myWeights[i] = sorted[i].getWeight();
+         if (i > 0 && myWords[i].equals(myWords[i - 1]))
+            throw new IllegalArgumentException("Duplicate input terms");
+      }
+      myIndex = new RangeMaxIndex(myWeights);
+   }
+
+	/**
+	 * Returns the id of the heaviest term in myWords[lo..hi], inclusive.
+	 */
+   int argMax(int lo, int hi) {
+      return myIndex.argMax(lo, hi);
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words with the
+	 * largest weight which start with prefix, in descending weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      int[] ids = topIds(prefix, k);
+      ArrayList<String> ret = new ArrayList<String>(ids.length);
+      for (int id : ids)
+         ret.add(myWords[id]);
+      return ret;
+   }
+
+	/**
+	 * The same as topMatches, returning each word with its weight.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Term> topMatchesWithWeights(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      int[] ids = topIds(prefix, k);
+      ArrayList<Term> ret = new ArrayList<Term>(ids.length);
+      for (int id : ids)
+         ret.add(new Term(myWords[id], myWeights[id]));
+      return ret;
+   }
+
+	/**
+	 * Returns the ids of the (at most) k heaviest terms starting with prefix,
+	 * in descending weight order.
+	 */
+   int[] topIds(String prefix, int k) {
+      int f = Autocomplete.firstIndexOf(myWords, prefix);
+      if (f < 0 || k == 0)
+         return new int[0];
+      int l = Autocomplete.lastIndexOf(myWords, prefix);
+      int[] ids = new int[Math.min(k, l - f + 1)];
+      collect(f, l, ids.length, MatchBuffer.scratch(), ids);
+      return ids;
+   }
+
+	/**
+	 * Writes the ids of the (at most) k heaviest terms in myWords[f..l] into
+	 * out, in descending weight order, and returns how many were written.
+	 *
+	 * The heap holds sub-ranges keyed by the weight of their heaviest term.
+	 * Each heap value is a slot whose bounds and heaviest term sit in lo, hi
+	 * and max; every pop adds at most two slots. The heap and slot arrays are
+	 * scratch's, so a search allocates nothing once they have grown to k.
+	 */
+   int collect(int f, int l, int k, MatchBuffer.Scratch scratch, int[] out) {
+      scratch.ensure(2 * k + 1);
+      IndexMaxHeap pq = scratch.myHeap;
+      int[] lo = scratch.myLo, hi = scratch.myHi, max = scratch.myMax;
+      int slots = 0;
+      int found = 0;
+      pq.clear();
+      slots = myIndex.push(f, l, slots, lo, hi, max, pq);
+      while (!pq.isEmpty() && found < k) {
+         int r = pq.remove();
+         int m = max[r];
+         out[found++] = m;
+         if (m > lo[r])
+            slots = myIndex.push(lo[r], m - 1, slots, lo, hi, max, pq);
+         if (m < hi[r])
+            slots = myIndex.push(m + 1, hi[r], slots, lo, hi, max, pq);
+      }
+      return found;
+   }
+
+	/**
+	 * Fills into with the best-first range search over the calling thread's
+	 * scratch heap and slot arrays, writing term ids straight into the
+	 * buffer.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix or into is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public int topMatches(CharSequence prefix, int k, MatchBuffer into) {
+      if (prefix == null || into == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      into.reset(Math.min(k, myWords.length));
+      int f = Autocomplete.firstIndexOf(myWords, prefix);
+      if (f < 0 || k == 0)
+         return 0;
+      int l = Autocomplete.lastIndexOf(myWords, prefix);
+      k = Math.min(k, l - f + 1);
+      int found = collect(f, l, k, MatchBuffer.scratch(), into.myIds);
+      for (int i = 0; i < found; i++) {
+         into.myWords[i] = myWords[into.myIds[i]];
+         into.myWeights[i] = myWeights[into.myIds[i]];
+      }
+      into.mySize = found;
+      return found;
+   }
+
+	/**
+	 * Answers the prefixes in sorted order. Each prefix's range is searched
+	 * for only within the range of the nearest earlier prefix it extends, and
+	 * only past the range of the prefix before it, since every word it
+	 * matches sorts after those. A repeated prefix reuses the previous result,
+	 * and one id buffer and the thread's scratch space serve the whole batch.
+	 *
+	 * @throws NullPointerException
+	 *             if prefixes or any prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Iterable<String>> topMatchesBatch(List<String> prefixes, int k) {
+      Integer[] order = Autocomplete.batchOrder(prefixes, k);
+      Iterable<String>[] results = Autocomplete.newBatchResults(order.length);
+      MatchBuffer.Scratch scratch = MatchBuffer.scratch();
+      int[] ids = new int[Math.min(k, myWords.length)];
+      // the chain of earlier prefixes each extending the one below it, with
+      // their ranges [lo, hi)
+      String[] stem = new String[16];
+      int[] stemLo = new int[16];
+      int[] stemHi = new int[16];
+      int stems = 0;
+      int previousHi = 0;
+      for (int i = 0; i < order.length; i++) {
+         String prefix = prefixes.get(order[i]);
+         if (i > 0 && prefix.equals(stem[stems - 1])) {
+            results[order[i]] = results[order[i - 1]];
+            continue;
+         }
+         // unless prefix extends the previous one, its words sort after
+         // the previous range
+         int floor = stems > 0 && prefix.startsWith(stem[stems - 1]) ? 0 : previousHi;
+         while (stems > 0 && !prefix.startsWith(stem[stems - 1]))
+            stems--;
+         int beg = stems > 0 ? stemLo[stems - 1] : 0;
+         int end = stems > 0 ? stemHi[stems - 1] : myWords.length;
+         beg = Math.max(beg, Math.min(floor, end));
+         int lo = bound(beg, end, prefix, 0);
+         int hi = bound(lo, end, prefix, 1);
+         if (stems == stem.length) {
+            stem = Arrays.copyOf(stem, stems * 2);
+            stemLo = Arrays.copyOf(stemLo, stems * 2);
+            stemHi = Arrays.copyOf(stemHi, stems * 2);
+         }
+         stem[stems] = prefix;
+         stemLo[stems] = lo;
+         stemHi[stems++] = hi;
+         previousHi = hi;
+         ArrayList<String> ret = new ArrayList<String>(Math.min(k, 16));
+         if (lo < hi && k > 0) {
+            int found = collect(lo, hi - 1, Math.min(k, hi - lo), scratch, ids);
+            for (int j = 0; j < found; j++)
+               ret.add(myWords[ids[j]]);
+         }
+         results[order[i]] = ret;
+      }
+      return Arrays.asList(results);
+   }
+
+	/**
+	 * Returns the first index in [beg, end) whose word compares to prefix
+	 * (as by Autocomplete.comparePrefix) at least min, or end if none does:
+	 * the start of prefix's range for min 0, its end for min 1.
+	 */
+   private int bound(int beg, int end, String prefix, int min) {
+      while (beg < end) {
+         int mid = (beg + end) >>> 1;
+         if (Autocomplete.comparePrefix(myWords[mid], prefix) >= min)
+            end = mid;
+         else
+            beg = mid + 1;
+      }
+      return beg;
+   }
+
+	/**
+	 * Returns the largest-weight word starting with prefix, or an empty String
+	 * if there is none.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      int f = Autocomplete.firstIndexOf(myWords, prefix);
+      if (f < 0)
+         return "";
+      return myWords[argMax(f, Autocomplete.lastIndexOf(myWords, prefix))];
+   }
+
+	/**
+	 * Return the weight of a given term. If term is not in the dictionary,
+	 * return 0.0
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      int index = Arrays.binarySearch(myWords, term);
+      return index >= 0 ? myWeights[index] : 0.0;
+   }
+
+	/**
+	 * Returns the number of bytes used by the weight array, the word
+	 * references and the block sparse table, assuming 4-byte references.
+	 */
+   public long sizeInBytes() {
+      return 12L * myWords.length + myIndex.sizeInBytes();
+   }
+}
@@ -0,0 +1,159 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SparseTableAutocompleteTest {
+
+   public String[] terms;
+   public double[] weights;
+   public SparseTableAutocomplete n;
+   public Autocomplete.Autocompletor brute;
+
+   /*
+    * Every string of one to four letters from a..e, 780 terms in all, with
+    * distinct shuffled weights, so prefix ranges of every length start and
+    * end at all offsets within the index's blocks.
+    */
+   @Before public void testparameters() {
+      List<String> words = new ArrayList<String>();
+      addWords(words, "", 4);
+      terms = words.toArray(new String[0]);
+      List<Integer> order = new ArrayList<Integer>();
+      for (int i = 0; i < terms.length; i++)
+         order.add(i);
+      Collections.shuffle(order, new Random(401));
+      weights = new double[terms.length];
+      for (int i = 0; i < terms.length; i++)
+         weights[i] = order.get(i);
+      n = new SparseTableAutocomplete(terms, weights);
+      brute = new Autocomplete.BruteAutocomplete(terms, weights);
+   }
+
+   private static void addWords(List<String> words, String stem, int depth) {
+      if (depth == 0)
+         return;
+      for (char ch = 'a'; ch <= 'e'; ch++) {
+         words.add(stem + ch);
+         addWords(words, stem + ch, depth - 1);
+      }
+   }
+
+   @Test public void testagainstbrute() {
+      List<String> prefixes = new ArrayList<String>();
+      prefixes.add("");
+      for (String term : terms) {
+         if (term.length() < 4)
+            prefixes.add(term);
+      }
+      prefixes.addAll(Arrays.asList("f", "eeeee", "ab\uffff", "0"));
+      for (String prefix : prefixes) {
+         for (int k : new int[]{1, 2, 7, 33, 200, 1000}) {
+            Assert.assertEquals(prefix + " " + k, brute.topMatches(prefix, k), n.topMatches(prefix, k));
+            Iterator<Term> expected = brute.topMatchesWithWeights(prefix, k).iterator();
+            for (Term term : n.topMatchesWithWeights(prefix, k)) {
+               Term other = expected.next();
+               Assert.assertEquals(other.getWord(), term.getWord());
+               Assert.assertEquals(other.getWeight(), term.getWeight(), 0);
+            }
+            Assert.assertFalse(expected.hasNext());
+         }
+         Assert.assertEquals(Arrays.asList(), n.topMatches(prefix, 0));
+         Assert.assertEquals(prefix, brute.topMatch(prefix), n.topMatch(prefix));
+      }
+   }
+
+   /*
+    * Prefix ranges are contiguous, so the heaviest term of ranges of
+    * positions across block boundaries and inside one block is checked
+    * directly.
+    */
+   @Test public void testargmaxacrossblocks() {
+      Random random = new Random(402);
+      for (int q = 0; q < 5000; q++) {
+         int lo = random.nextInt(terms.length);
+         int hi = lo + random.nextInt(Math.min(terms.length - lo, q % 2 == 0 ? 40 : terms.length));
+         int best = lo;
+         for (int i = lo + 1; i <= hi; i++) {
+            if (n.myWeights[i] > n.myWeights[best])
+               best = i;
+         }
+         Assert.assertEquals(lo + ".." + hi, best, n.argMax(lo, hi));
+      }
+      for (int b = 1; b * RangeMaxIndex.BLOCK_SIZE < terms.length; b++) {
+         int edge = b * RangeMaxIndex.BLOCK_SIZE;
+         Assert.assertEquals(n.myWeights[edge - 1] > n.myWeights[edge] ? edge - 1 : edge, n.argMax(edge - 1, edge));
+      }
+   }
+
+   /*
+    * Ties go to the leftmost position, whether it lies in a partial block or
+    * in the blocks between.
+    */
+   @Test public void testargmaxties() {
+      double[] flat = new double[10 * RangeMaxIndex.BLOCK_SIZE];
+      RangeMaxIndex index = new RangeMaxIndex(flat);
+      Random random = new Random(403);
+      for (int q = 0; q < 2000; q++) {
+         int lo = random.nextInt(flat.length);
+         int hi = lo + random.nextInt(flat.length - lo);
+         Assert.assertEquals(lo, index.argMax(lo, hi));
+      }
+      double[] weights = new double[10 * RangeMaxIndex.BLOCK_SIZE];
+      int middle = 4 * RangeMaxIndex.BLOCK_SIZE + 3;
+      int right = 7 * RangeMaxIndex.BLOCK_SIZE + 5;
+      weights[middle] = 1;
+      weights[right] = 1;
+      index = new RangeMaxIndex(weights);
+      Assert.assertEquals(middle, index.argMax(RangeMaxIndex.BLOCK_SIZE + 1, right + 1));
+      Assert.assertEquals(middle, index.argMax(middle, right));
+      Assert.assertEquals(right, index.argMax(middle + 1, right));
+   }
+
+   @Test public void testkbeyondmatches() {
+      Assert.assertEquals(brute.topMatches("abc", 1000), n.topMatches("abc", 1000));
+      Assert.assertEquals(6, ((List<String>) n.topMatches("abc", 1000)).size());
+      Assert.assertEquals(terms.length, ((List<String>) n.topMatches("", Integer.MAX_VALUE)).size());
+      MatchBuffer buffer = new MatchBuffer(2);
+      Assert.assertEquals(31, n.topMatches("ab", 1000, buffer));
+      List<String> words = new ArrayList<String>();
+      for (int i = 0; i < buffer.size(); i++)
+         words.add(buffer.getWord(i));
+      Assert.assertEquals(brute.topMatches("ab", 1000), words);
+      Assert.assertEquals(0, n.topMatches("f", 1000, buffer));
+      Assert.assertTrue(buffer.isEmpty());
+   }
+
+   @Test public void testbatchmatchesloop() {
+      List<String> prefixes = Arrays.asList("ab", "a", "abc", "ab", "e", "f", "", "dd", "abcd", "b");
+      for (int k : new int[]{0, 3, 50, 1000}) {
+         List<Iterable<String>> batch = n.topMatchesBatch(prefixes, k);
+         for (int i = 0; i < prefixes.size(); i++)
+            Assert.assertEquals(n.topMatches(prefixes.get(i), k), batch.get(i));
+      }
+   }
+
+   @Test public void testweightof() {
+      for (int i = 0; i < terms.length; i++)
+         Assert.assertEquals(weights[i], n.weightOf(terms[i]), 0);
+      Assert.assertEquals(0.0, n.weightOf("f"), 0);
+      Assert.assertEquals(0.0, n.weightOf(null), 0);
+   }
+
+   @Test public void testarguments() {
+      try {
+         n.topMatches("a", -1);
+         Assert.fail("accepted a negative k");
+      } catch (IllegalArgumentException e) {
+      }
+      try {
+         new SparseTableAutocomplete(new String[]{"a", "b", "a"}, new double[]{1, 2, 3});
+         Assert.fail("accepted a duplicate term");
+      } catch (IllegalArgumentException e) {
+      }
+      SparseTableAutocomplete empty = new SparseTableAutocomplete(new String[0], new double[0]);
+      Assert.assertEquals(Arrays.asList(), empty.topMatches("", 5));
+      Assert.assertEquals("", empty.topMatch(""));
+   }
+}
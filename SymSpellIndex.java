@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A symmetric-delete spelling index in the manner of SymSpell: every word is
+ * indexed under each string obtained by deleting up to myMaxDist characters
+ * from it, so a lookup only generates the deletes of the query, looks each
+ * one up and verifies the few words it finds with a bounded Levenshtein
+ * distance, instead of searching the dictionary.
+ *
+ * If two words are within d edits of each other, deleting at most d
+ * characters from each makes them equal. Only the first myPrefixLength
+ * characters of a word are used for its deletes, which bounds the entries
+ * per word by deleteCount(prefixLength, maxDist) and is still exact:
+ * truncating both words to the same length cannot raise the number of
+ * deletes either one needs above d.
+ *
+ * A delete is stored as 32 bits of hash packed with the word's id into one
+ * long, and the longs are sorted, so the whole index is a single primitive
+ * array searched by binary search; hash collisions only add candidates that
+ * verification drops.
+ *
+ */
+public class SymSpellIndex {
+
+   public static final int DEFAULT_PREFIX_LENGTH = 7;
+
+   private final String[] myWords;
+   private final double[] myWeights;
+   private final int myMaxDist;
+   private final int myPrefixLength;
+   private final long[] myEntries;
+
+	/**
+	 * Indexes words for lookups within maxDist edits, using their first
+	 * DEFAULT_PREFIX_LENGTH characters.
+	 *
+	 * @see #SymSpellIndex(String[], double[], int, int)
+	 */
+   public SymSpellIndex(String[] words, double[] weights, int maxDist) {
+      this(words, weights, maxDist, DEFAULT_PREFIX_LENGTH);
+   }
+
+	/**
+	 * The arrays are kept, not copied, and must not be changed afterwards.
+	 *
+	 * @param words
+	 *            - The distinct words to index
+	 * @param weights
+	 *            - Their weights, such that words[i] has weight weights[i].
+	 * @param maxDist
+	 *            - The largest edit distance lookups may ask for
+	 * @param prefixLength
+	 *            - How many leading characters of each word are used for its
+	 *            deletes; at least maxDist and at most 63
+	 * @throws NullPointerException
+	 *             if either array or any word is null
+	 * @throws IllegalArgumentException
+	 *             if words and weights are different lengths, maxDist is
+	 *             negative, prefixLength is out of range or the deletes of
+	 *             the words could overflow a Java array
+	 */
+   public SymSpellIndex(String[] words, double[] weights, int maxDist, int prefixLength) {
+      if (words == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (words.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      if (maxDist < 0)
+         throw new IllegalArgumentException("Illegal edit distance:" + maxDist);
+      if (prefixLength < Math.max(maxDist, 1) || prefixLength > 63)
+         throw new IllegalArgumentException("Illegal prefix length:" + prefixLength);
+      myWords = words;
+      myWeights = weights;
+      myMaxDist = maxDist;
+      myPrefixLength = prefixLength;
+      long perWord = deleteCount(prefixLength, maxDist);
+      if (perWord * words.length > Integer.MAX_VALUE - 8)
+         throw new IllegalArgumentException("Too many words to index: " + words.length
+               + " words of up to " + perWord + " deletes each");
+      long[] entries = new long[(int) (perWord * words.length)];
+      long[] hashes = new long[(int) perWord];
+      int size = 0;
+      for (int id = 0; id < words.length; id++) {
+         int count = deletes(words[id], maxDist, hashes);
+         for (int i = 0; i < count; i++)
+            entries[size++] = hashes[i] << 32 | id;
+      }
+      Arrays.parallelSort(entries, 0, size);
+      myEntries = Arrays.copyOf(entries, size);
+   }
+
+	/**
+	 * Returns the most deletes a word of length characters has with up to
+	 * dist of them removed, C(length, 0) + ... + C(length, dist).
+	 */
+   private static long deleteCount(int length, int dist) {
+      long count = 0, c = 1;
+      for (int d = 0; d <= Math.min(dist, length); d++) {
+         count += c;
+         c = c * (length - d) / (d + 1);
+      }
+      return count;
+   }
+
+	/**
+	 * Writes the distinct hashes of every string made by deleting up to dist
+	 * characters from the first myPrefixLength characters of word into out,
+	 * each as a sign-extended int, and returns how many there are.
+	 */
+   private int deletes(String word, int dist, long[] out) {
+      int length = Math.min(word.length(), myPrefixLength);
+      int count = deletes(word, length, 0, dist, 0L, out, 0);
+      Arrays.sort(out, 0, count);
+      int unique = 0;
+      for (int i = 0; i < count; i++) {
+         if (unique == 0 || out[i] != out[unique - 1])
+            out[unique++] = out[i];
+      }
+      return unique;
+   }
+
+	/**
+	 * Hashes word[0..length) with every choice of up to left more deletions
+	 * at or after from, given the skipped positions so far as a bit mask.
+	 */
+   private static int deletes(String word, int length, int from, int left, long skipped, long[] out, int count) {
+      out[count++] = hash(word, length, skipped);
+      if (left == 0)
+         return count;
+      for (int i = from; i < length; i++)
+         count = deletes(word, length, i + 1, left - 1, skipped | 1L << i, out, count);
+      return count;
+   }
+
+   private static long hash(String word, int length, long skipped) {
+      long h = 0xCBF29CE484222325L;
+      for (int i = 0; i < length; i++) {
+         if ((skipped & 1L << i) == 0)
+            h = (h ^ word.charAt(i)) * 0x100000001B3L;
+      }
+      h ^= h >>> 33;
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 33;
+      return (int) h;
+   }
+
+	/**
+	 * Returns the k heaviest indexed words within dist edits of word, not
+	 * counting word itself, in descending weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if word is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative or dist is negative or more than the
+	 *             index was built for
+	 */
+   public List<String> lookup(String word, int dist, int k) {
+      if (word == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:" + k);
+      if (dist < 0 || dist > myMaxDist)
+         throw new IllegalArgumentException("Illegal edit distance:" + dist);
+      List<String> ret = new ArrayList<String>();
+      if (k == 0)
+         return ret;
+      long[] hashes = new long[(int) deleteCount(myPrefixLength, dist)];
+      int count = deletes(word, dist, hashes);
+      int[] candidates = new int[16];
+      int found = 0;
+      for (int i = 0; i < count; i++) {
+         long key = hashes[i] << 32;
+         for (int e = lowerBound(key); e < myEntries.length && (myEntries[e] & ~0xFFFFFFFFL) == key; e++) {
+            if (found == candidates.length)
+               candidates = Arrays.copyOf(candidates, found * 2);
+            candidates[found++] = (int) myEntries[e];
+         }
+      }
+      Arrays.sort(candidates, 0, found);
+      IndexMaxHeap pq = new IndexMaxHeap();
+      for (int i = 0; i < found; i++) {
+         int id = candidates[i];
+         if (i > 0 && id == candidates[i - 1])
+            continue;
+         String candidate = myWords[id];
+         if (Math.abs(candidate.length() - word.length()) <= dist && !candidate.equals(word)
+               && distance(word, candidate, dist) <= dist)
+            pq.add(id, myWeights[id]);
+      }
+      while (ret.size() < k && !pq.isEmpty())
+         ret.add(myWords[pq.remove()]);
+      return ret;
+   }
+
+	/**
+	 * Returns the first index of myEntries not less than key.
+	 */
+   private int lowerBound(long key) {
+      int beg = 0, end = myEntries.length;
+      while (beg < end) {
+         int mid = (beg + end) >>> 1;
+         if (myEntries[mid] < key)
+            beg = mid + 1;
+         else
+            end = mid;
+      }
+      return beg;
+   }
+
+	/**
+	 * Returns the Levenshtein distance between a and b, or max + 1 if it is
+	 * more than max.
+	 */
+   static int distance(String a, String b, int max) {
+      int[] row = new int[b.length() + 1];
+      int[] next = new int[b.length() + 1];
+      for (int j = 0; j <= b.length(); j++)
+         row[j] = j;
+      for (int i = 1; i <= a.length(); i++) {
+         next[0] = i;
+         int min = i;
+         char ch = a.charAt(i - 1);
+         for (int j = 1; j <= b.length(); j++) {
+            next[j] = Math.min(Math.min(row[j], next[j - 1]) + 1, row[j - 1] + (ch == b.charAt(j - 1) ? 0 : 1));
+            min = Math.min(min, next[j]);
+         }
+         if (min > max)
+            return max + 1;
+         int[] swap = row;
+         row = next;
+         next = swap;
+      }
+      return Math.min(row[b.length()], max + 1);
+   }
+
+	/**
+	 * Returns the number of (delete, word) entries in the index.
+	 */
+   public int size() {
+      return myEntries.length;
+   }
+
+	/**
+	 * Returns the memory held by the index's own array, not counting the
+	 * words and weights it was given.
+	 */
+   public long sizeInBytes() {
+      return 16 + 8L * myEntries.length;
+   }
+}
@@ -0,0 +1,64 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class SymSpellIndexTest {
+
+   @Test public void testlookup() {
+      String[] words = new String[]{"ape", "app", "apple", "ban", "bat", "bee"};
+      SymSpellIndex index = new SymSpellIndex(words, new double[]{6, 4, 9, 2, 3, 5}, 2);
+      Assert.assertEquals(Arrays.asList("ape", "app"), index.lookup("apx", 1, 5));
+      Assert.assertEquals(Arrays.asList("apple", "ape", "app"), index.lookup("appl", 2, 5));
+      Assert.assertEquals(Arrays.asList("app"), index.lookup("ape", 1, 5));
+      Assert.assertEquals(new ArrayList<String>(), index.lookup("zzz", 2, 5));
+      try {
+         index.lookup("ape", 3, 5);
+         Assert.fail("accepted a distance the index was not built for");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   @Test public void testtoolarge() {
+      // about 10^11 deletes of a 63-character prefix within 10 edits
+      try {
+         new SymSpellIndex(new String[]{"a"}, new double[]{1}, 10, 63);
+         Assert.fail("accepted an index too large for one array");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   @Test public void testagainstscan() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(4000, 23);
+      String[] terms = dictionary.getTerms();
+      double[] weights = dictionary.getWeights();
+      SymSpellIndex index = new SymSpellIndex(terms, weights, 2, 4);
+      Autocomplete.TrieAutocomplete trie = new Autocomplete.TrieAutocomplete(terms, weights);
+      Random random = new Random(13);
+      for (int q = 0; q < 60; q++) {
+         char[] word = terms[random.nextInt(terms.length)].toCharArray();
+         word[random.nextInt(word.length)] = (char) ('a' + random.nextInt(26));
+         String typo = new String(word);
+         if (random.nextBoolean())
+            typo = typo.substring(0, typo.length() - 1) + "ab";
+         for (int dist = 0; dist <= 2; dist++) {
+            List<Double> expected = new ArrayList<Double>();
+            for (int i = 0; i < terms.length; i++) {
+               if (!terms[i].equals(typo) && SymSpellIndex.distance(typo, terms[i], dist) <= dist)
+                  expected.add(weights[i]);
+            }
+            Collections.sort(expected, Collections.reverseOrder());
+            expected = expected.subList(0, Math.min(6, expected.size()));
+            Assert.assertEquals(expected, weightsOf(index.lookup(typo, dist, 6), trie));
+            Assert.assertEquals(expected, weightsOf(trie.spellCheckTrie(typo, dist, 6), trie));
+         }
+      }
+   }
+
+   private static List<Double> weightsOf(List<String> words, Autocomplete.Autocompletor auto) {
+      List<Double> weights = new ArrayList<Double>();
+      for (String word : words)
+         weights.add(auto.weightOf(word));
+      return weights;
+   }
+}
@@ -0,0 +1,204 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Random;
+
+/**
+ * Generates a reproducible dictionary of distinct lowercase words with
+ * Zipf-distributed weights, for benchmarks that must run headless and give
+ * the same input on every run.
+ *
+ * Letters are drawn with English letter frequencies, so short prefixes are
+ * shared by many words the way they are in real dictionaries. Word lengths
+ * are uniform in [MIN_LENGTH, MAX_LENGTH]. The word at Zipf rank r (ranks are
+ * assigned in random order) has weight floor(TOP_WEIGHT / r^exponent).
+ *
+ *  % java SyntheticDictionary 1000000 words.txt
+ *
+ */
+public class SyntheticDictionary {
+
+   public static final int MIN_LENGTH = 3;
+   public static final int MAX_LENGTH = 12;
+   public static final double TOP_WEIGHT = 1e9;
+   public static final double DEFAULT_EXPONENT = 1.0;
+
+   private static final String LETTERS = "etaoinshrdlcumwfgypbvkjxqz";
+   private static final double[] LETTER_FREQUENCIES = {
+      12.7, 9.1, 8.2, 7.5, 7.0, 6.7, 6.3, 6.1, 6.0, 4.3, 4.0, 2.8, 2.8,
+      2.4, 2.4, 2.2, 2.0, 2.0, 1.9, 1.5, 1.0, 0.8, 0.2, 0.2, 0.1, 0.1 };
+
+   private final String[] myTerms;
+   private final double[] myWeights;
+   private double[] myCumulative;
+
+	/**
+	 * Equivalent to SyntheticDictionary(size, seed, DEFAULT_EXPONENT).
+	 */
+   public SyntheticDictionary(int size, long seed) {
+      this(size, seed, DEFAULT_EXPONENT);
+   }
+
+	/**
+	 * @param size
+	 *            - The number of distinct words to generate
+	 * @param seed
+	 *            - Seed for the generator; equal seeds give equal dictionaries
+	 * @param exponent
+	 *            - The Zipf exponent of the weight distribution
+	 * @throws IllegalArgumentException
+	 *             if size is negative
+	 */
+   public SyntheticDictionary(int size, long seed, double exponent) {
+      if (size < 0)
+         throw new IllegalArgumentException("Negative size " + size);
+      Random random = new Random(seed);
+      double[] cumulativeLetters = new double[LETTERS.length()];
+      double total = 0;
+      for (int i = 0; i < LETTER_FREQUENCIES.length; i++) {
+         total += LETTER_FREQUENCIES[i];
+         cumulativeLetters[i] = total;
+      }
+      myTerms = new String[size];
+      myWeights = new double[size];
+      HashSet<String> seen = new HashSet<String>();
+      char[] buffer = new char[MAX_LENGTH];
+      int count = 0;
+      while (count < size) {
+         int length = MIN_LENGTH + random.nextInt(MAX_LENGTH - MIN_LENGTH + 1);
+         for (int i = 0; i < length; i++)
+            buffer[i] = LETTERS.charAt(search(cumulativeLetters, random.nextDouble() * total));
+         String word = new String(buffer, 0, length);
+         if (seen.add(word))
+            myTerms[count++] = word;
+      }
+      int[] ranks = new int[size];
+      for (int i = 0; i < size; i++)
+         ranks[i] = i + 1;
+      for (int i = size - 1; i > 0; i--) {
+         int j = random.nextInt(i + 1);
+         int swap = ranks[i];
+         ranks[i] = ranks[j];
+         ranks[j] = swap;
+      }
+      for (int i = 0; i < size; i++)
+         myWeights[i] = Math.floor(TOP_WEIGHT / Math.pow(ranks[i], exponent));
+   }
+
+	/**
+	 * Returns the first index whose cumulative value exceeds target.
+	 */
+   private static int search(double[] cumulative, double target) {
+      int beg = 0, end = cumulative.length - 1;
+      while (beg < end) {
+         int mid = (beg + end) >>> 1;
+         if (cumulative[mid] <= target) beg = mid + 1;
+         else end = mid;
+      }
+      return beg;
+   }
+
+   public String[] getTerms() {
+      return myTerms;
+   }
+
+   public double[] getWeights() {
+      return myWeights;
+   }
+
+   public int size() {
+      return myTerms.length;
+   }
+
+	/**
+	 * Returns the running sums of weights, for use with sample.
+	 */
+   public static double[] cumulativeWeights(double[] weights) {
+      double[] cumulative = new double[weights.length];
+      double total = 0;
+      for (int i = 0; i < weights.length; i++) {
+         total += weights[i];
+         cumulative[i] = total;
+      }
+      return cumulative;
+   }
+
+	/**
+	 * Returns an index drawn with probability proportional to its weight,
+	 * given the running sums from cumulativeWeights.
+	 */
+   public static int sample(double[] cumulative, Random random) {
+      return search(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+   }
+
+	/**
+	 * Returns the index of a term drawn with probability proportional to its
+	 * weight, which models how often users go on to type it.
+	 */
+   public int sampleTerm(Random random) {
+      if (myCumulative == null)
+         myCumulative = cumulativeWeights(myWeights);
+      return sample(myCumulative, random);
+   }
+
+	/**
+	 * Returns count prefixes of the given length (or whole words, for words
+	 * shorter than length) of terms drawn by sampleTerm.
+	 */
+   public String[] samplePrefixes(int count, int length, Random random) {
+      String[] prefixes = new String[count];
+      for (int i = 0; i < count; i++) {
+         String term = myTerms[sampleTerm(random)];
+         prefixes[i] = term.substring(0, Math.min(length, term.length()));
+      }
+      return prefixes;
+   }
+
+	/**
+	 * Returns a multi-word term for every word, with the same weight as the
+	 * word: the word followed by 0 to maxWords - 1 more words drawn by
+	 * sampleTerm, separated by spaces. The terms are distinct, since their
+	 * first words are.
+	 */
+   public String[] getPhrases(int maxWords, Random random) {
+      String[] phrases = new String[myTerms.length];
+      StringBuilder phrase = new StringBuilder();
+      for (int i = 0; i < myTerms.length; i++) {
+         phrase.setLength(0);
+         phrase.append(myTerms[i]);
+         int words = 1 + random.nextInt(Math.max(maxWords, 1));
+         for (int w = 1; w < words; w++)
+            phrase.append(' ').append(myTerms[sampleTerm(random)]);
+         phrases[i] = phrase.toString();
+      }
+      return phrases;
+   }
+
+	/**
+	 * Writes the dictionary in the "count\nweight\tterm" format read by
+	 * AutocompleteGUI and AutocompletorBenchmark.
+	 */
+   public void write(File file) throws FileNotFoundException {
+      PrintWriter out = new PrintWriter(file);
+      try {
+         out.println(myTerms.length);
+         for (int i = 0; i < myTerms.length; i++) {
+            out.print((long) myWeights[i]);
+            out.print('\t');
+            out.println(myTerms[i]);
+         }
+      } finally {
+         out.close();
+      }
+   }
+
+   public static void main(String[] args) throws FileNotFoundException {
+      if (args.length < 2) {
+         System.err.println("Usage: java SyntheticDictionary size file [seed]");
+         System.exit(1);
+      }
+      long seed = args.length > 2 ? Long.parseLong(args[2]) : 1234;
+      new SyntheticDictionary(Integer.parseInt(args[0]), seed).write(new File(args[1]));
+   }
+}
@@ -62,24 +62,21 @@ public class Term implements Comparable<Term> {
          *            - Two Terms whose words are being compared
          */
       public int compare(Term v, Term w) {
-            // TODO: Implement compare
-         int vLength = v.getWord().length();
-         int wLength = w.getWord().length();
-         if (vLength < r || wLength < r) {
-            if (vLength == wLength) {
-               return v.getWord().compareTo(w.getWord());
-            }
-            int min = Math.min(vLength, wLength);
-            int result = v.getWord().substring(0, min).compareTo(w.getWord().substring(0, min));
-            if (result == 0) {
-               if (vLength < wLength) {
-                  return -1;
-               }
-               return 1;
-            }
-            return result;
+         String vWord = v.getWord();
+         String wWord = w.getWord();
+         int vLength = vWord.length();
+         int wLength = wWord.length();
+         // compare in place rather than through substring(0, r), which
+         // allocated two Strings per comparison
+         int min = Math.min(r, Math.min(vLength, wLength));
+         for (int i = 0; i < min; i++) {
+            int diff = vWord.charAt(i) - wWord.charAt(i);
+            if (diff != 0)
+               return diff;
          }
-         return v.getWord().substring(0, r).compareTo(w.getWord().substring(0, r));
+         if ((vLength >= r && wLength >= r) || vLength == wLength)
+            return 0;
+         return vLength < wLength ? -1 : 1;
       }
    }
 
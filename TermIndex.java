@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * An exact-match index from term to weight for weightOf: an open-addressing
+ * hash table with linear probing over parallel arrays of words, their
+ * case-folded forms and primitive weights, so a lookup hashes the term once
+ * and compares only the entries on its probe sequence.
+ *
+ * Terms are matched ignoring case, as BruteAutocomplete always has. Each
+ * word's lower-case form is computed and hashed when it is added, so a lookup
+ * folds only the query; a word that is already lower case is its own folded
+ * form and costs no extra memory. A query that equals a word exactly gets
+ * that word's weight, and otherwise the earliest added word equal to it
+ * ignoring case wins.
+ *
+ * The index is not thread-safe while words are being added; once built it can
+ * be read from any number of threads.
+ *
+ */
+public class TermIndex {
+
+   private int[] mySlots;
+   private String[] myWords;
+   private String[] myFolded;
+   private int[] myHashes;
+   private double[] myWeights;
+   private int mySize;
+
+	/**
+	 * Indexes every term, a repeated term keeping its last weight.
+	 *
+	 * @param terms
+	 *            - The words to index
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @throws NullPointerException
+	 *             if either argument or any term is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths
+	 */
+   public TermIndex(String[] terms, double[] weights) {
+      this(terms.length);
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      for (int i = 0; i < terms.length; i++)
+         put(terms[i], weights[i]);
+   }
+
+	/**
+	 * Creates an empty index with room for expectedSize terms before it
+	 * grows.
+	 */
+   public TermIndex(int expectedSize) {
+      int capacity = Integer.highestOneBit(Math.max(2 * expectedSize, 8) - 1) << 1;
+      mySlots = new int[capacity];
+      int entries = Math.max(expectedSize, 4);
+      myWords = new String[entries];
+      myFolded = new String[entries];
+      myHashes = new int[entries];
+      myWeights = new double[entries];
+   }
+
+   private static String fold(String term) {
+      return term.toLowerCase(Locale.ROOT);
+   }
+
+   private static int hash(String folded) {
+      int h = folded.hashCode() * 0x9E3779B9;
+      return h ^ (h >>> 16);
+   }
+
+	/**
+	 * Adds term with the given weight, or replaces the weight of term if it
+	 * has been added before.
+	 *
+	 * @throws NullPointerException
+	 *             if term is null
+	 */
+   public void put(String term, double weight) {
+      String folded = fold(term);
+      int h = hash(folded);
+      int mask = mySlots.length - 1;
+      int i = h & mask;
+      for (int e = mySlots[i]; e != 0; e = mySlots[i]) {
+         if (myHashes[e - 1] == h && myWords[e - 1].equals(term)) {
+            myWeights[e - 1] = weight;
+            return;
+         }
+         i = (i + 1) & mask;
+      }
+      if (mySize == myWords.length) {
+         int grown = mySize * 2;
+         myWords = Arrays.copyOf(myWords, grown);
+         myFolded = Arrays.copyOf(myFolded, grown);
+         myHashes = Arrays.copyOf(myHashes, grown);
+         myWeights = Arrays.copyOf(myWeights, grown);
+      }
+      myWords[mySize] = term;
+      myFolded[mySize] = folded;
+      myHashes[mySize] = h;
+      myWeights[mySize] = weight;
+      mySize++;
+      if (2 * mySize > mySlots.length)
+         rehash(mySlots.length * 2);
+      else
+         mySlots[i] = mySize;
+   }
+
+	/**
+	 * Rebuilds the table with the given number of slots, inserting the
+	 * entries in the order they were added so each probe sequence still
+	 * meets them in that order.
+	 */
+   private void rehash(int capacity) {
+      mySlots = new int[capacity];
+      int mask = capacity - 1;
+      for (int e = 0; e < mySize; e++) {
+         int i = myHashes[e] & mask;
+         while (mySlots[i] != 0)
+            i = (i + 1) & mask;
+         mySlots[i] = e + 1;
+      }
+   }
+
+	/**
+	 * Returns the weight of term, ignoring case, or 0.0 if term is null or
+	 * not in the index.
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      String folded = fold(term);
+      int h = hash(folded);
+      int mask = mySlots.length - 1;
+      int match = -1;
+      for (int i = h & mask, e = mySlots[i]; e != 0; i = (i + 1) & mask, e = mySlots[i]) {
+         e--;
+         if (myHashes[e] != h || !myFolded[e].equals(folded))
+            continue;
+         if (myWords[e].equals(term))
+            return myWeights[e];
+         if (match < 0)
+            match = e;
+      }
+      return match >= 0 ? myWeights[match] : 0.0;
+   }
+
+	/**
+	 * Returns the number of distinct terms indexed.
+	 */
+   public int size() {
+      return mySize;
+   }
+}
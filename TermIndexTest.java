@@ -0,0 +1,54 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TermIndexTest {
+
+   @Test public void testweights() {
+      TermIndex index = new TermIndex(new String[]{"ape", "App", "app", "bat"}, new double[]{6, 4, 2, 3});
+      Assert.assertEquals(4, index.size());
+      Assert.assertEquals(6, index.weightOf("ape"), 0);
+      Assert.assertEquals(6, index.weightOf("APE"), 0);
+      Assert.assertEquals(4, index.weightOf("App"), 0);
+      Assert.assertEquals(2, index.weightOf("app"), 0);
+      Assert.assertEquals(4, index.weightOf("aPP"), 0);
+      Assert.assertEquals(0, index.weightOf("ap"), 0);
+      Assert.assertEquals(0, index.weightOf(""), 0);
+      Assert.assertEquals(0, index.weightOf(null), 0);
+      index.put("bat", 9);
+      Assert.assertEquals(9, index.weightOf("Bat"), 0);
+      Assert.assertEquals(4, index.size());
+   }
+
+   @Test public void testgrowth() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(5000, 11);
+      String[] terms = dictionary.getTerms();
+      double[] weights = dictionary.getWeights();
+      TermIndex index = new TermIndex(1);
+      for (int i = 0; i < terms.length; i++)
+         index.put(terms[i], weights[i]);
+      Assert.assertEquals(terms.length, index.size());
+      for (int i = 0; i < terms.length; i++) {
+         Assert.assertEquals(weights[i], index.weightOf(terms[i]), 0);
+         Assert.assertEquals(weights[i], index.weightOf(terms[i].toUpperCase()), 0);
+         Assert.assertEquals(0, index.weightOf(terms[i] + "\u0000"), 0);
+      }
+   }
+
+   @Test public void testengines() {
+      String[] terms = new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat"};
+      double[] weights = new double[]{6, 4, 2, 3, 5, 7, 1};
+      Autocomplete.Autocompletor[] engines = {
+         new Autocomplete.BruteAutocomplete(terms, weights),
+         new Autocomplete.BinarySearchAutocomplete(terms, weights),
+         new Autocomplete.TrieAutocomplete(terms, weights)};
+      for (Autocomplete.Autocompletor auto : engines) {
+         for (int i = 0; i < terms.length; i++)
+            Assert.assertEquals(weights[i], auto.weightOf(terms[i]), 0);
+         Assert.assertEquals(7, auto.weightOf("CAR"), 0);
+         Assert.assertEquals(0, auto.weightOf("ca"), 0);
+         Assert.assertEquals(0, auto.weightOf("dog"), 0);
+      }
+   }
+}
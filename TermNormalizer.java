@@ -0,0 +1,106 @@
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Maps terms and prefixes to the keys they are matched by: compatibility
+ * decomposition (so ligatures, full-width forms and the like match their
+ * plain letters), case folding in a given locale, optionally the removal of
+ * accents and other non-spacing marks, and canonical recomposition, which
+ * together give NFKC keys.
+ *
+ * Case folding maps to upper case and back to lower case, so letters whose
+ * lower-case forms differ only by case mapping (sharp s and "SS", long s
+ * and "s") fold together. Plain ASCII text is folded in place without the
+ * Normalizer in every locale but Turkish and Azerbaijani, whose dotted and
+ * dotless i fold differently, and text that is already lower-case ASCII is
+ * returned as it is.
+ *
+ * The key of a prefix is a prefix of the key of the term it starts except
+ * where the two are cut inside a character sequence that composes or folds
+ * together, such as a letter and a combining mark typed separately.
+ *
+ */
+public class TermNormalizer {
+
+	/**
+	 * Folds case with Locale.ROOT and strips accents.
+	 */
+   public static final TermNormalizer DEFAULT = new TermNormalizer(Locale.ROOT, true);
+
+   private final Locale myLocale;
+   private final boolean myStripAccents;
+   private final boolean myAsciiFolds;
+
+	/**
+	 * @param locale
+	 *            - The locale whose case mappings are used
+	 * @param stripAccents
+	 *            - Whether accents are removed, so "caf\u00e9" matches "cafe"
+	 * @throws NullPointerException
+	 *             if locale is null
+	 */
+   public TermNormalizer(Locale locale, boolean stripAccents) {
+      if (locale == null)
+         throw new NullPointerException("One or more arguments null");
+      myLocale = locale;
+      myStripAccents = stripAccents;
+      String language = locale.getLanguage();
+      myAsciiFolds = !language.equals("tr") && !language.equals("az");
+   }
+
+   public Locale getLocale() {
+      return myLocale;
+   }
+
+   public boolean stripsAccents() {
+      return myStripAccents;
+   }
+
+	/**
+	 * Returns the key of text.
+	 *
+	 * @throws NullPointerException
+	 *             if text is null
+	 */
+   public String normalize(String text) {
+      int upper = 0;
+      for (int i = 0; i < text.length(); i++) {
+         char ch = text.charAt(i);
+         if (ch >= 0x80) {
+            upper = -1;
+            break;
+         }
+         if (ch >= 'A' && ch <= 'Z')
+            upper++;
+      }
+      if (upper == 0)
+         return text;
+      if (upper > 0 && myAsciiFolds) {
+         char[] folded = new char[text.length()];
+         for (int i = 0; i < folded.length; i++) {
+            char ch = text.charAt(i);
+            folded[i] = ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+         }
+         return new String(folded);
+      }
+      String key = Normalizer.normalize(text, Normalizer.Form.NFKD);
+      key = key.toUpperCase(myLocale).toLowerCase(myLocale);
+      if (myStripAccents)
+         key = stripMarks(key);
+      return Normalizer.normalize(key, Normalizer.Form.NFC);
+   }
+
+	/**
+	 * Removes the non-spacing marks from decomposed text.
+	 */
+   private static String stripMarks(String text) {
+      StringBuilder ret = new StringBuilder(text.length());
+      for (int i = 0; i < text.length(); ) {
+         int cp = text.codePointAt(i);
+         if (Character.getType(cp) != Character.NON_SPACING_MARK)
+            ret.appendCodePoint(cp);
+         i += Character.charCount(cp);
+      }
+      return ret.toString();
+   }
+}
@@ -0,0 +1,306 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implements Autocompletor over two SparseTableAutocomplete tiers split by
+ * weight: a small hot tier holding the heaviest terms and a cold tier holding
+ * the long tail.
+ *
+ * Every hot term weighs at least as much as every cold term, so a query is
+ * answered from the hot tier alone whenever the hot tier has k matches: the
+ * k-th of them then weighs at least as much as any cold match. Only when it
+ * has fewer is the cold tier searched, for the rest of the k, which all
+ * follow the hot matches. With Zipf-distributed weights, short and popular
+ * prefixes stop in the hot tier, whose arrays are small enough to stay in
+ * cache.
+ *
+ * Once setRecording(true) is called, the number of queries answered by the
+ * hot tier alone and the time spent in each tier are recorded, into
+ * LatencyRecorders that take no lock; main prints them for a
+ * SyntheticDictionary. Recording is off by default, so queries do not read
+ * the clock.
+ *
+ */
+public class TieredAutocomplete implements Autocomplete.Autocompletor {
+
+   public static final int DEFAULT_HOT_SIZE = 1 << 13;
+
+   final SparseTableAutocomplete myHot;
+   final SparseTableAutocomplete myCold;
+
+   private final LongAdder myQueries = new LongAdder();
+   private final LongAdder myHotAnswered = new LongAdder();
+   private final LatencyRecorder myHotLatency = new LatencyRecorder();
+   private final LatencyRecorder myColdLatency = new LatencyRecorder();
+   private volatile boolean myRecording;
+
+	/**
+	 * Puts the DEFAULT_HOT_SIZE heaviest terms in the hot tier.
+	 *
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 */
+   public TieredAutocomplete(String[] terms, double[] weights) {
+      this(terms, weights, DEFAULT_HOT_SIZE);
+   }
+
+	/**
+	 * @param terms
+	 *            - The words we will autocomplete from
+	 * @param weights
+	 *            - Their weights, such that terms[i] has weight weights[i].
+	 * @param hotSize
+	 *            - How many of the heaviest terms go in the hot tier
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, hotSize is
+	 *             negative, a weight is negative or a term is duplicated
+	 */
+   public TieredAutocomplete(String[] terms, double[] weights, int hotSize) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+      if (hotSize < 0)
+         throw new IllegalArgumentException("Illegal hot tier size:" + hotSize);
+      hotSize = Math.min(hotSize, terms.length);
+      // terms heavier than the threshold are hot, as are enough of those
+      // equal to it to make up hotSize
+      double threshold = Double.POSITIVE_INFINITY;
+      if (hotSize > 0) {
+         double[] sorted = weights.clone();
+         Arrays.sort(sorted);
+         threshold = sorted[sorted.length - hotSize];
+      }
+      int above = 0;
+      for (double weight : weights) {
+         if (weight > threshold)
+            above++;
+      }
+      int ties = hotSize - above;
+      String[] hotTerms = new String[hotSize];
+      double[] hotWeights = new double[hotSize];
+      String[] coldTerms = new String[terms.length - hotSize];
+      double[] coldWeights = new double[terms.length - hotSize];
+      int hot = 0, cold = 0;
+      for (int i = 0; i < terms.length; i++) {
+         if (weights[i] > threshold || (weights[i] == threshold && ties-- > 0)) {
+            hotTerms[hot] = terms[i];
+            hotWeights[hot++] = weights[i];
+         } else {
+            coldTerms[cold] = terms[i];
+            coldWeights[cold++] = weights[i];
+         }
+      }
+      myHot = new SparseTableAutocomplete(hotTerms, hotWeights);
+      myCold = new SparseTableAutocomplete(coldTerms, coldWeights);
+      for (String word : myHot.myWords) {
+         if (Arrays.binarySearch(myCold.myWords, word) >= 0)
+            throw new IllegalArgumentException("Duplicate input terms");
+      }
+   }
+
+	/**
+	 * Required by the Autocompletor interface. Returns the k words with the
+	 * largest weight which start with prefix, in descending weight order.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public Iterable<String> topMatches(String prefix, int k) {
+      return Autocomplete.wordsOf(topMatchesWithWeights(prefix, k));
+   }
+
+	/**
+	 * The same as topMatches, returning each word with its weight.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 * @throws IllegalArgumentException
+	 *             if k is negative
+	 */
+   public List<Term> topMatchesWithWeights(String prefix, int k) {
+      if (prefix == null)
+         throw new NullPointerException();
+      if (k < 0)
+         throw new IllegalArgumentException("Illegal value of k:"+k);
+      ArrayList<Term> ret = new ArrayList<Term>(Math.min(k, 16));
+      if (k == 0)
+         return ret;
+      boolean recording = myRecording;
+      long start = recording ? System.nanoTime() : 0;
+      int[] hotIds = myHot.topIds(prefix, k);
+      long hotEnd = recording ? System.nanoTime() : 0;
+      for (int id : hotIds)
+         ret.add(new Term(myHot.myWords[id], myHot.myWeights[id]));
+      if (hotIds.length == k) {
+         if (recording)
+            record(hotEnd - start, false, 0);
+         return ret;
+      }
+      for (int id : myCold.topIds(prefix, k - hotIds.length))
+         ret.add(new Term(myCold.myWords[id], myCold.myWeights[id]));
+      if (recording)
+         record(hotEnd - start, true, System.nanoTime() - hotEnd);
+      return ret;
+   }
+
+	/**
+	 * Returns the largest-weight word starting with prefix, or an empty String
+	 * if there is none.
+	 *
+	 * @throws NullPointerException
+	 *             if prefix is null
+	 */
+   public String topMatch(String prefix) {
+      if (prefix == null)
+         throw new NullPointerException();
+      boolean recording = myRecording;
+      long start = recording ? System.nanoTime() : 0;
+      int f = Autocomplete.firstIndexOf(myHot.myWords, prefix);
+      long hotEnd = recording ? System.nanoTime() : 0;
+      if (f >= 0) {
+         int best = myHot.argMax(f, Autocomplete.lastIndexOf(myHot.myWords, prefix));
+         if (recording)
+            record(System.nanoTime() - start, false, 0);
+         return myHot.myWords[best];
+      }
+      String result = myCold.topMatch(prefix);
+      if (recording)
+         record(hotEnd - start, true, System.nanoTime() - hotEnd);
+      return result;
+   }
+
+	/**
+	 * Return the weight of a given term. If term is not in the dictionary,
+	 * return 0.0
+	 */
+   public double weightOf(String term) {
+      if (term == null)
+         return 0.0;
+      int index = Arrays.binarySearch(myHot.myWords, term);
+      return index >= 0 ? myHot.myWeights[index] : myCold.weightOf(term);
+   }
+
+   private void record(long hotNanos, boolean touchedCold, long coldNanos) {
+      myQueries.increment();
+      myHotLatency.record(hotNanos);
+      if (touchedCold)
+         myColdLatency.record(coldNanos);
+      else
+         myHotAnswered.increment();
+   }
+
+	/**
+	 * Turns the recording of tier statistics on or off.
+	 */
+   public void setRecording(boolean recording) {
+      myRecording = recording;
+   }
+
+   public boolean isRecording() {
+      return myRecording;
+   }
+
+   public int getHotSize() {
+      return myHot.myWords.length;
+   }
+
+   public int getColdSize() {
+      return myCold.myWords.length;
+   }
+
+	/**
+	 * Returns the fraction of queries so far answered without touching the
+	 * cold tier, or 0 if there have been none.
+	 */
+   public double getHotFraction() {
+      long queries = myQueries.sum();
+      return queries == 0 ? 0 : (double) myHotAnswered.sum() / queries;
+   }
+
+	/**
+	 * Returns a copy of the time spent in the hot tier by every query.
+	 */
+   public LatencyHistogram getHotLatency() {
+      return myHotLatency.snapshot();
+   }
+
+	/**
+	 * Returns a copy of the time spent in the cold tier by the queries that
+	 * touched it.
+	 */
+   public LatencyHistogram getColdLatency() {
+      return myColdLatency.snapshot();
+   }
+
+	/**
+	 * Forgets every recorded query.
+	 */
+   public void resetStats() {
+      myHotLatency.reset();
+      myColdLatency.reset();
+      myQueries.reset();
+      myHotAnswered.reset();
+   }
+
+	/**
+	 * Prints the tier sizes, the fraction of queries answered by the hot tier
+	 * and the latencies of each tier.
+	 */
+   public void printStats(PrintStream out) {
+      out.printf("hot tier %d terms, cold tier %d terms, %.1f%% of queries answered hot%n",
+            getHotSize(), getColdSize(), 100 * getHotFraction());
+      getHotLatency().print(out, "hot tier");
+      getColdLatency().print(out, "cold tier");
+   }
+
+	/**
+	 * Replays prefixes of length 0-4 drawn from a SyntheticDictionary against
+	 * a TieredAutocomplete and a single SparseTableAutocomplete, and prints
+	 * the tier statistics and both latencies.
+	 *
+	 *  % java TieredAutocomplete [size] [hot size] [k]
+	 */
+   public static void main(String[] args) {
+      int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+      int hotSize = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HOT_SIZE;
+      int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+      SyntheticDictionary dictionary = new SyntheticDictionary(size, 1234);
+      Random random = new Random(42);
+      List<String> prefixes = new ArrayList<String>();
+      for (int length = 0; length <= 4; length++)
+         prefixes.addAll(Arrays.asList(dictionary.samplePrefixes(5000, length, random)));
+      TieredAutocomplete tiered = new TieredAutocomplete(dictionary.getTerms(), dictionary.getWeights(), hotSize);
+      SparseTableAutocomplete single = new SparseTableAutocomplete(dictionary.getTerms(), dictionary.getWeights());
+      tiered.setRecording(true);
+      System.out.printf("%d terms, %d queries of prefix length 0-4, k=%d%n", size, prefixes.size(), k);
+      for (int round = 0; round < 2; round++) {
+         tiered.resetStats();
+         LatencyHistogram tieredLatency = new LatencyHistogram();
+         LatencyHistogram singleLatency = new LatencyHistogram();
+         for (String prefix : prefixes) {
+            long start = System.nanoTime();
+            tiered.topMatches(prefix, k);
+            long middle = System.nanoTime();
+            single.topMatches(prefix, k);
+            tieredLatency.record(middle - start);
+            singleLatency.record(System.nanoTime() - middle);
+         }
+         if (round == 1) {
+            tiered.printStats(System.out);
+            tieredLatency.print(System.out, "tiered");
+            singleLatency.print(System.out, "SparseTableAutocomplete");
+         }
+      }
+   }
+}
@@ -0,0 +1,56 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TieredAutocompleteTest {
+
+   @Test public void testtiers() {
+      double[] weights = new double[]{6,4,2,3,5,7,1,5};
+      String[] terms = new String[]{"ape", "app", "ban", "bat", "bee", "car", "cat", "cab"};
+      TieredAutocomplete n = new TieredAutocomplete(terms, weights, 3);
+      Assert.assertEquals(3, n.getHotSize());
+      Assert.assertEquals(5, n.getColdSize());
+      Assert.assertFalse(n.isRecording());
+      n.topMatches("a", 5);
+      Assert.assertEquals(0, n.getHotLatency().getTotalCount());
+      n.setRecording(true);
+      Assert.assertEquals(Arrays.asList("car", "ape"), n.topMatches("", 2));
+      Assert.assertEquals(1, n.getHotFraction(), 0);
+      Assert.assertEquals(Arrays.asList("ape", "app"), n.topMatches("a", 5));
+      Assert.assertEquals(0.5, n.getHotFraction(), 0);
+      Assert.assertEquals(Arrays.asList("bat", "ban"), n.topMatches("ba", 5));
+      Assert.assertEquals("bat", n.topMatch("ba"));
+      Assert.assertEquals("car", n.topMatch("ca"));
+      Assert.assertEquals(new ArrayList<String>(), n.topMatches("d", 5));
+      Assert.assertEquals(5, n.weightOf("bee"), 0);
+      Assert.assertEquals(5, n.weightOf("cab"), 0);
+      Assert.assertEquals(2, n.weightOf("ban"), 0);
+      Assert.assertEquals(0, n.weightOf("ba"), 0);
+      Assert.assertEquals(6, n.getHotLatency().getTotalCount());
+      Assert.assertEquals(4, n.getColdLatency().getTotalCount());
+   }
+
+   @Test public void testagainstbrute() {
+      SyntheticDictionary dictionary = new SyntheticDictionary(5000, 19);
+      Autocomplete.Autocompletor brute = new Autocomplete.BruteAutocomplete(dictionary.getTerms(), dictionary.getWeights());
+      Random random = new Random(5);
+      for (int hotSize : new int[]{0, 50, 5000}) {
+         TieredAutocomplete tiered = new TieredAutocomplete(dictionary.getTerms(), dictionary.getWeights(), hotSize);
+         for (int length = 0; length <= 3; length++) {
+            for (String prefix : dictionary.samplePrefixes(50, length, random)) {
+               Assert.assertEquals(brute.topMatches(prefix, 10), tiered.topMatches(prefix, 10));
+               Assert.assertEquals(brute.topMatch(prefix), tiered.topMatch(prefix));
+            }
+         }
+      }
+   }
+
+   @Test public void testduplicateacrosstiers() {
+      try {
+         new TieredAutocomplete(new String[]{"ape", "bat", "ape"}, new double[]{9, 2, 1}, 1);
+         Assert.fail("accepted a duplicate term");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+}
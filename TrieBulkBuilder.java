@@ -0,0 +1,250 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Builds the Node trie of a TrieAutocomplete from a whole dictionary at once
+ * instead of one add per term.
+ *
+ * The terms are sorted with Arrays.parallelSort, after which the words below
+ * any node are one contiguous run of the array: the node's own word, if any,
+ * comes first, followed by one run per child character. Each node is
+ * therefore built from its run alone, so separate runs are built by
+ * separate fork-join tasks, and mySubtreeMaxWeight is set once per node, in
+ * post-order after its children are complete, rather than compared and
+ * raised on every insert that passes through it.
+ *
+ * Input that is already in lexicographic order needs neither the copy nor the
+ * sort, and is built by buildSorted in one linear pass instead.
+ *
+ * Null or empty words and negative weights are skipped, as TrieAutocomplete
+ * always has, and of repeated words the last one wins.
+ *
+ */
+public class TrieBulkBuilder {
+
+	/**
+	 * Runs of at most this many terms are built by the task that finds them
+	 * rather than forked.
+	 */
+   static final int SEQUENTIAL_THRESHOLD = 1 << 12;
+
+	/**
+	 * Returns the root of a trie holding terms, such that terms[i] has weight
+	 * weights[i]. Sorted input is built by buildSorted, anything else is
+	 * sorted first and built in parallel.
+	 *
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths
+	 */
+   public static Node build(String[] terms, double[] weights) {
+      check(terms, weights);
+      if (isSorted(terms, weights))
+         return buildSorted(terms, weights);
+      return buildForked(terms, weights);
+   }
+
+	/**
+	 * Returns the root of a trie holding terms, which must be in lexicographic
+	 * order once skipped entries are left out, such that terms[i] has weight
+	 * weights[i].
+	 *
+	 * The trie is built in a single pass, keeping the path to the previous
+	 * word as a stack of open nodes. Each word shares a prefix with the one
+	 * before it; the open nodes below that prefix can gain no more children,
+	 * so they are popped and closed, handing their maximum weight up to their
+	 * parent, and the rest of the word is pushed as new nodes. Every node is
+	 * thus created with a single put into its parent's children and has
+	 * mySubtreeMaxWeight written exactly once, when it is closed.
+	 *
+	 * @throws NullPointerException
+	 *             if either argument is null
+	 * @throws IllegalArgumentException
+	 *             if terms and weights are different lengths, or terms are
+	 *             not sorted
+	 */
+   public static Node buildSorted(String[] terms, double[] weights) {
+      check(terms, weights);
+      Node root = new Node('-', null, 0);
+      Node[] open = new Node[16];
+      double[] max = new double[open.length];
+      open[0] = root;
+      int depth = 0;
+      String last = "";
+      for (int i = 0; i < terms.length; i++) {
+         String word = terms[i];
+         if (!isKept(word, weights[i]))
+            continue;
+         int common = 0;
+         int limit = Math.min(word.length(), last.length());
+         while (common < limit && word.charAt(common) == last.charAt(common))
+            common++;
+         if (common < last.length() && (common == word.length() || word.charAt(common) < last.charAt(common)))
+            throw new IllegalArgumentException("terms are not sorted at " + word);
+         for (; depth > common; depth--) {
+            open[depth].mySubtreeMaxWeight = max[depth];
+            max[depth - 1] = Math.max(max[depth - 1], max[depth]);
+            open[depth] = null;
+         }
+         if (word.length() >= open.length) {
+            open = Arrays.copyOf(open, word.length() * 2);
+            max = Arrays.copyOf(max, open.length);
+         }
+         for (; depth < word.length(); depth++) {
+            char ch = word.charAt(depth);
+            Node child = new Node(ch, open[depth], 0);
+            open[depth].children.put(ch, child);
+            open[depth + 1] = child;
+            max[depth + 1] = 0;
+         }
+         Node node = open[depth];
+         node.isWord = true;
+         node.setWord(word);
+         node.setWeight(weights[i]);
+         // a repeat follows its earlier copy directly, before any children
+         max[depth] = weights[i];
+         last = word;
+      }
+      for (; depth > 0; depth--) {
+         open[depth].mySubtreeMaxWeight = max[depth];
+         max[depth - 1] = Math.max(max[depth - 1], max[depth]);
+      }
+      root.mySubtreeMaxWeight = max[0];
+      return root;
+   }
+
+	/**
+	 * Returns the root of a trie holding terms, in any order, such that
+	 * terms[i] has weight weights[i], built by sorting a copy and forking
+	 * BuildTasks.
+	 */
+   static Node buildForked(String[] terms, double[] weights) {
+      check(terms, weights);
+      Term[] sorted = new Term[terms.length];
+      int count = 0;
+      for (int i = 0; i < terms.length; i++) {
+         if (isKept(terms[i], weights[i]))
+            sorted[count++] = new Term(terms[i], weights[i]);
+      }
+      // parallelSort is stable, so equal words stay in input order
+      Arrays.parallelSort(sorted, 0, count);
+      int unique = 0;
+      for (int i = 0; i < count; i++) {
+         if (unique > 0 && sorted[unique - 1].getWord().equals(sorted[i].getWord()))
+            unique--;
+         sorted[unique++] = sorted[i];
+      }
+      return build(sorted, unique);
+   }
+
+	/**
+	 * Returns whether the kept entries of terms are in lexicographic order.
+	 */
+   static boolean isSorted(String[] terms, double[] weights) {
+      String last = null;
+      for (int i = 0; i < terms.length; i++) {
+         if (!isKept(terms[i], weights[i]))
+            continue;
+         if (last != null && last.compareTo(terms[i]) > 0)
+            return false;
+         last = terms[i];
+      }
+      return true;
+   }
+
+   static boolean isKept(String word, double weight) {
+      return word != null && !word.isEmpty() && weight >= 0;
+   }
+
+   private static void check(String[] terms, double[] weights) {
+      if (terms == null || weights == null)
+         throw new NullPointerException("One or more arguments null");
+      if (terms.length != weights.length)
+         throw new IllegalArgumentException("terms and weights are not the same length");
+   }
+
+	/**
+	 * Returns the root of a trie holding terms[0..count), which must be
+	 * sorted and free of repeated words.
+	 */
+   static Node build(Term[] terms, int count) {
+      Node root = new Node('-', null, 0);
+      BuildTask task = new BuildTask(root, terms, 0, count, 0);
+      if (count > SEQUENTIAL_THRESHOLD)
+         ForkJoinPool.commonPool().invoke(task);
+      else
+         task.compute();
+      return root;
+   }
+
+	/**
+	 * Fills in the subtrie of myNode from myTerms[myLo..myHi), all of which
+	 * start with the myDepth characters on the path to myNode.
+	 */
+   private static class BuildTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+      private final Node myNode;
+      private final Term[] myTerms;
+      private final int myLo;
+      private final int myHi;
+      private final int myDepth;
+
+      BuildTask(Node node, Term[] terms, int lo, int hi, int depth) {
+         myNode = node;
+         myTerms = terms;
+         myLo = lo;
+         myHi = hi;
+         myDepth = depth;
+      }
+
+      @Override
+      protected void compute() {
+         build(myNode, myLo, myHi, myDepth);
+      }
+
+   	/**
+   	 * Builds node's subtrie and returns its maximum weight.
+   	 */
+      private double build(Node node, int lo, int hi, int depth) {
+         double max = 0;
+         if (lo < hi && myTerms[lo].getWord().length() == depth) {
+            node.isWord = true;
+            node.setWord(myTerms[lo].getWord());
+            node.setWeight(myTerms[lo].getWeight());
+            max = myTerms[lo].getWeight();
+            lo++;
+         }
+         List<BuildTask> forked = null;
+         while (lo < hi) {
+            char ch = myTerms[lo].getWord().charAt(depth);
+            int end = lo + 1;
+            while (end < hi && myTerms[end].getWord().charAt(depth) == ch)
+               end++;
+            Node child = new Node(ch, node, 0);
+            node.children.put(ch, child);
+            if (end - lo > SEQUENTIAL_THRESHOLD) {
+               if (forked == null)
+                  forked = new ArrayList<BuildTask>();
+               BuildTask task = new BuildTask(child, myTerms, lo, end, depth + 1);
+               task.fork();
+               forked.add(task);
+            } else {
+               max = Math.max(max, build(child, lo, end, depth + 1));
+            }
+            lo = end;
+         }
+         if (forked != null) {
+            for (BuildTask task : forked) {
+               task.join();
+               max = Math.max(max, task.myNode.mySubtreeMaxWeight);
+            }
+         }
+         node.mySubtreeMaxWeight = max;
+         return max;
+      }
+   }
+}
@@ -0,0 +1,76 @@
+import org.junit.Assert;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TrieBulkBuilderTest {
+
+   @Test public void testskipsandrepeats() {
+      Autocomplete.TrieAutocomplete trie = new Autocomplete.TrieAutocomplete(
+         new String[]{"ape", null, "app", "", "ape", "bat"},
+         new double[]{9, 5, 4, 3, 2, -1});
+      Assert.assertEquals(Arrays.asList("app", "ape"), trie.topMatches("", 5));
+      Assert.assertEquals(4, trie.myRoot.mySubtreeMaxWeight, 0);
+      Assert.assertEquals(2, trie.myRoot.getChild('a').getChild('p').getChild('e').getWeight(), 0);
+   }
+
+   @Test public void testforkedbuildmatchesbrute() {
+      Random random = new Random(5);
+      int size = 4 * TrieBulkBuilder.SEQUENTIAL_THRESHOLD;
+      Set<String> seen = new HashSet<String>();
+      String[] terms = new String[size];
+      double[] weights = new double[size];
+      for (int i = 0; i < size; i++) {
+         String word;
+         do {
+            StringBuilder sb = new StringBuilder("a");
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++)
+               sb.append((char) ('a' + random.nextInt(3)));
+            word = sb.toString();
+         } while (!seen.add(word));
+         terms[i] = word;
+         weights[i] = i;
+      }
+      Autocomplete.Autocompletor brute = new Autocomplete.BruteAutocomplete(terms, weights);
+      Autocomplete.TrieAutocomplete trie = new Autocomplete.TrieAutocomplete(terms, weights);
+      for (String prefix : new String[]{"", "a", "ab", "acb", "abca", "b"}) {
+         Assert.assertEquals(brute.topMatches(prefix, 20), trie.topMatches(prefix, 20));
+         Assert.assertEquals(brute.topMatch(prefix), trie.topMatch(prefix));
+      }
+      Assert.assertEquals(size - 1, trie.myRoot.mySubtreeMaxWeight, 0);
+   }
+
+   @Test public void testsortedmatchesforked() {
+      String[] terms = {null, "a", "ab", "ab", "abc", "", "abd", "b", "ba", "bab", "c"};
+      double[] weights = {9, 1, 7, 3, 2, 8, 5, -4, 6, 4, 0};
+      Assert.assertTrue(TrieBulkBuilder.isSorted(terms, weights));
+      Node sorted = TrieBulkBuilder.buildSorted(terms, weights);
+      Node forked = TrieBulkBuilder.buildForked(terms, weights);
+      assertSameTrie(forked, sorted);
+      Assert.assertEquals(6, sorted.mySubtreeMaxWeight, 0);
+      Assert.assertEquals(5, sorted.getChild('a').getChild('b').mySubtreeMaxWeight, 0);
+      Assert.assertEquals(3, sorted.getChild('a').getChild('b').getWeight(), 0);
+      Assert.assertFalse(sorted.getChild('b').isWord);
+
+      terms[9] = "b";
+      Assert.assertFalse(TrieBulkBuilder.isSorted(terms, weights));
+      try {
+         TrieBulkBuilder.buildSorted(terms, weights);
+         Assert.fail("accepted unsorted terms");
+      } catch (IllegalArgumentException e) {
+      }
+   }
+
+   private static void assertSameTrie(Node expected, Node actual) {
+      Assert.assertEquals(expected.isWord, actual.isWord);
+      Assert.assertEquals(expected.myWord, actual.myWord);
+      Assert.assertEquals(expected.getWeight(), actual.getWeight(), 0);
+      Assert.assertEquals(expected.mySubtreeMaxWeight, actual.mySubtreeMaxWeight, 0);
+      Assert.assertEquals(expected.children.keySet(), actual.children.keySet());
+      for (char ch : expected.children.keySet()) {
+         Assert.assertSame(actual, actual.getChild(ch).parent);
+         assertSameTrie(expected.getChild(ch), actual.getChild(ch));
+      }
+   }
+}
@@ -0,0 +1,281 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.zip.GZIPOutputStream;
+
+import autocomplete.bench.Workload;
+
+/**
+ * Default-package implementation of the benchmarks' Workload, wrapping one
+ * Autocompletor built over a SyntheticDictionary.
+ *
+ */
+public class AutocompleteWorkload implements Workload {
+
+   SyntheticDictionary myDictionary;
+   Autocomplete.Autocompletor myAuto;
+   Term[] mySortedTerms;
+   MatchBuffer myBuffer = new MatchBuffer();
+   String[] myBuildTerms;
+   double[] myBuildWeights;
+   String[] mySortedBuildTerms;
+   double[] mySortedBuildWeights;
+   String[] myMixedCaseTerms;
+   String[] myMixedCaseKeys;
+   NormalizedAutocomplete myNormalized;
+
+   public void setUp(String impl, int size, long seed) {
+      myDictionary = new SyntheticDictionary(size, seed);
+      myAuto = AutocompletorBenchmark.getInstance(impl, myDictionary.getTerms(), myDictionary.getWeights());
+      if (myAuto instanceof Autocomplete.BinarySearchAutocomplete)
+         mySortedTerms = ((Autocomplete.BinarySearchAutocomplete) myAuto).myTerms;
+   }
+
+   public void setUpPhrases(String impl, int size, int maxWords, long seed) {
+      myDictionary = new SyntheticDictionary(size, seed);
+      String[] phrases = myDictionary.getPhrases(maxWords, new Random(seed));
+      myAuto = AutocompletorBenchmark.getInstance(impl, phrases, myDictionary.getWeights());
+   }
+
+   public long setUpRetained(String impl, int size, long seed) {
+      myAuto = null;
+      myDictionary = new SyntheticDictionary(size, seed);
+      long before = usedHeap();
+      myAuto = AutocompletorBenchmark.getInstance(impl, myDictionary.getTerms(), myDictionary.getWeights());
+      return usedHeap() - before;
+   }
+
+   private static long usedHeap() {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++)
+         System.gc();
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+   public long sizeInBytes() {
+      if (myAuto instanceof SparseTableAutocomplete)
+         return ((SparseTableAutocomplete) myAuto).sizeInBytes();
+      if (myAuto instanceof PackedTrieAutocomplete)
+         return ((PackedTrieAutocomplete) myAuto).sizeInBytes();
+      if (myAuto instanceof InfixAutocomplete)
+         return ((InfixAutocomplete) myAuto).sizeInBytes();
+      if (myAuto instanceof FstAutocomplete)
+         return ((FstAutocomplete) myAuto).sizeInBytes();
+      throw new UnsupportedOperationException(myAuto.getClass().getName() + " has no size estimate");
+   }
+
+   public String[] samplePrefixes(int count, int length, long seed) {
+      return myDictionary.samplePrefixes(count, length, new Random(seed));
+   }
+
+   public String[] sampleTerms(int count, long seed) {
+      Random random = new Random(seed);
+      String[] terms = new String[count];
+      for (int i = 0; i < count; i++)
+         terms[i] = myDictionary.getTerms()[myDictionary.sampleTerm(random)];
+      return terms;
+   }
+
+   public void setUpMixedCase(int size, long seed) {
+      myDictionary = new SyntheticDictionary(size, seed);
+      String[] terms = myDictionary.getTerms();
+      myMixedCaseTerms = new String[terms.length];
+      myMixedCaseKeys = new String[terms.length];
+      for (int i = 0; i < terms.length; i++) {
+         String term = i % 3 == 0 ? terms[i].replace('e', '\u00e9') : terms[i];
+         if (i % 2 == 0 && !term.isEmpty())
+            term = Character.toUpperCase(term.charAt(0)) + term.substring(1);
+         myMixedCaseTerms[i] = term;
+         myMixedCaseKeys[i] = TermNormalizer.DEFAULT.normalize(term);
+      }
+      myNormalized = new NormalizedAutocomplete(myMixedCaseTerms, myDictionary.getWeights());
+      myAuto = new FstAutocomplete(myMixedCaseTerms, myDictionary.getWeights());
+   }
+
+   public String[] sampleMixedCasePrefixes(int count, int length, long seed) {
+      Random random = new Random(seed);
+      String[] prefixes = new String[count];
+      for (int i = 0; i < count; i++) {
+         String term = myMixedCaseTerms[myDictionary.sampleTerm(random)];
+         prefixes[i] = term.substring(0, Math.min(length, term.length()));
+      }
+      return prefixes;
+   }
+
+   public int normalizedQuery(String prefix, int k, String mode) {
+      int count = 0;
+      switch (mode) {
+         case "perComparison":
+            for (String term : myMixedCaseTerms) {
+               if (term.regionMatches(true, 0, prefix, 0, prefix.length()))
+                  count++;
+            }
+            return count;
+         case "prefolded":
+            String key = TermNormalizer.DEFAULT.normalize(prefix);
+            for (String folded : myMixedCaseKeys) {
+               if (folded.startsWith(key))
+                  count++;
+            }
+            return count;
+         case "normalized":
+            for (String match : myNormalized.topMatches(prefix, k))
+               count++;
+            return count;
+         case "raw":
+            for (String match : myAuto.topMatches(prefix, k))
+               count++;
+            return count;
+         default:
+            throw new IllegalArgumentException("No query mode " + mode);
+      }
+   }
+
+   public Iterable<String> topMatches(String prefix, int k) {
+      return myAuto.topMatches(prefix, k);
+   }
+
+   public String topMatch(String prefix) {
+      return myAuto.topMatch(prefix);
+   }
+
+   public int topMatchesInto(String prefix, int k) {
+      if (!(myAuto instanceof Autocomplete.BufferedAutocompletor))
+         throw new UnsupportedOperationException(myAuto.getClass().getName() + " cannot fill a MatchBuffer");
+      return ((Autocomplete.BufferedAutocompletor) myAuto).topMatches(prefix, k, myBuffer);
+   }
+
+   public Iterable<String> fuzzyMatches(String prefix, int dist, int k) {
+      return trie().fuzzyMatches(prefix, dist, k);
+   }
+
+   public long buildSpellIndex() {
+      return trie().spellIndex().sizeInBytes();
+   }
+
+   public Iterable<String> spellCheck(String word, int dist, int k, String mode) {
+      if (mode.equals("index"))
+         return trie().spellCheck(word, dist, k);
+      if (mode.equals("trie"))
+         return trie().spellCheckTrie(word, dist, k);
+      throw new IllegalArgumentException("Unknown spellCheck mode " + mode);
+   }
+
+   private Autocomplete.TrieAutocomplete trie() {
+      if (!(myAuto instanceof Autocomplete.TrieAutocomplete))
+         throw new UnsupportedOperationException(myAuto.getClass().getName() + " has no spellCheck");
+      return (Autocomplete.TrieAutocomplete) myAuto;
+   }
+
+   public int comparatorLookup(String prefix) {
+      Term.PrefixOrder order = new Term.PrefixOrder(prefix.length());
+      return Autocomplete.firstIndexOf(mySortedTerms, new Term(prefix, 0), order)
+         + Autocomplete.lastIndexOf(mySortedTerms, new Term(prefix, 0), order);
+   }
+
+   public int inPlaceLookup(String prefix) {
+      return Autocomplete.firstIndexOf(mySortedTerms, prefix) + Autocomplete.lastIndexOf(mySortedTerms, prefix);
+   }
+
+   public void updateWeight(String term, double weight) {
+      if (!(myAuto instanceof Autocomplete.UpdatableAutocompletor))
+         throw new UnsupportedOperationException(myAuto.getClass().getName() + " cannot be updated");
+      ((Autocomplete.UpdatableAutocompletor) myAuto).updateWeight(term, weight);
+   }
+
+   public int topMatchesBatch(String[] prefixes, int k, String mode) {
+      int count = 0;
+      if (mode.equals("loop")) {
+         for (String prefix : prefixes) {
+            for (String word : myAuto.topMatches(prefix, k))
+               count++;
+         }
+         return count;
+      }
+      if (!mode.equals("batch") && !mode.equals("parallel"))
+         throw new IllegalArgumentException("Unknown mode " + mode);
+      for (Iterable<String> matches : myAuto.topMatchesBatch(Arrays.asList(prefixes), k, mode.equals("parallel"))) {
+         for (String word : matches)
+            count++;
+      }
+      return count;
+   }
+
+   public Object buildTrie(String builder, int size, long seed) {
+      if (myBuildTerms == null || myBuildTerms.length != size) {
+         SyntheticDictionary dictionary = new SyntheticDictionary(size, seed);
+         myBuildTerms = dictionary.getTerms();
+         myBuildWeights = dictionary.getWeights();
+         Term[] sorted = new Term[size];
+         for (int i = 0; i < size; i++)
+            sorted[i] = new Term(myBuildTerms[i], myBuildWeights[i]);
+         Arrays.sort(sorted);
+         mySortedBuildTerms = new String[size];
+         mySortedBuildWeights = new double[size];
+         for (int i = 0; i < size; i++) {
+            mySortedBuildTerms[i] = sorted[i].getWord();
+            mySortedBuildWeights[i] = sorted[i].getWeight();
+         }
+      }
+      switch (builder) {
+         case "linear":
+            return TrieBulkBuilder.buildSorted(mySortedBuildTerms, mySortedBuildWeights);
+         case "forked":
+            return TrieBulkBuilder.buildForked(mySortedBuildTerms, mySortedBuildWeights);
+         case "constructor":
+            return new Autocomplete.TrieAutocomplete(mySortedBuildTerms, mySortedBuildWeights);
+         case "unsorted":
+            return new Autocomplete.TrieAutocomplete(myBuildTerms, myBuildWeights);
+         default:
+            throw new IllegalArgumentException("Unknown builder " + builder);
+      }
+   }
+
+   public void writeDictionary(int size, long seed, File file, boolean gzip) throws IOException {
+      SyntheticDictionary dictionary = new SyntheticDictionary(size, seed);
+      OutputStream out = new FileOutputStream(file);
+      if (gzip)
+         out = new GZIPOutputStream(out, 1 << 16);
+      PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, "UTF-8"));
+      try {
+         writer.println(size);
+         for (int i = 0; i < size; i++) {
+            writer.print((long) dictionary.getWeights()[i]);
+            writer.print('\t');
+            writer.println(dictionary.getTerms()[i]);
+         }
+      } finally {
+         writer.close();
+      }
+   }
+
+   public int loadWithScanner(File file) throws IOException {
+      Scanner in = new Scanner(file, "UTF-8");
+      in.useLocale(Locale.US);
+      try {
+         int n = Integer.parseInt(in.nextLine());
+         String[] terms = new String[n];
+         double[] weights = new double[n];
+         for (int i = 0; i < n; i++) {
+            String line = in.nextLine();
+            int tab = line.indexOf('\t');
+            weights[i] = Double.parseDouble(line.substring(0, tab).trim());
+            terms[i] = line.substring(tab + 1);
+         }
+         return terms.length;
+      } finally {
+         in.close();
+      }
+   }
+
+   public int loadWithLoader(File file) throws IOException {
+      return DictionaryLoader.load(file).size();
+   }
+}
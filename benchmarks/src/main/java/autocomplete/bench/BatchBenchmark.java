@@ -0,0 +1,90 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of answering a batch of prefixes with one topMatches call each
+ * against topMatchesBatch, sequential and parallel. Prefixes of length 1-4
+ * are cut from terms drawn in proportion to their weight and interleaved by
+ * length, unsorted, so a batch holds repeats and shared stems in the
+ * proportions real traffic would. Besides batches per second, the "prefixes"
+ * counter reports prefixes answered per second, comparable across batch
+ * sizes.
+ *
+ *  % java -jar target/benchmarks.jar BatchBenchmark -prof gc
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+   static final long SEED = 1234;
+
+   @Param({"PackedTrieAutocomplete", "SparseTableAutocomplete", "TrieAutocomplete"})
+   public String impl;
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"1", "10", "100", "1000", "10000"})
+   public int batchSize;
+
+   @Param({"loop", "batch", "parallel"})
+   public String mode;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      workload.setUp(impl, size, SEED);
+      prefixes = new String[batchSize];
+      String[][] byLength = new String[4][];
+      for (int length = 1; length <= 4; length++)
+         byLength[length - 1] = workload.samplePrefixes(batchSize, length, 42 + length);
+      for (int i = 0; i < batchSize; i++)
+         prefixes[i] = byLength[i % 4][i];
+   }
+
+	/**
+	 * Counts the prefixes answered, reported by JMH as a rate.
+	 */
+   @AuxCounters(AuxCounters.Type.OPERATIONS)
+   @State(Scope.Thread)
+   public static class Prefixes {
+      public long prefixes;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         prefixes = 0;
+      }
+   }
+
+   @Benchmark
+   public int batch(Prefixes counter) {
+      counter.prefixes += prefixes.length;
+      return workload.topMatchesBatch(prefixes, k, mode);
+   }
+}
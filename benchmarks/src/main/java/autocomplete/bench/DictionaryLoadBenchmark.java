@@ -0,0 +1,97 @@
+package autocomplete.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dictionary parsing speed: the Scanner loop the GUI and
+ * AutocompletorBenchmark used against DictionaryLoader on the same
+ * SyntheticDictionary file, plain and gzipped. Besides loads per second, the
+ * "lines" counter reports lines parsed per second.
+ *
+ *  % java -jar target/benchmarks.jar DictionaryLoadBenchmark -prof gc
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class DictionaryLoadBenchmark {
+
+   static final long SEED = 1234;
+
+   @Param({"100000", "1000000"})
+   public int size;
+
+   Workload workload;
+   File plain;
+   File gzipped;
+
+   @Setup
+   public void setUp() throws IOException {
+      workload = Workload.load();
+      plain = File.createTempFile("dictionary", ".txt");
+      gzipped = File.createTempFile("dictionary", ".txt.gz");
+      workload.writeDictionary(size, SEED, plain, false);
+      workload.writeDictionary(size, SEED, gzipped, true);
+   }
+
+   @TearDown
+   public void tearDown() {
+      plain.delete();
+      gzipped.delete();
+   }
+
+	/**
+	 * Counts the lines parsed, reported by JMH as a rate.
+	 */
+   @AuxCounters(AuxCounters.Type.OPERATIONS)
+   @State(Scope.Thread)
+   public static class Lines {
+      public long lines;
+
+      @Setup(Level.Iteration)
+      public void reset() {
+         lines = 0;
+      }
+   }
+
+   @Benchmark
+   public int scanner(Lines counter) throws IOException {
+      int n = workload.loadWithScanner(plain);
+      counter.lines += n;
+      return n;
+   }
+
+   @Benchmark
+   public int loader(Lines counter) throws IOException {
+      int n = workload.loadWithLoader(plain);
+      counter.lines += n;
+      return n;
+   }
+
+   @Benchmark
+   public int loaderGzip(Lines counter) throws IOException {
+      int n = workload.loadWithLoader(gzipped);
+      counter.lines += n;
+      return n;
+   }
+}
@@ -0,0 +1,73 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * topMatches latency of FstAutocomplete against the three original engines
+ * on the same dictionary. The set-up prints the heap each engine retains
+ * beyond the dictionary's own terms, which the FST does not need at all,
+ * and for the FST the size of its arrays as well.
+ *
+ *  % java -jar target/benchmarks.jar FstBenchmark
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class FstBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"FstAutocomplete", "BruteAutocomplete", "BinarySearchAutocomplete", "TrieAutocomplete"})
+   public String impl;
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"2", "4"})
+   public int prefixLength;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      long start = System.nanoTime();
+      long retained = workload.setUpRetained(impl, size, SEED);
+      System.out.printf("%n%s: %.1f s to build, %.1f MB retained (%.1f bytes per term)%n",
+            impl, (System.nanoTime() - start) / 1e9, retained / 1e6, (double) retained / size);
+      if (impl.equals("FstAutocomplete"))
+         System.out.printf("FstAutocomplete arrays: %.1f MB%n", workload.sizeInBytes() / 1e6);
+      prefixes = workload.samplePrefixes(QUERIES, prefixLength, 42);
+   }
+
+   @Benchmark
+   public void topMatches(Blackhole blackhole) {
+      String prefix = prefixes[next];
+      next = (next + 1) & (QUERIES - 1);
+      for (String match : workload.topMatches(prefix, k))
+         blackhole.consume(match);
+   }
+}
@@ -0,0 +1,76 @@
+package autocomplete.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Latency of TrieAutocomplete.fuzzyMatches against edit distance and prefix
+ * length. Every query is a sampled prefix with one character replaced at
+ * random, so with dist 0 most queries find nothing and with dist 1 or more
+ * the intended completions are among the results.
+ *
+ *  % java -jar target/benchmarks.jar FuzzyBenchmark
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class FuzzyBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"0", "1", "2"})
+   public int dist;
+
+   @Param({"2", "4", "6"})
+   public int prefixLength;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      workload.setUp("TrieAutocomplete", size, SEED);
+      prefixes = workload.samplePrefixes(QUERIES, prefixLength, 42);
+      Random random = new Random(7);
+      for (int i = 0; i < QUERIES; i++) {
+         char[] typo = prefixes[i].toCharArray();
+         if (typo.length > 0)
+            typo[random.nextInt(typo.length)] = (char) ('a' + random.nextInt(26));
+         prefixes[i] = new String(typo);
+      }
+   }
+
+   @Benchmark
+   public void fuzzyMatches(Blackhole blackhole) {
+      String prefix = prefixes[next];
+      next = (next + 1) & (QUERIES - 1);
+      for (String word : workload.fuzzyMatches(prefix, dist, k))
+         blackhole.consume(word);
+   }
+}
@@ -0,0 +1,78 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * topMatches latency of InfixAutocomplete, which matches a prefix against
+ * every word of a multi-word term, against the prefix-only
+ * SparseTableAutocomplete and PackedTrieAutocomplete over the same phrases.
+ * The prefixes are drawn by weight from the dictionary's words, so the infix
+ * engine has as many matches from the first words of the phrases as the
+ * others and more from the later ones. The set-up prints each engine's index
+ * size, the memory the word-boundary entries cost.
+ *
+ *  % java -jar target/benchmarks.jar InfixBenchmark
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class InfixBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"InfixAutocomplete", "SparseTableAutocomplete", "PackedTrieAutocomplete"})
+   public String impl;
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"3"})
+   public int maxWords;
+
+   @Param({"2", "4"})
+   public int prefixLength;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      long start = System.nanoTime();
+      workload.setUpPhrases(impl, size, maxWords, SEED);
+      long bytes = workload.sizeInBytes();
+      System.out.printf("%n%s: %.1f s to build, %.1f MB (%.1f bytes per term)%n",
+            impl, (System.nanoTime() - start) / 1e9, bytes / 1e6, (double) bytes / size);
+      prefixes = workload.samplePrefixes(QUERIES, prefixLength, 42);
+   }
+
+   @Benchmark
+   public void topMatches(Blackhole blackhole) {
+      String prefix = prefixes[next];
+      next = (next + 1) & (QUERIES - 1);
+      for (String match : workload.topMatches(prefix, k))
+         blackhole.consume(match);
+   }
+}
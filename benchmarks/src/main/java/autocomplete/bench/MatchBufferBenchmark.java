@@ -0,0 +1,76 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Allocation and latency of topMatches returning a new list against
+ * BufferedAutocompletor.topMatches filling one reused MatchBuffer. Run with
+ * the gc profiler; gc.alloc.rate.norm for "buffer" should be about 0 B/op.
+ *
+ *  % java -jar target/benchmarks.jar MatchBufferBenchmark -prof gc
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatchBufferBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"PackedTrieAutocomplete", "SparseTableAutocomplete"})
+   public String impl;
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"1", "3"})
+   public int prefixLength;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      workload.setUp(impl, size, SEED);
+      prefixes = workload.samplePrefixes(QUERIES, prefixLength, 42);
+   }
+
+   private String nextPrefix() {
+      String prefix = prefixes[next];
+      next = (next + 1) & (QUERIES - 1);
+      return prefix;
+   }
+
+   @Benchmark
+   public void list(Blackhole blackhole) {
+      for (String word : workload.topMatches(nextPrefix(), k))
+         blackhole.consume(word);
+   }
+
+   @Benchmark
+   public int buffer() {
+      return workload.topMatchesInto(nextPrefix(), k);
+   }
+}
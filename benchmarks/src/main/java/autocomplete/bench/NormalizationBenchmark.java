@@ -0,0 +1,72 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The cost of folding case per comparison, as a case-insensitive scan does,
+ * against normalizing every term once and then only the prefix: a scan of
+ * the terms with regionMatches ("perComparison") against a scan of the
+ * precomputed keys ("prefolded"), and NormalizedAutocomplete
+ * ("normalized") against the same FstAutocomplete over the unnormalized
+ * terms ("raw"), which shows what folding the prefix adds to a query. The
+ * prefixes are typed in the terms' own mixed case and accents.
+ *
+ *  % java -jar target/benchmarks.jar NormalizationBenchmark
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class NormalizationBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"perComparison", "prefolded", "normalized", "raw"})
+   public String mode;
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"3"})
+   public int prefixLength;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      long start = System.nanoTime();
+      workload.setUpMixedCase(size, SEED);
+      System.out.printf("%nmixed-case set-up: %.1f s%n", (System.nanoTime() - start) / 1e9);
+      prefixes = workload.sampleMixedCasePrefixes(QUERIES, prefixLength, 42);
+   }
+
+   @Benchmark
+   public void query(Blackhole blackhole) {
+      String prefix = prefixes[next];
+      next = (next + 1) & (QUERIES - 1);
+      blackhole.consume(workload.normalizedQuery(prefix, k, mode));
+   }
+}
@@ -0,0 +1,66 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The prefix range lookup of BinarySearchAutocomplete on its own: through a
+ * key Term and Term.PrefixOrder, against the CharSequence overloads that
+ * compare in place. Run with -prof gc; the in-place lookup should report
+ * ~0 B/op.
+ *
+ *  % java -jar target/benchmarks.jar PrefixSearchBenchmark -prof gc
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrefixSearchBenchmark {
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"1", "3"})
+   public int prefixLength;
+
+   Workload workload;
+   String[] prefixes;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      workload.setUp("BinarySearchAutocomplete", size, TopMatchesBenchmark.SEED);
+      prefixes = workload.samplePrefixes(TopMatchesBenchmark.QUERIES, prefixLength, 42);
+   }
+
+   String nextPrefix() {
+      String prefix = prefixes[next];
+      next = (next + 1) & (TopMatchesBenchmark.QUERIES - 1);
+      return prefix;
+   }
+
+   @Benchmark
+   public int comparatorLookup() {
+      return workload.comparatorLookup(nextPrefix());
+   }
+
+   @Benchmark
+   public int inPlaceLookup() {
+      return workload.inPlaceLookup(nextPrefix());
+   }
+}
@@ -0,0 +1,105 @@
+package autocomplete.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Read throughput of an UpdatableAutocompletor while one thread rewrites
+ * weights at a fixed rate. Three reader threads run topMatches over sampled
+ * prefixes; the writer gives popular terms fresh Zipf-like weights, pacing
+ * itself to writesPerSecond (0 disables writing, as a baseline). JMH reports
+ * the readers' and the writer's throughput separately.
+ *
+ *  % java -jar target/benchmarks.jar ReadUnderWriteBenchmark
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ReadUnderWriteBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"ConcurrentTrieAutocomplete"})
+   public String impl;
+
+   @Param({"100000", "1000000"})
+   public int size;
+
+   @Param({"0", "1000", "100000"})
+   public int writesPerSecond;
+
+   @Param({"2"})
+   public int prefixLength;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+   String[] updates;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      workload.setUp(impl, size, SEED);
+      prefixes = workload.samplePrefixes(QUERIES, prefixLength, 42);
+      updates = workload.sampleTerms(QUERIES, 43);
+   }
+
+	/**
+	 * Per-thread position in the query and update arrays.
+	 */
+   @State(Scope.Thread)
+   public static class Cursor {
+      int next;
+      Random random = new Random(SEED);
+
+      int advance() {
+         int current = next;
+         next = (next + 1) & (QUERIES - 1);
+         return current;
+      }
+   }
+
+   @Benchmark
+   @Group("readWrite")
+   @GroupThreads(3)
+   public Iterable<String> read(Cursor cursor) {
+      return workload.topMatches(prefixes[cursor.advance()], k);
+   }
+
+   @Benchmark
+   @Group("readWrite")
+   @GroupThreads(1)
+   public void write(Cursor cursor) {
+      if (writesPerSecond == 0) {
+         LockSupport.parkNanos(1000000);
+         return;
+      }
+      long deadline = System.nanoTime() + 1000000000L / writesPerSecond;
+      String term = updates[cursor.advance()];
+      workload.updateWeight(term, Math.floor(1e9 / (1 + cursor.random.nextInt(size))));
+      while (System.nanoTime() < deadline)
+         Thread.onSpinWait();
+   }
+}
@@ -0,0 +1,82 @@
+package autocomplete.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Latency of TrieAutocomplete.spellCheck through its SymSpellIndex ("index")
+ * against the best-first search of the trie alone ("trie"). Every query is a
+ * dictionary term drawn by weight with one character replaced at random.
+ * The set-up prints the time to build the index and its size, the memory
+ * the index trades for its latency.
+ *
+ *  % java -jar target/benchmarks.jar SpellCheckBenchmark
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class SpellCheckBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"index", "trie"})
+   public String mode;
+
+   @Param({"1000000"})
+   public int size;
+
+   @Param({"1", "2"})
+   public int dist;
+
+   @Param({"10"})
+   public int k;
+
+   Workload workload;
+   String[] words;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      workload.setUp("TrieAutocomplete", size, SEED);
+      words = workload.sampleTerms(QUERIES, 42);
+      Random random = new Random(7);
+      for (int i = 0; i < QUERIES; i++) {
+         char[] typo = words[i].toCharArray();
+         typo[random.nextInt(typo.length)] = (char) ('a' + random.nextInt(26));
+         words[i] = new String(typo);
+      }
+      if (mode.equals("index")) {
+         long start = System.nanoTime();
+         long bytes = workload.buildSpellIndex();
+         System.out.printf("%nSymSpellIndex: %.1f s to build, %.1f MB (%.1f bytes per term)%n",
+               (System.nanoTime() - start) / 1e9, bytes / 1e6, (double) bytes / size);
+      }
+   }
+
+   @Benchmark
+   public void spellCheck(Blackhole blackhole) {
+      String word = words[next];
+      next = (next + 1) & (QUERIES - 1);
+      for (String match : workload.spellCheck(word, dist, k, mode))
+         blackhole.consume(match);
+   }
+}
@@ -0,0 +1,78 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Query throughput and latency of every Autocompletor over deterministic
+ * SyntheticDictionary inputs. Prefixes are cut from terms drawn in proportion
+ * to their weight, so popular prefixes are queried more often, and cycle
+ * through a fixed array so every engine sees the same query sequence.
+ *
+ *  % java -jar target/benchmarks.jar TopMatchesBenchmark -prof gc
+ *
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopMatchesBenchmark {
+
+   static final int QUERIES = 1024;
+   static final long SEED = 1234;
+
+   @Param({"BruteAutocomplete", "BinarySearchAutocomplete", "TrieAutocomplete",
+         "PackedTrieAutocomplete", "RadixTrieAutocomplete", "SparseTableAutocomplete",
+         "ConcurrentTrieAutocomplete", "MappedAutocomplete", "ShardedAutocomplete",
+         "TieredAutocomplete"})
+   public String impl;
+
+   @Param({"10000", "100000", "1000000"})
+   public int size;
+
+   @Param({"0", "1", "2", "4"})
+   public int prefixLength;
+
+   @Param({"1", "10"})
+   public int k;
+
+   Workload workload;
+   String[] prefixes;
+   int next;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      workload.setUp(impl, size, SEED);
+      prefixes = workload.samplePrefixes(QUERIES, prefixLength, 42);
+   }
+
+   String nextPrefix() {
+      String prefix = prefixes[next];
+      next = (next + 1) & (QUERIES - 1);
+      return prefix;
+   }
+
+   @Benchmark
+   public Iterable<String> topMatches() {
+      return workload.topMatches(nextPrefix(), k);
+   }
+
+   @Benchmark
+   public String topMatch() {
+      return workload.topMatch(nextPrefix());
+   }
+}
@@ -0,0 +1,57 @@
+package autocomplete.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to build a TrieAutocomplete trie from 1M+ SyntheticDictionary terms:
+ * TrieBulkBuilder's single-pass stack builder against its sort-and-fork
+ * builder on the same sorted input, and the constructor, which picks between
+ * them, on sorted and unsorted input. Each build is one shot on a heap large
+ * enough that the previous trie is collected outside the timed region as far
+ * as possible.
+ *
+ *  % java -jar target/benchmarks.jar TrieBuildBenchmark -prof gc
+ *
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class TrieBuildBenchmark {
+
+   static final long SEED = 1234;
+
+   @Param({"linear", "forked", "constructor", "unsorted"})
+   public String builder;
+
+   @Param({"1000000", "2000000"})
+   public int size;
+
+   Workload workload;
+
+   @Setup
+   public void setUp() {
+      workload = Workload.load();
+      // generates and sorts the dictionary outside the measurement
+      workload.buildTrie(builder, size, SEED);
+   }
+
+   @Benchmark
+   public Object build() {
+      return workload.buildTrie(builder, size, SEED);
+   }
+}
@@ -0,0 +1,184 @@
+package autocomplete.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The operations the benchmarks in this package drive.
+ *
+ * The Autocompletor engines live in the default package, which code in a
+ * named package cannot refer to, while JMH refuses benchmark classes in the
+ * default package. So the benchmarks reach the engines through this interface,
+ * implemented by the default-package AutocompleteWorkload and loaded by name.
+ * Calls through it are monomorphic and inlined by the JIT.
+ *
+ */
+public interface Workload {
+
+	/**
+	 * Builds a SyntheticDictionary of size terms from seed and the named
+	 * Autocompletor over it.
+	 */
+   void setUp(String impl, int size, long seed);
+
+	/**
+	 * Builds the named Autocompletor over the multi-word terms of
+	 * SyntheticDictionary.getPhrases(maxWords) for a dictionary of size terms
+	 * from seed. Sampling still draws from the dictionary's single words.
+	 */
+   void setUpPhrases(String impl, int size, int maxWords, long seed);
+
+	/**
+	 * Does what setUp does and returns how much the used heap, measured after
+	 * garbage collection, grew when the Autocompletor was built over the
+	 * already generated dictionary. Strings an engine shares with the
+	 * dictionary are not counted.
+	 */
+   long setUpRetained(String impl, int size, long seed);
+
+	/**
+	 * Returns the memory estimate of a SparseTableAutocomplete,
+	 * PackedTrieAutocomplete, InfixAutocomplete or FstAutocomplete.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if the Autocompletor is none of them
+	 */
+   long sizeInBytes();
+
+	/**
+	 * Returns count prefixes of the given length drawn from the dictionary's
+	 * terms in proportion to their weights.
+	 */
+   String[] samplePrefixes(int count, int length, long seed);
+
+	/**
+	 * Returns count terms drawn from the dictionary in proportion to their
+	 * weights.
+	 */
+   String[] sampleTerms(int count, long seed);
+
+   Iterable<String> topMatches(String prefix, int k);
+
+   String topMatch(String prefix);
+
+	/**
+	 * Runs topMatches(prefix, k) into a MatchBuffer reused across calls, if
+	 * the Autocompletor is a BufferedAutocompletor, and returns the number of
+	 * matches. Not safe to call from several threads.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if it is not
+	 */
+   int topMatchesInto(String prefix, int k);
+
+	/**
+	 * Runs TrieAutocomplete.fuzzyMatches(prefix, dist, k), if the
+	 * Autocompletor is a TrieAutocomplete.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if it is not
+	 */
+   Iterable<String> fuzzyMatches(String prefix, int dist, int k);
+
+	/**
+	 * Builds the TrieAutocomplete's SymSpellIndex, if it has not been built,
+	 * and returns its size in bytes.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if the Autocompletor is not a TrieAutocomplete
+	 */
+   long buildSpellIndex();
+
+	/**
+	 * Runs TrieAutocomplete.spellCheck(word, dist, k) ("index") or the
+	 * trie-only search it falls back on for larger distances ("trie").
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if the Autocompletor is not a TrieAutocomplete
+	 */
+   Iterable<String> spellCheck(String word, int dist, int k, String mode);
+
+	/**
+	 * Builds a SyntheticDictionary of size terms from seed with every other
+	 * term capitalized and the e's of every third accented, and over those
+	 * display terms a NormalizedAutocomplete, a FstAutocomplete and the
+	 * array of their normalized keys.
+	 */
+   void setUpMixedCase(int size, long seed);
+
+	/**
+	 * Returns count prefixes of the given length of the mixed-case terms,
+	 * drawn in proportion to their weights.
+	 */
+   String[] sampleMixedCasePrefixes(int count, int length, long seed);
+
+	/**
+	 * Answers prefix over the mixed-case terms and returns the number of
+	 * results: "perComparison" scans the terms with a case-insensitive
+	 * regionMatches, "prefolded" normalizes prefix once and scans the keys
+	 * with startsWith, "normalized" is NormalizedAutocomplete.topMatches and
+	 * "raw" the FstAutocomplete over the terms as they are, with no folding.
+	 */
+   int normalizedQuery(String prefix, int k, String mode);
+
+	/**
+	 * Finds the range of terms starting with prefix through a key Term and a
+	 * Term.PrefixOrder comparator, returning the sum of its bounds.
+	 */
+   int comparatorLookup(String prefix);
+
+	/**
+	 * Finds the same range with the in-place CharSequence overloads.
+	 */
+   int inPlaceLookup(String prefix);
+
+	/**
+	 * Sets the weight of term, if the Autocompletor is an
+	 * UpdatableAutocompletor.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             if it is not
+	 */
+   void updateWeight(String term, double weight);
+
+	/**
+	 * Writes a SyntheticDictionary of size terms from seed to file in the
+	 * "count\nweight\tterm" format, gzipped if gzip is true.
+	 */
+   void writeDictionary(int size, long seed, File file, boolean gzip) throws IOException;
+
+	/**
+	 * Loads file with the Scanner loop the GUI and AutocompletorBenchmark
+	 * used before DictionaryLoader, returning the number of terms.
+	 */
+   int loadWithScanner(File file) throws IOException;
+
+	/**
+	 * Loads file with DictionaryLoader, returning the number of terms.
+	 */
+   int loadWithLoader(File file) throws IOException;
+
+	/**
+	 * Answers every prefix with topMatches(prefix, k), either one call at a
+	 * time ("loop") or through topMatchesBatch, sequentially ("batch") or in
+	 * parallel ("parallel"), and returns the number of results.
+	 */
+   int topMatchesBatch(String[] prefixes, int k, String mode);
+
+	/**
+	 * Builds a trie over a SyntheticDictionary of size terms from seed with
+	 * the named TrieBulkBuilder path, returning its root: "linear" and
+	 * "forked" are given the terms in lexicographic order, "constructor" is
+	 * the TrieAutocomplete constructor on them in that order and "unsorted"
+	 * is the constructor on them in dictionary order.
+	 */
+   Object buildTrie(String builder, int size, long seed);
+
+   static Workload load() {
+      try {
+         return (Workload) Class.forName("AutocompleteWorkload").getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+         throw new IllegalStateException("AutocompleteWorkload is not on the class path", e);
+      }
+   }
+}